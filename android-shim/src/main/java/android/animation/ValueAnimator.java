@@ -0,0 +1,46 @@
+package android.animation;
+
+/**
+ * Inert stand-in: the library no longer runs animators, it only keeps a helper that
+ * accepts one.
+ */
+public class ValueAnimator {
+
+    private long mDuration = 300;
+    private long mCurrentPlayTime;
+    private TimeInterpolator mInterpolator = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+        }
+    };
+
+    public static ValueAnimator ofFloat(float... values) {
+        return new ValueAnimator();
+    }
+
+    public ValueAnimator setDuration(long duration) {
+        mDuration = duration;
+        return this;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public void setCurrentPlayTime(long playTime) {
+        mCurrentPlayTime = playTime;
+    }
+
+    public long getCurrentPlayTime() {
+        return mCurrentPlayTime;
+    }
+
+    public void setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    public TimeInterpolator getInterpolator() {
+        return mInterpolator;
+    }
+}
@@ -0,0 +1,40 @@
+package android.content;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.PowerManager;
+
+public class Context {
+
+    public static final String POWER_SERVICE = "power";
+
+    private final Resources mResources;
+    private final PowerManager mPowerManager = new PowerManager();
+
+    public Context() {
+        this(1f);
+    }
+
+    public Context(float density) {
+        mResources = new Resources(density);
+    }
+
+    public Resources getResources() {
+        return mResources;
+    }
+
+    /**
+     * There are no resources on the JVM.
+     */
+    public final Drawable getDrawable(int id) {
+        throw new UnsupportedOperationException("No resources in android-shim");
+    }
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public Object getSystemService(String name) {
+        return POWER_SERVICE.equals(name) ? mPowerManager : null;
+    }
+}
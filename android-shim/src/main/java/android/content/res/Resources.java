@@ -0,0 +1,16 @@
+package android.content.res;
+
+import android.util.DisplayMetrics;
+
+public class Resources {
+
+    private final DisplayMetrics mMetrics = new DisplayMetrics();
+
+    public Resources(float density) {
+        mMetrics.density = density;
+    }
+
+    public DisplayMetrics getDisplayMetrics() {
+        return mMetrics;
+    }
+}
@@ -0,0 +1,88 @@
+package android.graphics;
+
+/**
+ * Bitmap backed by an ARGB int array, one int per pixel whatever the config.
+ */
+public class Bitmap {
+
+    public enum Config {
+        ALPHA_8(1), ARGB_8888(4);
+
+        final int mBytesPerPixel;
+
+        Config(int bytesPerPixel) {
+            mBytesPerPixel = bytesPerPixel;
+        }
+    }
+
+    private final int mWidth;
+    private final int mHeight;
+    private final Config mConfig;
+    private int[] mPixels;
+
+    private Bitmap(int width, int height, Config config) {
+        mWidth = width;
+        mHeight = height;
+        mConfig = config;
+    }
+
+    public static Bitmap createBitmap(int width, int height, Config config) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        return new Bitmap(width, height, config);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public Config getConfig() {
+        return mConfig;
+    }
+
+    public int getRowBytes() {
+        return mWidth * mConfig.mBytesPerPixel;
+    }
+
+    public int getByteCount() {
+        return getRowBytes() * mHeight;
+    }
+
+    /**
+     * Pixel storage, allocated on first access so recording-only use stays cheap.
+     */
+    public int[] getPixelArray() {
+        if (mPixels == null) {
+            mPixels = new int[mWidth * mHeight];
+        }
+        return mPixels;
+    }
+
+    public int getPixel(int x, int y) {
+        return getPixelArray()[y * mWidth + x];
+    }
+
+    public void setPixel(int x, int y, int color) {
+        getPixelArray()[y * mWidth + x] = color;
+    }
+
+    public void getPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height) {
+        final int[] src = getPixelArray();
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(src, (y + row) * mWidth + x, pixels, offset + row * stride, width);
+        }
+    }
+
+    public void eraseColor(int color) {
+        java.util.Arrays.fill(getPixelArray(), color);
+    }
+
+    public void recycle() {
+        mPixels = null;
+    }
+}
@@ -0,0 +1,163 @@
+package android.graphics;
+
+/**
+ * Fake canvas that draws nothing and counts the operations issued against it.
+ * Subclasses can override the primitive draw and matrix calls to rasterize.
+ */
+public class Canvas {
+
+    private Bitmap mBitmap;
+    private int mSaveCount = 1;
+
+    private int mDrawOps;
+    private int mArcOps;
+    private int mPathOps;
+    private int mLineOps;
+    private int mBitmapOps;
+
+    public Canvas() {
+    }
+
+    public Canvas(Bitmap bitmap) {
+        mBitmap = bitmap;
+    }
+
+    public void setBitmap(Bitmap bitmap) {
+        mBitmap = bitmap;
+    }
+
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    public int getWidth() {
+        return mBitmap != null ? mBitmap.getWidth() : 0;
+    }
+
+    public int getHeight() {
+        return mBitmap != null ? mBitmap.getHeight() : 0;
+    }
+
+    public boolean isHardwareAccelerated() {
+        return false;
+    }
+
+    public int save() {
+        return mSaveCount++;
+    }
+
+    public void restore() {
+        if (mSaveCount <= 1) {
+            throw new IllegalStateException("Underflow in restore");
+        }
+        mSaveCount--;
+    }
+
+    public void restoreToCount(int saveCount) {
+        while (mSaveCount > saveCount && mSaveCount > 1) {
+            restore();
+        }
+    }
+
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    public void translate(float dx, float dy) {
+    }
+
+    public void scale(float sx, float sy) {
+    }
+
+    public void rotate(float degrees) {
+    }
+
+    public final void rotate(float degrees, float px, float py) {
+        translate(px, py);
+        rotate(degrees);
+        translate(-px, -py);
+    }
+
+    public boolean clipRect(Rect rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    public void drawColor(int color) {
+        mDrawOps++;
+    }
+
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        mDrawOps++;
+    }
+
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        mDrawOps++;
+        mArcOps++;
+    }
+
+    public void drawPath(Path path, Paint paint) {
+        mDrawOps++;
+        mPathOps++;
+    }
+
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        mDrawOps++;
+        mLineOps++;
+    }
+
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        mDrawOps++;
+        mLineOps++;
+    }
+
+    public void drawLines(float[] pts, Paint paint) {
+        drawLines(pts, 0, pts.length, paint);
+    }
+
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mDrawOps++;
+        mBitmapOps++;
+    }
+
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        mDrawOps++;
+        mBitmapOps++;
+    }
+
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mDrawOps++;
+        mBitmapOps++;
+    }
+
+    public int getDrawOpCount() {
+        return mDrawOps;
+    }
+
+    public int getArcOpCount() {
+        return mArcOps;
+    }
+
+    public int getPathOpCount() {
+        return mPathOps;
+    }
+
+    public int getLineOpCount() {
+        return mLineOps;
+    }
+
+    public int getBitmapOpCount() {
+        return mBitmapOps;
+    }
+
+    public void resetOpCounts() {
+        mDrawOps = 0;
+        mArcOps = 0;
+        mPathOps = 0;
+        mLineOps = 0;
+        mBitmapOps = 0;
+    }
+}
@@ -0,0 +1,103 @@
+package android.graphics;
+
+public class Paint {
+
+    public static final int ANTI_ALIAS_FLAG = 0x01;
+    public static final int FILTER_BITMAP_FLAG = 0x02;
+
+    public enum Style {
+        FILL, STROKE, FILL_AND_STROKE
+    }
+
+    public enum Cap {
+        BUTT, ROUND, SQUARE
+    }
+
+    private int mFlags;
+    private Style mStyle = Style.FILL;
+    private Cap mCap = Cap.BUTT;
+    private int mColor = 0xFF000000;
+    private float mStrokeWidth;
+    private ColorFilter mColorFilter;
+
+    public Paint() {
+    }
+
+    public Paint(int flags) {
+        mFlags = flags;
+    }
+
+    public Paint(Paint paint) {
+        set(paint);
+    }
+
+    public void set(Paint src) {
+        mFlags = src.mFlags;
+        mStyle = src.mStyle;
+        mCap = src.mCap;
+        mColor = src.mColor;
+        mStrokeWidth = src.mStrokeWidth;
+        mColorFilter = src.mColorFilter;
+    }
+
+    public void setAntiAlias(boolean aa) {
+        mFlags = aa ? mFlags | ANTI_ALIAS_FLAG : mFlags & ~ANTI_ALIAS_FLAG;
+    }
+
+    public boolean isAntiAlias() {
+        return (mFlags & ANTI_ALIAS_FLAG) != 0;
+    }
+
+    public void setFilterBitmap(boolean filter) {
+        mFlags = filter ? mFlags | FILTER_BITMAP_FLAG : mFlags & ~FILTER_BITMAP_FLAG;
+    }
+
+    public void setStyle(Style style) {
+        mStyle = style;
+    }
+
+    public Style getStyle() {
+        return mStyle;
+    }
+
+    public void setStrokeCap(Cap cap) {
+        mCap = cap;
+    }
+
+    public Cap getStrokeCap() {
+        return mCap;
+    }
+
+    public void setColor(int color) {
+        mColor = color;
+    }
+
+    public int getColor() {
+        return mColor;
+    }
+
+    public void setAlpha(int alpha) {
+        mColor = (mColor & 0x00FFFFFF) | ((alpha & 0xFF) << 24);
+    }
+
+    public int getAlpha() {
+        return mColor >>> 24;
+    }
+
+    public void setStrokeWidth(float width) {
+        mStrokeWidth = width;
+    }
+
+    public float getStrokeWidth() {
+        return mStrokeWidth;
+    }
+
+    public ColorFilter setColorFilter(ColorFilter filter) {
+        mColorFilter = filter;
+        return filter;
+    }
+
+    public ColorFilter getColorFilter() {
+        return mColorFilter;
+    }
+}
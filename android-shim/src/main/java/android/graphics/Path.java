@@ -0,0 +1,65 @@
+package android.graphics;
+
+/**
+ * Records move/line points into a growable array; no allocation once warmed up.
+ */
+public class Path {
+
+    public static final int VERB_MOVE = 0;
+    public static final int VERB_LINE = 1;
+
+    private int[] mVerbs = new int[8];
+    private float[] mPoints = new float[16];
+    private int mCount;
+
+    public void reset() {
+        mCount = 0;
+    }
+
+    public void rewind() {
+        mCount = 0;
+    }
+
+    public void moveTo(float x, float y) {
+        add(VERB_MOVE, x, y);
+    }
+
+    public void lineTo(float x, float y) {
+        add(VERB_LINE, x, y);
+    }
+
+    public boolean isEmpty() {
+        return mCount == 0;
+    }
+
+    public int getPointCount() {
+        return mCount;
+    }
+
+    public int getVerb(int index) {
+        return mVerbs[index];
+    }
+
+    public float getX(int index) {
+        return mPoints[index * 2];
+    }
+
+    public float getY(int index) {
+        return mPoints[index * 2 + 1];
+    }
+
+    private void add(int verb, float x, float y) {
+        if (mCount == mVerbs.length) {
+            final int[] verbs = new int[mCount * 2];
+            System.arraycopy(mVerbs, 0, verbs, 0, mCount);
+            mVerbs = verbs;
+            final float[] points = new float[mCount * 4];
+            System.arraycopy(mPoints, 0, points, 0, mCount * 2);
+            mPoints = points;
+        }
+        mVerbs[mCount] = verb;
+        mPoints[mCount * 2] = x;
+        mPoints[mCount * 2 + 1] = y;
+        mCount++;
+    }
+}
@@ -0,0 +1,10 @@
+package android.graphics;
+
+public class PorterDuff {
+
+    public enum Mode {
+        CLEAR,
+        SRC,
+        SRC_OVER
+    }
+}
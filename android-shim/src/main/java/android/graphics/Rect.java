@@ -0,0 +1,132 @@
+package android.graphics;
+
+public class Rect {
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    public Rect() {
+    }
+
+    public Rect(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    public Rect(Rect r) {
+        set(r);
+    }
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public void set(Rect r) {
+        set(r.left, r.top, r.right, r.bottom);
+    }
+
+    public void setEmpty() {
+        left = top = right = bottom = 0;
+    }
+
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+
+    public int centerX() {
+        return (left + right) >> 1;
+    }
+
+    public int centerY() {
+        return (top + bottom) >> 1;
+    }
+
+    public float exactCenterX() {
+        return (left + right) * 0.5f;
+    }
+
+    public float exactCenterY() {
+        return (top + bottom) * 0.5f;
+    }
+
+    public void offset(int dx, int dy) {
+        left += dx;
+        right += dx;
+        top += dy;
+        bottom += dy;
+    }
+
+    public void inset(int dx, int dy) {
+        left += dx;
+        top += dy;
+        right -= dx;
+        bottom -= dy;
+    }
+
+    public boolean contains(Rect r) {
+        return left < right && top < bottom
+                && left <= r.left && top <= r.top && right >= r.right && bottom >= r.bottom;
+    }
+
+    public boolean contains(int x, int y) {
+        return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+    }
+
+    public boolean intersect(Rect r) {
+        if (left < r.right && r.left < right && top < r.bottom && r.top < bottom) {
+            left = Math.max(left, r.left);
+            top = Math.max(top, r.top);
+            right = Math.min(right, r.right);
+            bottom = Math.min(bottom, r.bottom);
+            return true;
+        }
+        return false;
+    }
+
+    public void union(int l, int t, int r, int b) {
+        if (l < r && t < b) {
+            if (left < right && top < bottom) {
+                left = Math.min(left, l);
+                top = Math.min(top, t);
+                right = Math.max(right, r);
+                bottom = Math.max(bottom, b);
+            } else {
+                set(l, t, r, b);
+            }
+        }
+    }
+
+    public void union(Rect r) {
+        union(r.left, r.top, r.right, r.bottom);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Rect)) {
+            return false;
+        }
+        final Rect r = (Rect) o;
+        return left == r.left && top == r.top && right == r.right && bottom == r.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((left * 31 + top) * 31 + right) * 31 + bottom;
+    }
+
+    @Override
+    public String toString() {
+        return "Rect(" + left + ", " + top + " - " + right + ", " + bottom + ")";
+    }
+}
@@ -0,0 +1,9 @@
+package android.graphics.drawable;
+
+public interface Animatable {
+    void start();
+
+    void stop();
+
+    boolean isRunning();
+}
@@ -0,0 +1,135 @@
+package android.graphics.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Rect;
+
+import java.lang.ref.WeakReference;
+
+public abstract class Drawable {
+
+    private static final Rect ZERO_BOUNDS_RECT = new Rect();
+
+    public interface Callback {
+        void invalidateDrawable(Drawable who);
+
+        void scheduleDrawable(Drawable who, Runnable what, long when);
+
+        void unscheduleDrawable(Drawable who, Runnable what);
+    }
+
+    public static abstract class ConstantState {
+        public abstract Drawable newDrawable();
+
+        public Drawable newDrawable(Resources res) {
+            return newDrawable();
+        }
+
+        public abstract int getChangingConfigurations();
+    }
+
+    private Rect mBounds = ZERO_BOUNDS_RECT;
+    private WeakReference<Callback> mCallback;
+    private boolean mVisible = true;
+
+    public abstract void draw(Canvas canvas);
+
+    public abstract void setAlpha(int alpha);
+
+    public abstract void setColorFilter(ColorFilter cf);
+
+    public abstract int getOpacity();
+
+    public void setBounds(int left, int top, int right, int bottom) {
+        Rect oldBounds = mBounds;
+        if (oldBounds == ZERO_BOUNDS_RECT) {
+            oldBounds = mBounds = new Rect();
+        }
+        if (oldBounds.left != left || oldBounds.top != top
+                || oldBounds.right != right || oldBounds.bottom != bottom) {
+            mBounds.set(left, top, right, bottom);
+            onBoundsChange(mBounds);
+        }
+    }
+
+    public void setBounds(Rect bounds) {
+        setBounds(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    public final Rect getBounds() {
+        if (mBounds == ZERO_BOUNDS_RECT) {
+            mBounds = new Rect();
+        }
+        return mBounds;
+    }
+
+    public Rect getDirtyBounds() {
+        return getBounds();
+    }
+
+    protected void onBoundsChange(Rect bounds) {
+    }
+
+    public final void setCallback(Callback cb) {
+        mCallback = cb != null ? new WeakReference<>(cb) : null;
+    }
+
+    public Callback getCallback() {
+        return mCallback != null ? mCallback.get() : null;
+    }
+
+    public void invalidateSelf() {
+        final Callback callback = getCallback();
+        if (callback != null) {
+            callback.invalidateDrawable(this);
+        }
+    }
+
+    public void scheduleSelf(Runnable what, long when) {
+        final Callback callback = getCallback();
+        if (callback != null) {
+            callback.scheduleDrawable(this, what, when);
+        }
+    }
+
+    public void unscheduleSelf(Runnable what) {
+        final Callback callback = getCallback();
+        if (callback != null) {
+            callback.unscheduleDrawable(this, what);
+        }
+    }
+
+    public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = mVisible != visible;
+        if (changed) {
+            mVisible = visible;
+            invalidateSelf();
+        }
+        return changed;
+    }
+
+    public final boolean isVisible() {
+        return mVisible;
+    }
+
+    public int getChangingConfigurations() {
+        return 0;
+    }
+
+    public ConstantState getConstantState() {
+        return null;
+    }
+
+    public Drawable mutate() {
+        return this;
+    }
+
+    public int getIntrinsicWidth() {
+        return -1;
+    }
+
+    public int getIntrinsicHeight() {
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+package android.os;
+
+public class Handler {
+
+    private final Looper mLooper;
+
+    public Handler() {
+        this(Looper.getMainLooper());
+    }
+
+    public Handler(Looper looper) {
+        mLooper = looper;
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final boolean post(Runnable r) {
+        return postAtTime(r, SystemClock.uptimeMillis());
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return postAtTime(r, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean postAtTime(Runnable r, long uptimeMillis) {
+        mLooper.enqueue(r, uptimeMillis);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.remove(r);
+    }
+}
@@ -0,0 +1,56 @@
+package android.os;
+
+public class HandlerThread extends Thread {
+
+    static {
+        // the thread creating the first handler thread plays main if none touched the looper yet
+        Looper.getMainLooper();
+    }
+
+    private Looper mLooper;
+
+    public HandlerThread(String name) {
+        super(name);
+    }
+
+    protected void onLooperPrepared() {
+    }
+
+    @Override
+    public void run() {
+        Looper.prepare();
+        synchronized (this) {
+            mLooper = Looper.myLooper();
+            notifyAll();
+        }
+        onLooperPrepared();
+        Looper.loop();
+    }
+
+    /**
+     * Blocks until the thread has started its looper, null if it was never started.
+     */
+    public Looper getLooper() {
+        if (!isAlive()) {
+            return null;
+        }
+        synchronized (this) {
+            while (isAlive() && mLooper == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+        return mLooper;
+    }
+
+    public boolean quit() {
+        final Looper looper = getLooper();
+        if (looper != null) {
+            looper.quit();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message queue of a thread. The main looper is driven by hand through
+ * {@link #runUntil(long)}; other threads {@link #prepare()} one and {@link #loop()}, which
+ * runs each message once {@link SystemClock} reaches its time.
+ */
+public final class Looper {
+
+    private static final Looper sMainLooper = new Looper(Thread.currentThread());
+    private static final ThreadLocal<Looper> sThreadLooper = new ThreadLocal<>();
+
+    private final Thread mThread;
+    private final List<Message> mQueue = new ArrayList<>();
+    private boolean mQuitting;
+
+    private Looper(Thread thread) {
+        mThread = thread;
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    /**
+     * The thread that first touched the looper plays the main thread, others have a looper
+     * once they called {@link #prepare()}.
+     */
+    public static Looper myLooper() {
+        return Thread.currentThread() == sMainLooper.mThread ? sMainLooper : sThreadLooper.get();
+    }
+
+    public static void prepare() {
+        if (myLooper() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        sThreadLooper.set(new Looper(Thread.currentThread()));
+    }
+
+    /**
+     * Runs the messages of this thread's looper until it quits.
+     */
+    public static void loop() {
+        final Looper me = myLooper();
+        if (me == null || me == sMainLooper) {
+            throw new RuntimeException("No looper to loop on this thread");
+        }
+        while (true) {
+            final Message next;
+            synchronized (me) {
+                if (me.mQuitting) {
+                    return;
+                }
+                if (me.mQueue.isEmpty() || me.mQueue.get(0).when > SystemClock.uptimeMillis()) {
+                    try {
+                        // the shim clock moves without telling anyone, look again soon
+                        me.wait(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+                next = me.mQueue.remove(0);
+            }
+            next.callback.run();
+        }
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    /**
+     * Drops the pending messages and ends {@link #loop()}.
+     */
+    public synchronized void quit() {
+        mQuitting = true;
+        mQueue.clear();
+        notifyAll();
+    }
+
+    synchronized void enqueue(Runnable callback, long when) {
+        if (mQuitting) {
+            return;
+        }
+        final Message message = new Message();
+        message.callback = callback;
+        message.when = when;
+        int index = mQueue.size();
+        while (index > 0 && mQueue.get(index - 1).when > when) {
+            index--;
+        }
+        mQueue.add(index, message);
+        notifyAll();
+    }
+
+    synchronized void remove(Runnable callback) {
+        for (int i = mQueue.size() - 1; i >= 0; i--) {
+            if (mQueue.get(i).callback == callback) {
+                mQueue.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Shim only: runs every message due at or before {@code uptimeMillis}, advancing the
+     * clock to each message's time.
+     */
+    public void runUntil(long uptimeMillis) {
+        while (true) {
+            final Message next;
+            synchronized (this) {
+                if (mQueue.isEmpty() || mQueue.get(0).when > uptimeMillis) {
+                    break;
+                }
+                next = mQueue.remove(0);
+            }
+            if (next.when > SystemClock.uptimeMillis()) {
+                SystemClock.setUptimeMillis(next.when);
+            }
+            next.callback.run();
+        }
+        SystemClock.setUptimeMillis(Math.max(SystemClock.uptimeMillis(), uptimeMillis));
+    }
+}
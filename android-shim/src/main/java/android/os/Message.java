@@ -0,0 +1,8 @@
+package android.os;
+
+public final class Message {
+    public int what;
+    public Object obj;
+    Runnable callback;
+    long when;
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+public final class PowerManager {
+
+    private static volatile boolean sPowerSaveMode;
+
+    public boolean isPowerSaveMode() {
+        return sPowerSaveMode;
+    }
+
+    /**
+     * Shim only: toggles battery saver.
+     */
+    public static void setPowerSaveMode(boolean powerSaveMode) {
+        sPowerSaveMode = powerSaveMode;
+    }
+}
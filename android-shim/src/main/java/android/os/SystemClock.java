@@ -0,0 +1,27 @@
+package android.os;
+
+/**
+ * Manually advanced clock, starts at 0.
+ */
+public final class SystemClock {
+
+    private static volatile long sUptimeMillis;
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return sUptimeMillis;
+    }
+
+    public static long elapsedRealtime() {
+        return sUptimeMillis;
+    }
+
+    /**
+     * Shim only: moves the clock.
+     */
+    public static void setUptimeMillis(long uptimeMillis) {
+        sUptimeMillis = uptimeMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package android.support.v4.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(0, 0.75f, true);
+    private final int mMaxSize;
+    private int mSize;
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+    }
+
+    public final synchronized V get(K key) {
+        return mMap.get(key);
+    }
+
+    public final synchronized V put(K key, V value) {
+        mSize += sizeOf(key, value);
+        final V previous = mMap.put(key, value);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+            entryRemoved(false, key, previous, value);
+        }
+        trimToSize(mMaxSize);
+        return previous;
+    }
+
+    public final synchronized V remove(K key) {
+        final V previous = mMap.remove(key);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+            entryRemoved(false, key, previous, null);
+        }
+        return previous;
+    }
+
+    public final synchronized void evictAll() {
+        trimToSize(-1);
+    }
+
+    public final synchronized int size() {
+        return mSize;
+    }
+
+    public final synchronized int maxSize() {
+        return mMaxSize;
+    }
+
+    private void trimToSize(int maxSize) {
+        while (mSize > maxSize && !mMap.isEmpty()) {
+            final Map.Entry<K, V> eldest = mMap.entrySet().iterator().next();
+            mMap.remove(eldest.getKey());
+            mSize -= sizeOf(eldest.getKey(), eldest.getValue());
+            entryRemoved(true, eldest.getKey(), eldest.getValue(), null);
+        }
+    }
+
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue) {
+    }
+}
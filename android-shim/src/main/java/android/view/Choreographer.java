@@ -0,0 +1,137 @@
+package android.view;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames of the main thread only happen when {@link #doFrame(long)} is called, those of
+ * other looper threads when {@link #postVsync(long)} is.
+ */
+public final class Choreographer {
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final Choreographer sInstance = new Choreographer(Looper.getMainLooper());
+    private static final ThreadLocal<Choreographer> sThreadInstance = new ThreadLocal<>();
+    /**
+     * Choreographers of looper threads, to deliver {@link #postVsync(long)} to.
+     */
+    private static final List<Choreographer> sThreadInstances = new ArrayList<>();
+
+    private final Handler mHandler;
+    private FrameCallback[] mPending = new FrameCallback[4];
+    private FrameCallback[] mRunning = new FrameCallback[4];
+    private int mPendingCount;
+
+    private volatile long mVsyncTimeMillis;
+    private boolean mVsyncPending;
+    private final Runnable mVsync = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (sThreadInstances) {
+                mVsyncPending = false;
+            }
+            runFrame(mVsyncTimeMillis);
+        }
+    };
+
+    private Choreographer(Looper looper) {
+        mHandler = new Handler(looper);
+    }
+
+    /**
+     * The choreographer of the calling thread, which must have a looper.
+     */
+    public static Choreographer getInstance() {
+        final Looper looper = Looper.myLooper();
+        if (looper == Looper.getMainLooper()) {
+            return sInstance;
+        }
+        if (looper == null) {
+            throw new IllegalStateException("The current thread must have a looper!");
+        }
+        Choreographer choreographer = sThreadInstance.get();
+        if (choreographer == null) {
+            choreographer = new Choreographer(looper);
+            sThreadInstance.set(choreographer);
+            synchronized (sThreadInstances) {
+                sThreadInstances.add(choreographer);
+            }
+        }
+        return choreographer;
+    }
+
+    public void postFrameCallback(FrameCallback callback) {
+        if (mPendingCount == mPending.length) {
+            final FrameCallback[] grown = new FrameCallback[mPendingCount * 2];
+            System.arraycopy(mPending, 0, grown, 0, mPendingCount);
+            mPending = grown;
+        }
+        mPending[mPendingCount++] = callback;
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        for (int i = mPendingCount - 1; i >= 0; i--) {
+            if (mPending[i] == callback) {
+                System.arraycopy(mPending, i + 1, mPending, i, mPendingCount - i - 1);
+                mPending[--mPendingCount] = null;
+            }
+        }
+    }
+
+    public boolean hasPendingCallbacks() {
+        return mPendingCount > 0;
+    }
+
+    /**
+     * Shim only: callbacks that will run on the next frame.
+     */
+    public int getPendingCallbackCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * Shim only: sets the clock to {@code frameTimeMillis} and runs the callbacks posted
+     * before this frame.
+     */
+    public void doFrame(long frameTimeMillis) {
+        SystemClock.setUptimeMillis(frameTimeMillis);
+        runFrame(frameTimeMillis);
+    }
+
+    /**
+     * Shim only: a vsync at {@code frameTimeMillis} for every looper thread other than
+     * main, each runs the callbacks posted before this frame on its own thread. Callable
+     * from any thread; a thread still busy with the previous vsync gets only the latest.
+     */
+    public static void postVsync(long frameTimeMillis) {
+        synchronized (sThreadInstances) {
+            for (Choreographer choreographer : sThreadInstances) {
+                choreographer.mVsyncTimeMillis = frameTimeMillis;
+                if (!choreographer.mVsyncPending) {
+                    choreographer.mVsyncPending = true;
+                    choreographer.mHandler.post(choreographer.mVsync);
+                }
+            }
+        }
+    }
+
+    private void runFrame(long frameTimeMillis) {
+        final FrameCallback[] running = mPending;
+        final int count = mPendingCount;
+        mPending = mRunning;
+        mPendingCount = 0;
+        mRunning = running;
+        for (int i = 0; i < count; i++) {
+            final FrameCallback callback = running[i];
+            running[i] = null;
+            callback.doFrame(frameTimeMillis * 1000000L);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package android.view.animation;
+
+import android.os.SystemClock;
+
+public class AnimationUtils {
+    public static long currentAnimationTimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+}
@@ -0,0 +1,20 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * Stands in for the resource ids the Android build generates for the library. The JVM
+ * has no resources, so nothing that loads them runs here.
+ */
+public final class R {
+
+    private R() {
+    }
+
+    public static final class drawable {
+        public static final int loading_spinner = 0x7f020000;
+        public static final int loading_error = 0x7f020001;
+        public static final int loading_success = 0x7f020002;
+
+        private drawable() {
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.RectF;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+
+/**
+ * Rasterizes the shim canvas calls into a {@link BufferedImage} through Java2D, enough of
+ * the framework canvas for {@link LoadingDrawable}: arcs, paths, lines and the matrix
+ * stack. Op counts are still kept by {@link Canvas}.
+ */
+final class AwtCanvas extends Canvas {
+
+    private final BufferedImage mImage;
+    private final Graphics2D mGraphics;
+    private final ArrayDeque<AffineTransform> mSaved = new ArrayDeque<>();
+
+    AwtCanvas(int width, int height) {
+        mImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        mGraphics = mImage.createGraphics();
+        // keep the geometry exact, the framework does not normalize strokes either
+        mGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    BufferedImage getImage() {
+        return mImage;
+    }
+
+    void dispose() {
+        mGraphics.dispose();
+    }
+
+    @Override
+    public int getWidth() {
+        return mImage.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mImage.getHeight();
+    }
+
+    @Override
+    public int save() {
+        mSaved.push(mGraphics.getTransform());
+        return super.save();
+    }
+
+    @Override
+    public void restore() {
+        super.restore();
+        mGraphics.setTransform(mSaved.pop());
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mGraphics.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        mGraphics.scale(sx, sy);
+    }
+
+    @Override
+    public void rotate(float degrees) {
+        mGraphics.rotate(Math.toRadians(degrees));
+    }
+
+    @Override
+    public void drawColor(int color) {
+        super.drawColor(color);
+        final AffineTransform transform = mGraphics.getTransform();
+        mGraphics.setTransform(new AffineTransform());
+        mGraphics.setColor(new Color(color, true));
+        mGraphics.fillRect(0, 0, mImage.getWidth(), mImage.getHeight());
+        mGraphics.setTransform(transform);
+    }
+
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        if (mode == PorterDuff.Mode.SRC_OVER) {
+            drawColor(color);
+            return;
+        }
+        super.drawColor(color, mode);
+        final AffineTransform transform = mGraphics.getTransform();
+        final Composite composite = mGraphics.getComposite();
+        mGraphics.setTransform(new AffineTransform());
+        mGraphics.setComposite(mode == PorterDuff.Mode.CLEAR ? AlphaComposite.Clear : AlphaComposite.Src);
+        mGraphics.setColor(new Color(color, true));
+        mGraphics.fillRect(0, 0, mImage.getWidth(), mImage.getHeight());
+        mGraphics.setComposite(composite);
+        mGraphics.setTransform(transform);
+    }
+
+    /**
+     * The framework measures angles clockwise in y-down space, Java2D counterclockwise,
+     * hence the negated angles.
+     */
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        super.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+        paint(new Arc2D.Float(oval.left, oval.top, oval.right - oval.left, oval.bottom - oval.top,
+                -startAngle, -sweepAngle, useCenter ? Arc2D.PIE : Arc2D.OPEN), paint);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        super.drawPath(path, paint);
+        final GeneralPath shape = new GeneralPath();
+        for (int i = 0; i < path.getPointCount(); i++) {
+            if (path.getVerb(i) == Path.VERB_MOVE || i == 0) {
+                shape.moveTo(path.getX(i), path.getY(i));
+            } else {
+                shape.lineTo(path.getX(i), path.getY(i));
+            }
+        }
+        paint(shape, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        super.drawLine(startX, startY, stopX, stopY, paint);
+        stroke(new Line2D.Float(startX, startY, stopX, stopY), paint);
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        super.drawLines(pts, offset, count, paint);
+        for (int i = offset; i + 3 < offset + count; i += 4) {
+            stroke(new Line2D.Float(pts[i], pts[i + 1], pts[i + 2], pts[i + 3]), paint);
+        }
+    }
+
+    private void paint(Shape shape, Paint paint) {
+        if (paint.getStyle() == Paint.Style.FILL || paint.getStyle() == Paint.Style.FILL_AND_STROKE) {
+            apply(paint);
+            mGraphics.fill(shape);
+        }
+        if (paint.getStyle() != Paint.Style.FILL) {
+            stroke(shape, paint);
+        }
+    }
+
+    /**
+     * Lines are always stroked, whatever the paint style, like on the framework canvas.
+     */
+    private void stroke(Shape shape, Paint paint) {
+        apply(paint);
+        mGraphics.setStroke(new BasicStroke(paint.getStrokeWidth(), toAwtCap(paint.getStrokeCap()),
+                BasicStroke.JOIN_ROUND));
+        mGraphics.draw(shape);
+    }
+
+    private void apply(Paint paint) {
+        mGraphics.setColor(new Color(paint.getColor(), true));
+        mGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, paint.isAntiAlias()
+                ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+    }
+
+    private static int toAwtCap(Paint.Cap cap) {
+        switch (cap) {
+            case ROUND:
+                return BasicStroke.CAP_ROUND;
+            case SQUARE:
+                return BasicStroke.CAP_SQUARE;
+            default:
+                return BasicStroke.CAP_BUTT;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Renders {@link LoadingDrawable} offline into sprite sheets, for devices where drawing
+ * the spinner at runtime costs too much, and for {@code GoldenFramesTest}.
+ * <p>
+ * The drawable runs against {@code android-shim} on a fake clock: every frame moves
+ * {@link SystemClock} to the frame time and calls {@link LoadingDrawable#onFrame(long)}
+ * the way {@link LoadingTicker} would, then draws into an {@link AwtCanvas}. Three
+ * sequences can be baked:
+ * <ul>
+ * <li>{@code loading}: one seamless loop of the spinner, a shrinking and a growing sweep,</li>
+ * <li>{@code success} and {@code error}: from {@link LoadingDrawable#start()} until the
+ * drawable stops, with the state requested {@code --request} ms after the start.</li>
+ * </ul>
+ * Each sequence is written as {@code <prefix>_<sequence>.png}, a sheet of
+ * {@code --columns} frames per row, with a {@code .properties} descriptor of the frame
+ * size, count and durations. {@code --frames} also writes every frame as its own PNG and an
+ * {@code animation-list} drawable playing them.
+ */
+public final class SpriteBaker {
+
+    public static final String SEQUENCE_LOADING = "loading";
+    public static final String SEQUENCE_SUCCESS = "success";
+    public static final String SEQUENCE_ERROR = "error";
+
+    private SpriteBaker() {
+    }
+
+    /**
+     * What to render, in pixels and milliseconds.
+     */
+    public static final class Options {
+        public int mSize = 48;
+        /**
+         * Stroke width, negative for the drawable's default at {@link #mDensity}.
+         */
+        public float mBorder = -1;
+        public float mDensity = 1f;
+        public int mFps = 60;
+        public long mRequestTime;
+        public int mColumns = 10;
+    }
+
+    /**
+     * Rendered frames of one sequence and how long each is shown.
+     */
+    public static final class Sequence {
+        private final String mName;
+        private final boolean mLoop;
+        private final List<BufferedImage> mFrames = new ArrayList<>();
+        private final List<Long> mDurations = new ArrayList<>();
+
+        Sequence(String name, boolean loop) {
+            mName = name;
+            mLoop = loop;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public boolean isLoop() {
+            return mLoop;
+        }
+
+        public int getFrameCount() {
+            return mFrames.size();
+        }
+
+        public BufferedImage getFrame(int index) {
+            return mFrames.get(index);
+        }
+
+        public long getDuration(int index) {
+            return mDurations.get(index);
+        }
+    }
+
+    public static Sequence render(Options options, String sequence) {
+        final LoadingDrawable.LoadingState state;
+        if (SEQUENCE_LOADING.equals(sequence)) {
+            state = LoadingDrawable.LoadingState.LOADING;
+        } else if (SEQUENCE_SUCCESS.equals(sequence)) {
+            state = LoadingDrawable.LoadingState.SUCCESS;
+        } else if (SEQUENCE_ERROR.equals(sequence)) {
+            state = LoadingDrawable.LoadingState.ERROR;
+        } else {
+            throw new IllegalArgumentException("Unknown sequence: " + sequence);
+        }
+        if (options.mSize <= 0 || options.mFps <= 0 || options.mRequestTime < 0) {
+            throw new IllegalArgumentException("size and fps must be positive, request not negative");
+        }
+
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(options.mDensity));
+        if (options.mBorder >= 0) {
+            drawable.setBorder(options.mBorder);
+        }
+        drawable.setBounds(0, 0, options.mSize, options.mSize);
+        final LoadingFrameModel model = ((LoadingDrawable.LoadingConstantState) drawable.getConstantState()).mModel;
+        final long duration = model.getDuration();
+
+        final boolean loop = state == LoadingDrawable.LoadingState.LOADING;
+        final Sequence result = new Sequence(sequence, loop);
+        // the spinner repeats every shrink and grow once the first growth is over
+        final long first = loop ? duration : 0;
+        final long end = loop ? 3 * duration : model.getFinishTime(options.mRequestTime) + duration;
+        boolean requested = loop;
+
+        SystemClock.setUptimeMillis(0);
+        drawable.start();
+        if (loop) {
+            // the first frame latches the start of the timeline, later ones count from it
+            drawable.onFrame(0);
+        }
+        try {
+            for (int i = 0; ; i++) {
+                final long time = first + frameTime(i, options.mFps);
+                if (time >= end) {
+                    break;
+                }
+                if (!requested && time >= options.mRequestTime) {
+                    SystemClock.setUptimeMillis(options.mRequestTime);
+                    drawable.setLoadingState(state);
+                    requested = true;
+                }
+                SystemClock.setUptimeMillis(time);
+                drawable.onFrame(time);
+
+                final AwtCanvas canvas = new AwtCanvas(options.mSize, options.mSize);
+                drawable.draw(canvas);
+                canvas.dispose();
+                result.mFrames.add(canvas.getImage());
+                if (!drawable.isRunning()) {
+                    // the finished glyph, held as long as the resource is shown
+                    result.mDurations.add(frameTime(1, options.mFps));
+                    break;
+                }
+                result.mDurations.add(Math.min(end, first + frameTime(i + 1, options.mFps)) - time);
+            }
+        } finally {
+            drawable.stop();
+        }
+        return result;
+    }
+
+    /**
+     * Frame times are rounded from the exact rate so they do not drift over a sequence.
+     */
+    private static long frameTime(int index, int fps) {
+        return Math.round(index * 1000.0 / fps);
+    }
+
+    public static BufferedImage toSheet(Sequence sequence, int columns) {
+        final BufferedImage frame = sequence.getFrame(0);
+        final int count = sequence.getFrameCount();
+        final int cols = Math.max(1, Math.min(columns, count));
+        final int rows = (count + cols - 1) / cols;
+        final BufferedImage sheet = new BufferedImage(cols * frame.getWidth(), rows * frame.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = sheet.createGraphics();
+        for (int i = 0; i < count; i++) {
+            graphics.drawImage(sequence.getFrame(i), (i % cols) * frame.getWidth(), (i / cols) * frame.getHeight(), null);
+        }
+        graphics.dispose();
+        return sheet;
+    }
+
+    public static void write(Sequence sequence, Options options, File dir, String prefix, boolean frames)
+            throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        final String name = prefix + "_" + sequence.getName();
+        final BufferedImage frame = sequence.getFrame(0);
+        final int count = sequence.getFrameCount();
+        final int cols = Math.max(1, Math.min(options.mColumns, count));
+        ImageIO.write(toSheet(sequence, cols), "png", new File(dir, name + ".png"));
+
+        final StringBuilder descriptor = new StringBuilder("# LoadingDrawable sprite sheet, see SpriteBaker\n");
+        descriptor.append("frameWidth=").append(frame.getWidth()).append('\n');
+        descriptor.append("frameHeight=").append(frame.getHeight()).append('\n');
+        descriptor.append("frameCount=").append(count).append('\n');
+        descriptor.append("columns=").append(cols).append('\n');
+        descriptor.append("fps=").append(options.mFps).append('\n');
+        descriptor.append("loop=").append(sequence.isLoop()).append('\n');
+        descriptor.append("durations=");
+        for (int i = 0; i < count; i++) {
+            descriptor.append(i == 0 ? "" : ",").append(sequence.getDuration(i));
+        }
+        descriptor.append('\n');
+        writeText(new File(dir, name + ".properties"), descriptor.toString());
+
+        if (frames) {
+            final StringBuilder list = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+            list.append("<animation-list xmlns:android=\"http://schemas.android.com/apk/res/android\"\n");
+            list.append("    android:oneshot=\"").append(!sequence.isLoop()).append("\">\n");
+            for (int i = 0; i < count; i++) {
+                final String frameName = String.format(Locale.US, "%s_%03d", name, i);
+                ImageIO.write(sequence.getFrame(i), "png", new File(dir, frameName + ".png"));
+                list.append("    <item android:drawable=\"@drawable/").append(frameName)
+                        .append("\" android:duration=\"").append(sequence.getDuration(i)).append("\" />\n");
+            }
+            list.append("</animation-list>\n");
+            writeText(new File(dir, name + ".xml"), list.toString());
+        }
+    }
+
+    private static void writeText(File file, String text) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Options options = new Options();
+        File dir = new File("build/baked");
+        String prefix = "loading_drawable";
+        String sequences = "all";
+        boolean frames = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--size".equals(args[i])) {
+                options.mSize = Integer.parseInt(args[++i]);
+            } else if ("--border".equals(args[i])) {
+                options.mBorder = Float.parseFloat(args[++i]);
+            } else if ("--density".equals(args[i])) {
+                options.mDensity = Float.parseFloat(args[++i]);
+            } else if ("--fps".equals(args[i])) {
+                options.mFps = Integer.parseInt(args[++i]);
+            } else if ("--request".equals(args[i])) {
+                options.mRequestTime = Long.parseLong(args[++i]);
+            } else if ("--columns".equals(args[i])) {
+                options.mColumns = Integer.parseInt(args[++i]);
+            } else if ("--sequence".equals(args[i])) {
+                sequences = args[++i];
+            } else if ("--out".equals(args[i])) {
+                dir = new File(args[++i]);
+            } else if ("--prefix".equals(args[i])) {
+                prefix = args[++i];
+            } else if ("--frames".equals(args[i])) {
+                frames = true;
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        final String[] names = "all".equals(sequences)
+                ? new String[]{SEQUENCE_LOADING, SEQUENCE_SUCCESS, SEQUENCE_ERROR} : sequences.split(",");
+        for (String name : names) {
+            final Sequence sequence = render(options, name);
+            write(sequence, options, dir, prefix, frames);
+            System.out.println(String.format(Locale.US, "%-8s %3d frames -> %s", name, sequence.getFrameCount(),
+                    new File(dir, prefix + "_" + name + ".png")));
+        }
+    }
+}
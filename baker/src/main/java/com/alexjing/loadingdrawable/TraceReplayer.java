@@ -0,0 +1,194 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Replays a trace written by {@link LoadingTraceRecorder} on a plain JVM, for
+ * {@code TraceReplayTest} and to reproduce a trace pulled from a device.
+ * <p>
+ * A new drawable is configured like the recorded one and driven through the recorded
+ * events on a fake clock: each record moves {@link SystemClock} to its time, then
+ * starts, stops, pauses or resumes the drawable, requests the recorded state, or calls
+ * {@link LoadingDrawable#onFrame(long)} the way {@link LoadingTicker} would. Every frame
+ * it evaluates is compared with the recorded one, and the update time and the bytes
+ * allocated while replaying are measured the way {@code BenchmarkRunner} does. Nothing
+ * is drawn, so thousands of traces replay in a few seconds.
+ * <p>
+ * Frames only match when the replaying library evaluates the animation like the
+ * recording one did, which is the point of a regression check; the frame rate policy,
+ * quality tier and determinate progress of the recording are not part of the trace.
+ */
+public final class TraceReplayer {
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final LoadingFrame mExpected = new LoadingFrame();
+
+    /**
+     * Outcome of one replay.
+     */
+    public static final class Result {
+        private int mFrames;
+        private int mMismatches;
+        private int mFirstMismatch = -1;
+        private String mMismatch;
+        private long mFinishTime = -1;
+        private long mUpdateNanos;
+        private long mAllocatedBytes;
+
+        public int getFrameCount() {
+            return mFrames;
+        }
+
+        public int getMismatchCount() {
+            return mMismatches;
+        }
+
+        /**
+         * Index of the first frame that differs from the recording, -1 if all match.
+         */
+        public int getFirstMismatch() {
+            return mFirstMismatch;
+        }
+
+        /**
+         * The recorded and the replayed first differing frame, null if all match.
+         */
+        public String getMismatch() {
+            return mMismatch;
+        }
+
+        /**
+         * Frame time of the first finished frame, -1 if the trace never finished.
+         */
+        public long getFinishTime() {
+            return mFinishTime;
+        }
+
+        /**
+         * Time spent in {@link LoadingDrawable#onFrame(long)}, in ns.
+         */
+        public long getUpdateNanos() {
+            return mUpdateNanos;
+        }
+
+        /**
+         * Bytes allocated from the first to the last record.
+         */
+        public long getAllocatedBytes() {
+            return mAllocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d frames, %d mismatched, finished at %d, %.1f us, %d bytes%s",
+                    mFrames, mMismatches, mFinishTime, mUpdateNanos / 1000.0, mAllocatedBytes,
+                    mMismatch != null ? "\n  first mismatch at frame " + mFirstMismatch + ": " + mMismatch : "");
+        }
+    }
+
+    /**
+     * A drawable configured like the one {@code trace} was recorded from.
+     */
+    public static LoadingDrawable newDrawable(LoadingTraceReader trace, Context context) {
+        final LoadingDrawable drawable = new LoadingDrawable(context);
+        final LoadingDrawable.LoadingConstantState state =
+                (LoadingDrawable.LoadingConstantState) drawable.getConstantState();
+        state.mDuration = (int) trace.getDuration();
+        state.mMinSweepAngle = trace.getMinSweepAngle();
+        state.mMaxSweepAngle = trace.getMaxSweepAngle();
+        state.mLoadingColor = trace.getLoadingColor();
+        state.mErrorColor = trace.getErrorColor();
+        state.mSuccessColor = trace.getSuccessColor();
+        state.updateModel();
+        drawable.setBorder(trace.getBorder());
+        drawable.setBounds(0, 0, 48, 48);
+        return drawable;
+    }
+
+    /**
+     * Replays {@code trace} from its first record on {@code drawable}, which is recycled
+     * first, so one drawable can replay many traces.
+     */
+    public Result replay(LoadingTraceReader trace, LoadingDrawable drawable) {
+        final Result result = new Result();
+        final LoadingFrame expected = mExpected;
+        final long threadId = Thread.currentThread().getId();
+        drawable.recycle();
+        trace.rewind();
+
+        final long bytesBefore = mThreadBean.getThreadAllocatedBytes(threadId);
+        while (trace.next()) {
+            final long time = trace.getTime();
+            SystemClock.setUptimeMillis(time);
+            switch (trace.getTag()) {
+                case LoadingTraceReader.TAG_START:
+                    drawable.start();
+                    break;
+                case LoadingTraceReader.TAG_STOP:
+                    drawable.stop();
+                    break;
+                case LoadingTraceReader.TAG_PAUSE:
+                    drawable.pause();
+                    break;
+                case LoadingTraceReader.TAG_RESUME:
+                    drawable.resume();
+                    break;
+                case LoadingTraceReader.TAG_STATE:
+                    drawable.setLoadingState(trace.getState(), trace.getMode());
+                    break;
+                case LoadingTraceReader.TAG_FRAME:
+                    final long start = System.nanoTime();
+                    drawable.onFrame(time);
+                    result.mUpdateNanos += System.nanoTime() - start;
+                    final LoadingFrame actual = drawable.getCurrentFrame();
+                    trace.readFrame(expected);
+                    if (!expected.sameAs(actual) && result.mMismatches++ == 0) {
+                        result.mFirstMismatch = result.mFrames;
+                        result.mMismatch = "recorded " + expected + ", replayed " + actual;
+                    }
+                    if (result.mFinishTime < 0 && actual.isFinished()) {
+                        result.mFinishTime = time;
+                    }
+                    result.mFrames++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        result.mAllocatedBytes = mThreadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        drawable.stop();
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: TraceReplayer <trace>...");
+        }
+        final TraceReplayer replayer = new TraceReplayer();
+        boolean matched = true;
+        for (String path : args) {
+            final InputStream in = new FileInputStream(new File(path));
+            final LoadingTraceReader trace;
+            try {
+                trace = LoadingTraceReader.read(in);
+            } finally {
+                in.close();
+            }
+            final Result result = replayer.replay(trace, newDrawable(trace, new Context()));
+            System.out.println(path + ": " + result);
+            matched &= result.getMismatchCount() == 0;
+        }
+        if (!matched) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drawables in cached rendering mode blit from the shared {@link LoadingAtlasCache} when
+ * their atlas fits its budget and draw directly otherwise.
+ */
+public class CachedRenderingTest {
+
+    private static final long START = 1000;
+
+    @Before
+    public void setUp() {
+        LoadingAtlasCache.setMaxBytes(LoadingAtlasCache.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    public void smallDrawablesBlitFromTheSharedAtlas() {
+        final LoadingDrawable drawable = newCachedDrawable(48);
+        final Canvas canvas = drawFrame(drawable);
+        assertEquals(1, canvas.getBitmapOpCount());
+        assertEquals(0, canvas.getArcOpCount());
+        assertTrue(LoadingAtlasCache.getSizeBytes() > 0);
+        drawable.stop();
+    }
+
+    @Test
+    public void oversizedDrawablesDrawDirectly() {
+        final int size = 300;
+        assertTrue(LoadingFrameAtlas.getByteCount(size, size) > LoadingAtlasCache.getMaxBytes());
+        final LoadingDrawable drawable = newCachedDrawable(size);
+        for (int i = 0; i < 3; i++) {
+            final Canvas canvas = drawFrame(drawable);
+            assertEquals(0, canvas.getBitmapOpCount());
+            assertEquals(1, canvas.getArcOpCount());
+        }
+        assertEquals(0, LoadingAtlasCache.getSizeBytes());
+        drawable.stop();
+    }
+
+    private static LoadingDrawable newCachedDrawable(int size) {
+        LoadingAtlasCache.clear();
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        drawable.setBounds(0, 0, size, size);
+        drawable.setCachedRendering(true);
+        SystemClock.setUptimeMillis(START);
+        drawable.start();
+        return drawable;
+    }
+
+    private static Canvas drawFrame(LoadingDrawable drawable) {
+        drawable.onFrame(START + 100);
+        final Canvas canvas = new Canvas();
+        drawable.draw(canvas);
+        return canvas;
+    }
+}
@@ -0,0 +1,125 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Renders every frame of a sequence and checks that each pixel that changed from the
+ * frame before lies inside the dirty bounds reported with the invalidation, and that
+ * most frames report less than the whole drawable.
+ */
+public class DirtyBoundsTest {
+
+    private static final int SIZE = 96;
+    private static final int BORDER = 8;
+    private static final int FPS = 60;
+    private static final long REQUEST_TIME = 500;
+
+    @Test
+    public void loadingChangesStayInsideDirtyBounds() {
+        check(LoadingDrawable.LoadingState.LOADING);
+    }
+
+    @Test
+    public void successChangesStayInsideDirtyBounds() {
+        check(LoadingDrawable.LoadingState.SUCCESS);
+    }
+
+    @Test
+    public void errorChangesStayInsideDirtyBounds() {
+        check(LoadingDrawable.LoadingState.ERROR);
+    }
+
+    private static void check(LoadingDrawable.LoadingState state) {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        drawable.setBorder(BORDER);
+        drawable.setBounds(0, 0, SIZE, SIZE);
+        final RecordingCallback callback = new RecordingCallback();
+        drawable.setCallback(callback);
+        final long duration = ((LoadingDrawable.LoadingConstantState) drawable.getConstantState())
+                .mModel.getDuration();
+        final long end = 4 * duration;
+        boolean requested = state == LoadingDrawable.LoadingState.LOADING;
+
+        SystemClock.setUptimeMillis(0);
+        drawable.start();
+        BufferedImage previous = null;
+        int frames = 0;
+        int partial = 0;
+        try {
+            for (int i = 0; drawable.isRunning(); i++) {
+                final long time = Math.round(i * 1000.0 / FPS);
+                if (time >= end) {
+                    break;
+                }
+                if (!requested && time >= REQUEST_TIME) {
+                    SystemClock.setUptimeMillis(REQUEST_TIME);
+                    drawable.setLoadingState(state);
+                    requested = true;
+                }
+                SystemClock.setUptimeMillis(time);
+                callback.mInvalidated = false;
+                drawable.onFrame(time);
+
+                final AwtCanvas canvas = new AwtCanvas(SIZE, SIZE);
+                drawable.draw(canvas);
+                canvas.dispose();
+                final BufferedImage image = canvas.getImage();
+                if (previous != null) {
+                    final Rect dirty = callback.mInvalidated ? callback.mDirty : new Rect();
+                    assertChangesInside(state + " at " + time + " ms", previous, image, dirty);
+                    if (callback.mInvalidated) {
+                        frames++;
+                        if (dirty.width() < SIZE || dirty.height() < SIZE) {
+                            partial++;
+                        }
+                    }
+                }
+                previous = image;
+            }
+        } finally {
+            drawable.stop();
+        }
+        assertTrue(state + ": " + partial + " of " + frames + " frames were partial", partial * 2 > frames);
+    }
+
+    private static void assertChangesInside(String message, BufferedImage previous, BufferedImage image,
+            Rect dirty) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (previous.getRGB(x, y) != image.getRGB(x, y) && !dirty.contains(x, y)) {
+                    fail(message + ": pixel " + x + "," + y + " changed outside " + dirty);
+                }
+            }
+        }
+    }
+
+    private static final class RecordingCallback implements Drawable.Callback {
+
+        final Rect mDirty = new Rect();
+        boolean mInvalidated;
+
+        @Override
+        public void invalidateDrawable(Drawable who) {
+            mDirty.set(who.getDirtyBounds());
+            mInvalidated = true;
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bakes every sequence and compares the sheets to the checked-in golden frames, so a change
+ * to the animation logic that moves, recolors or retimes a frame fails here. A few pixels
+ * may differ by a few levels between Java2D versions. Run with
+ * {@code -DupdateGoldenFrames=true} to rewrite the goldens after an intended change.
+ */
+public class GoldenFramesTest {
+
+    private static final File GOLDEN_DIR = new File("src/test/resources/golden");
+
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final double MISMATCH_TOLERANCE = 0.005;
+
+    @Test
+    public void loadingMatchesGolden() throws IOException {
+        check(SpriteBaker.SEQUENCE_LOADING);
+    }
+
+    @Test
+    public void successMatchesGolden() throws IOException {
+        check(SpriteBaker.SEQUENCE_SUCCESS);
+    }
+
+    @Test
+    public void errorMatchesGolden() throws IOException {
+        check(SpriteBaker.SEQUENCE_ERROR);
+    }
+
+    @Test
+    public void thickBorderMatchesGolden() throws IOException {
+        final SpriteBaker.Options options = options();
+        options.mBorder = 8;
+        check(SpriteBaker.SEQUENCE_SUCCESS, options, "success_border8");
+    }
+
+    @Test
+    public void completionStartsAfterNextGrowth() {
+        final SpriteBaker.Options options = options();
+        final int requestedEarly = SpriteBaker.render(options, SpriteBaker.SEQUENCE_SUCCESS).getFrameCount();
+        // one shrink and grow later
+        options.mRequestTime = 1000;
+        final int requestedLate = SpriteBaker.render(options, SpriteBaker.SEQUENCE_SUCCESS).getFrameCount();
+        assertEquals(2 * 800 * options.mFps / 1000, requestedLate - requestedEarly);
+    }
+
+    private static SpriteBaker.Options options() {
+        final SpriteBaker.Options options = new SpriteBaker.Options();
+        options.mSize = 48;
+        options.mFps = 30;
+        options.mColumns = 10;
+        return options;
+    }
+
+    private static void check(String sequence) throws IOException {
+        check(sequence, options(), sequence);
+    }
+
+    private static void check(String sequence, SpriteBaker.Options options, String name) throws IOException {
+        final BufferedImage actual = SpriteBaker.toSheet(SpriteBaker.render(options, sequence), options.mColumns);
+        final File file = new File(GOLDEN_DIR, name + ".png");
+        if (Boolean.getBoolean("updateGoldenFrames")) {
+            GOLDEN_DIR.mkdirs();
+            ImageIO.write(actual, "png", file);
+            return;
+        }
+        assertTrue(file + " is missing", file.exists());
+        final BufferedImage expected = ImageIO.read(file);
+        // a different frame count changes the sheet size
+        assertEquals(name + " width", expected.getWidth(), actual.getWidth());
+        assertEquals(name + " height", expected.getHeight(), actual.getHeight());
+
+        int mismatches = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (!similar(expected.getRGB(x, y), actual.getRGB(x, y))) {
+                    mismatches++;
+                }
+            }
+        }
+        final int allowed = (int) (expected.getWidth() * expected.getHeight() * MISMATCH_TOLERANCE);
+        assertTrue(name + ": " + mismatches + " pixels differ, at most " + allowed + " may",
+                mismatches <= allowed);
+    }
+
+    private static boolean similar(int expected, int actual) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            if (Math.abs(((expected >>> shift) & 0xff) - ((actual >>> shift) & 0xff)) > CHANNEL_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
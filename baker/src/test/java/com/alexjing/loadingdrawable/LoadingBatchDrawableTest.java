@@ -0,0 +1,232 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A batch must look exactly like one {@link LoadingDrawable} per slot, while drawing all
+ * of them in one pass and invalidating once per frame.
+ */
+public class LoadingBatchDrawableTest {
+
+    private static final int SIZE = 48;
+    private static final int FPS = 60;
+    private static final long REQUEST_TIME = 500;
+
+    private static final LoadingDrawable.LoadingState[] STATES = {
+            LoadingDrawable.LoadingState.LOADING,
+            LoadingDrawable.LoadingState.SUCCESS,
+            LoadingDrawable.LoadingState.ERROR,
+    };
+
+    @Test
+    public void slotsMatchSeparateDrawables() {
+        final Context context = new Context(1f);
+        final LoadingBatchDrawable batch = new LoadingBatchDrawable(context, SIZE);
+        batch.setBounds(0, 0, SIZE * STATES.length, SIZE);
+        batch.setSlotCount(STATES.length);
+        final LoadingDrawable[] drawables = new LoadingDrawable[STATES.length];
+
+        SystemClock.setUptimeMillis(0);
+        for (int i = 0; i < STATES.length; i++) {
+            batch.setSlotPosition(i, i * SIZE, 0);
+            batch.setSlotState(i, LoadingDrawable.LoadingState.LOADING);
+            drawables[i] = new LoadingDrawable(context);
+            drawables[i].setBounds(i * SIZE, 0, (i + 1) * SIZE, SIZE);
+            drawables[i].start();
+        }
+        try {
+            boolean requested = false;
+            for (int frame = 0; frame < 3 * FPS; frame++) {
+                final long time = Math.round(frame * 1000.0 / FPS);
+                if (!requested && time >= REQUEST_TIME) {
+                    SystemClock.setUptimeMillis(REQUEST_TIME);
+                    for (int i = 0; i < STATES.length; i++) {
+                        batch.setSlotState(i, STATES[i]);
+                        drawables[i].setLoadingState(STATES[i]);
+                    }
+                    requested = true;
+                }
+                SystemClock.setUptimeMillis(time);
+                batch.onFrame(time);
+                for (LoadingDrawable drawable : drawables) {
+                    if (drawable.isRunning()) {
+                        drawable.onFrame(time);
+                    }
+                }
+
+                final AwtCanvas expected = new AwtCanvas(SIZE * STATES.length, SIZE);
+                for (LoadingDrawable drawable : drawables) {
+                    drawable.draw(expected);
+                }
+                expected.dispose();
+                final AwtCanvas actual = new AwtCanvas(SIZE * STATES.length, SIZE);
+                batch.draw(actual);
+                actual.dispose();
+                assertSameImage("at " + time + " ms", expected.getImage(), actual.getImage());
+            }
+        } finally {
+            for (LoadingDrawable drawable : drawables) {
+                drawable.stop();
+            }
+        }
+        for (int i = 0; i < STATES.length; i++) {
+            assertEquals(STATES[i], batch.getSlotState(i));
+            assertEquals(STATES[i] == LoadingDrawable.LoadingState.LOADING, batch.isSlotAnimating(i));
+        }
+    }
+
+    @Test
+    public void finishNowReplacesAPendingCompletion() {
+        final Context context = new Context(1f);
+        final LoadingBatchDrawable batch = new LoadingBatchDrawable(context, SIZE);
+        batch.setBounds(0, 0, SIZE, SIZE);
+        batch.setSlotCount(1);
+        final LoadingDrawable drawable = new LoadingDrawable(context);
+        drawable.setBounds(0, 0, SIZE, SIZE);
+
+        SystemClock.setUptimeMillis(0);
+        batch.setSlotState(0, LoadingDrawable.LoadingState.LOADING);
+        drawable.start();
+        final long finishTime = REQUEST_TIME + 100;
+        try {
+            for (int frame = 0; drawable.isRunning(); frame++) {
+                final long time = Math.round(frame * 1000.0 / FPS);
+                if (time >= REQUEST_TIME && time - 1000 / FPS < REQUEST_TIME) {
+                    SystemClock.setUptimeMillis(REQUEST_TIME);
+                    batch.setSlotState(0, LoadingDrawable.LoadingState.SUCCESS);
+                    drawable.setLoadingState(LoadingDrawable.LoadingState.SUCCESS);
+                }
+                if (time >= finishTime && time - 1000 / FPS < finishTime) {
+                    // the completion requested above is still waiting for the next growth
+                    SystemClock.setUptimeMillis(finishTime);
+                    batch.setSlotState(0, LoadingDrawable.LoadingState.SUCCESS,
+                            LoadingDrawable.TRANSITION_FINISH_NOW);
+                    drawable.setLoadingState(LoadingDrawable.LoadingState.SUCCESS,
+                            LoadingDrawable.TRANSITION_FINISH_NOW);
+                }
+                SystemClock.setUptimeMillis(time);
+                batch.onFrame(time);
+                drawable.onFrame(time);
+
+                final AwtCanvas expected = new AwtCanvas(SIZE, SIZE);
+                drawable.draw(expected);
+                expected.dispose();
+                final AwtCanvas actual = new AwtCanvas(SIZE, SIZE);
+                batch.draw(actual);
+                actual.dispose();
+                assertSameImage("at " + time + " ms", expected.getImage(), actual.getImage());
+            }
+        } finally {
+            drawable.stop();
+        }
+        assertFalse(batch.isSlotAnimating(0));
+    }
+
+    @Test
+    public void drawsEverySlotInOnePass() {
+        final LoadingBatchDrawable batch = new LoadingBatchDrawable(new Context(1f), SIZE);
+        batch.setSlotCount(100);
+        for (int i = 0; i < 100; i += 2) {
+            batch.setSlotPosition(i, (i % 10) * SIZE, (i / 10) * SIZE);
+            batch.setSlotState(i, LoadingDrawable.LoadingState.LOADING);
+        }
+        // an empty slot shows the finished glyph at once
+        batch.setSlotState(11, LoadingDrawable.LoadingState.SUCCESS);
+        assertFalse(batch.isSlotAnimating(11));
+        assertNull(batch.getSlotState(1));
+
+        final Canvas canvas = new Canvas();
+        batch.draw(canvas);
+        assertEquals(51, canvas.getArcOpCount());
+        // the finished slot adds its glyph
+        assertEquals(1, canvas.getLineOpCount());
+
+        batch.clearSlot(0);
+        canvas.resetOpCounts();
+        batch.draw(canvas);
+        assertEquals(50, canvas.getArcOpCount());
+    }
+
+    @Test
+    public void tickerInvalidatesOncePerFrameUntilIdle() {
+        final LoadingBatchDrawable batch = new LoadingBatchDrawable(new Context(1f), SIZE);
+        final CountingCallback callback = new CountingCallback();
+        batch.setCallback(callback);
+        batch.setBounds(0, 0, 4 * SIZE, SIZE);
+        batch.setSlotCount(4);
+
+        long time = 10000;
+        SystemClock.setUptimeMillis(time);
+        for (int i = 0; i < 4; i++) {
+            batch.setSlotPosition(i, i * SIZE, 0);
+            batch.setSlotState(i, LoadingDrawable.LoadingState.LOADING);
+        }
+        assertTrue(batch.mTickerIndex >= 0);
+
+        // the first frame only starts the timelines, it shows what was drawn already
+        time += 16;
+        Choreographer.getInstance().doFrame(time);
+        time += 16;
+        callback.mInvalidations = 0;
+        Choreographer.getInstance().doFrame(time);
+        assertEquals(1, callback.mInvalidations);
+
+        for (int i = 0; i < 4; i++) {
+            batch.setSlotState(i, i % 2 == 0 ? LoadingDrawable.LoadingState.SUCCESS
+                    : LoadingDrawable.LoadingState.ERROR, LoadingDrawable.TRANSITION_FINISH_NOW);
+        }
+        for (int frame = 0; frame < 200 && batch.mTickerIndex >= 0; frame++) {
+            time += 16;
+            callback.mInvalidations = 0;
+            Choreographer.getInstance().doFrame(time);
+            assertTrue(callback.mInvalidations <= 1);
+        }
+        assertEquals(-1, batch.mTickerIndex);
+        for (int i = 0; i < 4; i++) {
+            assertFalse(batch.isSlotAnimating(i));
+        }
+    }
+
+    private static void assertSameImage(String message, BufferedImage expected, BufferedImage actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    fail(message + ": pixel " + x + "," + y + " is " + Integer.toHexString(actual.getRGB(x, y))
+                            + ", expected " + Integer.toHexString(expected.getRGB(x, y)));
+                }
+            }
+        }
+    }
+
+    private static final class CountingCallback implements Drawable.Callback {
+
+        int mInvalidations;
+
+        @Override
+        public void invalidateDrawable(Drawable who) {
+            mInvalidations++;
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}
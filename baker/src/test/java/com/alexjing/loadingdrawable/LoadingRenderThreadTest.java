@@ -0,0 +1,347 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A drawable on a {@link LoadingRenderThread} must produce the frames it would on the main
+ * thread, and keep producing them while the main thread is blocked.
+ */
+public class LoadingRenderThreadTest {
+
+    private static final int SIZE = 96;
+    private static final long FRAME = 16;
+
+    @Test
+    public void matchesTheMainThreadFrameForFrame() throws InterruptedException {
+        final LoadingDrawable.LoadingState[] states = {
+                LoadingDrawable.LoadingState.SUCCESS, LoadingDrawable.LoadingState.ERROR};
+        for (LoadingDrawable.LoadingState state : states) {
+            for (long requestTime : new long[]{0, 333, 1250}) {
+                compare(state, requestTime);
+            }
+        }
+    }
+
+    private static void compare(LoadingDrawable.LoadingState state, long requestTime) throws InterruptedException {
+        final long base = SystemClock.uptimeMillis() + 1000;
+        SystemClock.setUptimeMillis(base);
+        final LoadingDrawable main = new LoadingDrawable(new Context(1f));
+        main.setBounds(0, 0, SIZE, SIZE);
+        main.setCallback(new IgnoringCallback());
+        final LoadingTraceRecorder mainTrace = new LoadingTraceRecorder();
+        main.setTraceRecorder(mainTrace);
+
+        final LoadingDrawable hosted = new LoadingDrawable(new Context(1f));
+        final LoadingTraceRecorder hostedTrace = new LoadingTraceRecorder();
+        hosted.setTraceRecorder(hostedTrace);
+        final LoadingRenderThread renderer = new LoadingRenderThread(hosted);
+        final FakeSurfaceHolder holder = new FakeSurfaceHolder();
+        renderer.surfaceCreated(holder);
+        renderer.surfaceChanged(holder, 0, SIZE, SIZE);
+
+        main.start();
+        renderer.start();
+        sync(renderer);
+        boolean requested = false;
+        for (long time = base; main.isRunning(); time += FRAME) {
+            if (!requested && time >= base + requestTime) {
+                SystemClock.setUptimeMillis(base + requestTime);
+                main.setLoadingState(state);
+                renderer.setLoadingState(state);
+                sync(renderer);
+                requested = true;
+            }
+            Choreographer.getInstance().doFrame(time);
+            Choreographer.postVsync(time);
+            sync(renderer);
+        }
+        // the draw of the last frame follows it
+        sync(renderer);
+
+        final String scenario = state + " at " + requestTime;
+        assertFalse(scenario, hosted.isRunning());
+        assertArrayEquals(scenario, mainTrace.toByteArray(), hostedTrace.toByteArray());
+        assertTrue(scenario, renderer.getFrameCount() > 10);
+
+        final AwtCanvas canvas = new AwtCanvas(SIZE, SIZE);
+        main.draw(canvas);
+        canvas.dispose();
+        assertPixelsEqual(scenario, canvas.getImage(), holder.getImage());
+        release(renderer);
+    }
+
+    @Test
+    public void keepsAnimatingWhileTheMainThreadIsBlocked() throws InterruptedException {
+        final LoadingDrawable main = new LoadingDrawable(new Context(1f));
+        main.setBounds(0, 0, SIZE, SIZE);
+        main.setCallback(new IgnoringCallback());
+        final LoadingRenderThread renderer = new LoadingRenderThread(new LoadingDrawable(new Context(1f)));
+        final FakeSurfaceHolder holder = new FakeSurfaceHolder();
+        renderer.surfaceCreated(holder);
+        renderer.surfaceChanged(holder, 0, SIZE, SIZE);
+
+        final Vsync vsync = new Vsync();
+        vsync.start();
+        main.start();
+        renderer.start();
+        // the main thread is stuck in a long task, its choreographer gets no frames
+        Thread.sleep(1000);
+        final int blockedFrames = renderer.getFrameCount();
+        final float rotation = main.getCurrentFrame().getRotation();
+        // and stays stuck while the renderer plays the completion
+        renderer.setLoadingState(LoadingDrawable.LoadingState.SUCCESS);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        do {
+            Thread.sleep(50);
+            sync(renderer);
+        } while (renderer.getDrawable().isRunning() && System.nanoTime() < deadline);
+        vsync.finish();
+
+        assertTrue(blockedFrames + " frames while blocked", blockedFrames >= 20);
+        assertEquals(0f, rotation, 0f);
+        assertEquals(0f, main.getCurrentFrame().getRotation(), 0f);
+        assertFalse("completion never finished", renderer.getDrawable().isRunning());
+        assertTrue(renderer.getDrawable().getCurrentFrame().isFinished());
+        main.stop();
+        release(renderer);
+    }
+
+    @Test
+    public void appliesRequestsFromManyThreadsInOrder() throws InterruptedException {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        final AtomicInteger applied = new AtomicInteger();
+        drawable.setOnLoadingStateChangeListener(new LoadingDrawable.OnLoadingStateChangeListener() {
+            @Override
+            public void onLoadingStateChanged(LoadingDrawable d, LoadingDrawable.LoadingState previous,
+                                              LoadingDrawable.LoadingState state, int mode) {
+                applied.incrementAndGet();
+            }
+        });
+        final LoadingRenderThread renderer = new LoadingRenderThread(drawable);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        renderer.setLoadingState(LoadingDrawable.LoadingState.ERROR);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        renderer.setLoadingState(LoadingDrawable.LoadingState.SUCCESS);
+        sync(renderer);
+        // unlike the drawable's own queue, none are collapsed and the last one wins
+        assertEquals(threads.length * 1000 + 1, applied.get());
+        assertEquals(LoadingDrawable.LoadingState.SUCCESS, drawable.getLoadingState());
+        release(renderer);
+    }
+
+    @Test
+    public void releaseHandsTheDrawableBack() throws InterruptedException {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        final LoadingRenderThread renderer = new LoadingRenderThread(drawable);
+        renderer.start();
+        sync(renderer);
+        assertTrue(drawable.isRunning());
+        release(renderer);
+        assertFalse(drawable.isRunning());
+        assertNull(drawable.getCallback());
+        renderer.start();
+
+        // back on the main thread
+        drawable.setCallback(new IgnoringCallback());
+        drawable.start();
+        assertTrue(drawable.isRunning());
+        drawable.setLoadingState(LoadingDrawable.LoadingState.ERROR);
+        assertEquals(LoadingDrawable.LoadingState.ERROR, drawable.getLoadingState());
+        drawable.stop();
+    }
+
+    @Test
+    public void drawsDirectlyInCachedMode() throws InterruptedException {
+        LoadingAtlasCache.clear();
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        drawable.setCachedRendering(true);
+        final LoadingRenderThread renderer = new LoadingRenderThread(drawable);
+        final FakeSurfaceHolder holder = new FakeSurfaceHolder();
+        renderer.surfaceCreated(holder);
+        renderer.surfaceChanged(holder, 0, SIZE, SIZE);
+
+        final long base = SystemClock.uptimeMillis() + 1000;
+        SystemClock.setUptimeMillis(base);
+        renderer.start();
+        sync(renderer);
+        for (long time = base; time < base + 10 * FRAME; time += FRAME) {
+            Choreographer.postVsync(time);
+            sync(renderer);
+        }
+        sync(renderer);
+
+        assertTrue(renderer.getFrameCount() > 1);
+        // the shared atlas is never rendered into off the main thread
+        assertEquals(0, LoadingAtlasCache.getSizeBytes());
+        release(renderer);
+        assertTrue(drawable.isCachedRendering());
+    }
+
+    @Test
+    public void rejectsUnknownTransitionModes() throws InterruptedException {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        final LoadingRenderThread renderer = new LoadingRenderThread(drawable);
+        for (int mode : new int[]{-1, LoadingDrawable.TRANSITION_SKIP + 1}) {
+            try {
+                renderer.setLoadingState(LoadingDrawable.LoadingState.SUCCESS, mode);
+                fail("renderer accepted mode " + mode);
+            } catch (IllegalArgumentException expected) {
+                // the packed request would have carried another state
+            }
+            try {
+                drawable.setLoadingState(LoadingDrawable.LoadingState.SUCCESS, mode);
+                fail("drawable accepted mode " + mode);
+            } catch (IllegalArgumentException expected) {
+                // as above
+            }
+        }
+        release(renderer);
+    }
+
+    /**
+     * Waits until the renderer's thread handled everything posted to it so far.
+     */
+    private static void sync(LoadingRenderThread renderer) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        renderer.getHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue("renderer thread stuck", latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void release(LoadingRenderThread renderer) throws InterruptedException {
+        final Thread thread = renderer.getHandler().getLooper().getThread();
+        renderer.release();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    private static void assertPixelsEqual(String message, BufferedImage expected, BufferedImage actual) {
+        final int[] expectedPixels = expected.getRGB(0, 0, SIZE, SIZE, null, 0, SIZE);
+        final int[] actualPixels = actual.getRGB(0, 0, SIZE, SIZE, null, 0, SIZE);
+        assertArrayEquals(message, expectedPixels, actualPixels);
+    }
+
+    /**
+     * Real-time vsync for the looper threads, moving the clock along.
+     */
+    private static final class Vsync extends Thread {
+        private volatile boolean mFinished;
+
+        @Override
+        public void run() {
+            final long base = SystemClock.uptimeMillis();
+            final long start = System.nanoTime();
+            while (!mFinished) {
+                final long time = base + (System.nanoTime() - start) / 1000000L;
+                SystemClock.setUptimeMillis(time);
+                Choreographer.postVsync(time);
+                try {
+                    Thread.sleep(FRAME);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            mFinished = true;
+            join();
+        }
+    }
+
+    /**
+     * One surface buffer kept between frames, the dirty rect is widened to all of it.
+     */
+    private static final class FakeSurfaceHolder implements SurfaceHolder {
+        private AwtCanvas mCanvas;
+
+        BufferedImage getImage() {
+            return mCanvas.getImage();
+        }
+
+        @Override
+        public void addCallback(Callback callback) {
+        }
+
+        @Override
+        public void removeCallback(Callback callback) {
+        }
+
+        @Override
+        public void setFormat(int format) {
+        }
+
+        @Override
+        public Canvas lockCanvas() {
+            if (mCanvas == null) {
+                mCanvas = new AwtCanvas(SIZE, SIZE);
+            }
+            return mCanvas;
+        }
+
+        @Override
+        public Canvas lockCanvas(Rect dirty) {
+            dirty.set(0, 0, SIZE, SIZE);
+            return lockCanvas();
+        }
+
+        @Override
+        public void unlockCanvasAndPost(Canvas canvas) {
+        }
+
+        @Override
+        public Rect getSurfaceFrame() {
+            return new Rect(0, 0, SIZE, SIZE);
+        }
+    }
+
+    private static final class IgnoringCallback implements Drawable.Callback {
+        @Override
+        public void invalidateDrawable(Drawable who) {
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}
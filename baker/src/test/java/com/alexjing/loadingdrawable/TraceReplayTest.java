@@ -0,0 +1,219 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records traces of a drawable across request times, states, modes, dropped frames and
+ * pauses, and replays each through {@link TraceReplayer}: every replayed frame must match
+ * the recorded one, the completion must land on the frame the model says it should, and
+ * warm replays must not allocate per frame.
+ */
+public class TraceReplayTest {
+
+    private static final long BASE_TIME = 10000;
+    private static final int FPS = 60;
+    private static final long MAX_TIME = 10000;
+
+    private static final LoadingDrawable.LoadingState[] STATES = {
+            LoadingDrawable.LoadingState.SUCCESS, LoadingDrawable.LoadingState.ERROR};
+    private static final int[] MODES = {
+            LoadingDrawable.TRANSITION_ANIMATE, LoadingDrawable.TRANSITION_FINISH_NOW,
+            LoadingDrawable.TRANSITION_SKIP};
+
+    /**
+     * What a recording saw, to compare the replay with.
+     */
+    private static final class Recording {
+        byte[] mTrace;
+        int mFrames;
+        long mFinishTime = -1;
+    }
+
+    /**
+     * Runs a drawable at {@link #FPS}, dropping every {@code dropEvery}th frame, requests
+     * {@code state} {@code requestTime} ms after the start and, if {@code pause}, hides
+     * the drawable for 200 ms shortly before the request.
+     */
+    private static Recording record(long requestTime, LoadingDrawable.LoadingState state, int mode,
+                                    int dropEvery, boolean pause) {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        drawable.setBounds(0, 0, 48, 48);
+        final LoadingTraceRecorder recorder = new LoadingTraceRecorder();
+        final Recording recording = new Recording();
+
+        SystemClock.setUptimeMillis(BASE_TIME);
+        drawable.setTraceRecorder(recorder);
+        drawable.start();
+        final long pauseTime = requestTime - 100;
+        boolean requested = false;
+        boolean paused = false;
+        for (int i = 0; drawable.isRunning(); i++) {
+            final long time = Math.round(i * 1000.0 / FPS);
+            if (time > MAX_TIME) {
+                break;
+            }
+            if (pause && !paused && time >= pauseTime && pauseTime > 0) {
+                SystemClock.setUptimeMillis(BASE_TIME + pauseTime);
+                drawable.setVisible(false, false);
+                SystemClock.setUptimeMillis(BASE_TIME + pauseTime + 200);
+                drawable.setVisible(true, false);
+                paused = true;
+            }
+            if (!requested && time >= requestTime) {
+                SystemClock.setUptimeMillis(BASE_TIME + requestTime);
+                drawable.setLoadingState(state, mode);
+                requested = true;
+                if (!drawable.isRunning()) {
+                    break;
+                }
+            }
+            if (dropEvery > 0 && i % dropEvery == dropEvery - 1) {
+                continue;
+            }
+            SystemClock.setUptimeMillis(BASE_TIME + time);
+            drawable.onFrame(BASE_TIME + time);
+            recording.mFrames++;
+            if (recording.mFinishTime < 0 && drawable.getCurrentFrame().isFinished()) {
+                recording.mFinishTime = BASE_TIME + time;
+            }
+        }
+        drawable.stop();
+        assertFalse(recorder.isTruncated());
+        recording.mTrace = recorder.toByteArray();
+        return recording;
+    }
+
+    private static LoadingFrameModel modelOf(LoadingDrawable drawable) {
+        return ((LoadingDrawable.LoadingConstantState) drawable.getConstantState()).mModel;
+    }
+
+    @Test
+    public void replaysMatchRecordingsAcrossScenarios() {
+        final TraceReplayer replayer = new TraceReplayer();
+        LoadingDrawable drawable = null;
+        final LoadingFrameModel model = modelOf(new LoadingDrawable(new Context(1f)));
+        int scenarios = 0;
+        long frames = 0;
+        long allocated = 0;
+        for (long requestTime = 0; requestTime < 1600; requestTime += 10) {
+            for (LoadingDrawable.LoadingState state : STATES) {
+                for (int mode : MODES) {
+                    for (int variant = 0; variant < 2; variant++) {
+                        final boolean pause = variant == 1;
+                        final int dropEvery = (int) (requestTime / 10 % 4) * 2;
+                        final String scenario = state + " mode " + mode + " at " + requestTime
+                                + (pause ? " paused" : "") + " dropping every " + dropEvery;
+                        final Recording recording = record(requestTime, state, mode, dropEvery, pause);
+                        final LoadingTraceReader trace = new LoadingTraceReader(recording.mTrace);
+                        if (drawable == null) {
+                            drawable = TraceReplayer.newDrawable(trace, new Context(1f));
+                            // creates the glyph and grows the ticker once
+                            replayer.replay(trace, drawable);
+                        }
+                        final TraceReplayer.Result result = replayer.replay(trace, drawable);
+
+                        assertEquals(scenario + ": " + result, 0, result.getMismatchCount());
+                        assertEquals(scenario, recording.mFrames, result.getFrameCount());
+                        assertEquals(scenario, recording.mFinishTime, result.getFinishTime());
+                        frames += result.getFrameCount();
+                        allocated += result.getAllocatedBytes();
+                        if (mode == LoadingDrawable.TRANSITION_ANIMATE && !pause && requestTime > 0) {
+                            // the first frame at or after the finish time the model predicts
+                            final long finish = model.getFinishTime(requestTime);
+                            assertTrue(scenario, result.getFinishTime() - BASE_TIME >= finish);
+                            assertTrue(scenario, result.getFinishTime() - BASE_TIME < finish + 2 * 1000 / FPS + 1);
+                        }
+                        scenarios++;
+                    }
+                }
+            }
+        }
+        assertEquals(1920, scenarios);
+        // the JIT may allocate a few bytes now and then, a frame allocating anything would be far more
+        assertTrue(allocated + " bytes over " + frames + " frames", allocated < frames);
+    }
+
+    @Test
+    public void reportsTheFirstDivergingFrame() {
+        final Recording recording = record(700, LoadingDrawable.LoadingState.SUCCESS,
+                LoadingDrawable.TRANSITION_ANIMATE, 0, false);
+        final LoadingTraceReader original = new LoadingTraceReader(recording.mTrace);
+        // nudge the sweep of the 11th frame, the last four bytes before its color
+        int frame = 0;
+        int offset = -1;
+        int position = LoadingTraceRecorder.HEADER_SIZE;
+        while (original.next()) {
+            final int size = original.getTag() == LoadingTraceReader.TAG_FRAME ? 22
+                    : original.getTag() == LoadingTraceReader.TAG_STATE ? 6 : 5;
+            if (original.getTag() == LoadingTraceReader.TAG_FRAME && frame++ == 10) {
+                offset = position + 1 + 4 + 1 + 4 + 3;
+            }
+            position += size;
+        }
+        assertEquals(recording.mTrace.length, position);
+        recording.mTrace[offset] ^= 1;
+
+        final LoadingTraceReader trace = new LoadingTraceReader(recording.mTrace);
+        final TraceReplayer.Result result = new TraceReplayer()
+                .replay(trace, TraceReplayer.newDrawable(trace, new Context(1f)));
+        assertEquals(1, result.getMismatchCount());
+        assertEquals(10, result.getFirstMismatch());
+        assertEquals(recording.mFrames, result.getFrameCount());
+    }
+
+    @Test
+    public void traceSurvivesAStreamRoundTrip() throws IOException {
+        final Recording recording = record(300, LoadingDrawable.LoadingState.ERROR,
+                LoadingDrawable.TRANSITION_FINISH_NOW, 3, true);
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        final LoadingTraceRecorder recorder = new LoadingTraceRecorder();
+        drawable.setTraceRecorder(recorder);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(recording.mTrace);
+        final LoadingTraceReader trace = LoadingTraceReader.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(BASE_TIME, trace.getBaseTime());
+        assertEquals(modelOf(drawable).getDuration(), trace.getDuration());
+        assertEquals(drawable.getBorder(), trace.getBorder(), 0f);
+        final TraceReplayer.Result result = new TraceReplayer()
+                .replay(trace, TraceReplayer.newDrawable(trace, new Context(1f)));
+        assertEquals(0, result.getMismatchCount());
+        assertEquals(recording.mFrames, result.getFrameCount());
+    }
+
+    @Test
+    public void recorderDropsRecordsPastItsLimit() {
+        final LoadingDrawable drawable = new LoadingDrawable(new Context(1f));
+        final LoadingTraceRecorder recorder = new LoadingTraceRecorder(1024);
+        SystemClock.setUptimeMillis(0);
+        drawable.setTraceRecorder(recorder);
+        drawable.start();
+        for (int i = 0; i < 200; i++) {
+            SystemClock.setUptimeMillis(i * 16);
+            drawable.onFrame(i * 16);
+        }
+        drawable.stop();
+        assertTrue(recorder.isTruncated());
+        assertTrue(recorder.getSize() <= 1024);
+
+        final LoadingTraceReader trace = new LoadingTraceReader(recorder.toByteArray());
+        int frames = 0;
+        while (trace.next()) {
+            if (trace.getTag() == LoadingTraceReader.TAG_FRAME) {
+                frames++;
+            }
+        }
+        assertEquals((1024 - LoadingTraceRecorder.HEADER_SIZE - 5) / 22, frames);
+    }
+}
@@ -0,0 +1,39 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * One measured operation. {@link #setUp()} runs once before warmup and {@link #tearDown()}
+ * after measuring, {@link #run(int)} is the timed body and receives a running op counter
+ * to vary its input.
+ */
+abstract class Benchmark {
+
+    private final String mName;
+
+    Benchmark(String name) {
+        mName = name;
+    }
+
+    String getName() {
+        return mName;
+    }
+
+    void setUp() {
+    }
+
+    abstract void run(int op);
+
+    void tearDown() {
+    }
+
+    /**
+     * Canvas draw calls per op, or -1 if the benchmark does not draw.
+     */
+    double getDrawOpsPerRun() {
+        return -1;
+    }
+
+    /**
+     * Keeps results reachable so the JIT can't drop the work that produced them.
+     */
+    static volatile Object sSink;
+}
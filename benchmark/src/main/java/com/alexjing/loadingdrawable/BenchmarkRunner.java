@@ -0,0 +1,224 @@
+package com.alexjing.loadingdrawable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Runs {@link LoadingDrawableBenchmarks} and prints ns/op and bytes allocated per op.
+ * <p>
+ * With {@code --baseline <file>} each result is compared to the checked-in numbers and
+ * the process exits with status 1 if any benchmark got slower by more than
+ * {@link #TIME_TOLERANCE} and {@link #TIME_SLACK_NANOS}, or allocates more than
+ * {@link #ALLOCATION_TOLERANCE} extra bytes per op, or, for drawing benchmarks, issues more
+ * canvas draw calls per op. {@code --update-baseline} rewrites the file instead,
+ * {@code --filter <text>} only runs benchmarks whose name contains the text.
+ * <p>
+ * Every benchmark runs in its own JVM so the JIT profile of one does not skew the next.
+ */
+public final class BenchmarkRunner {
+
+    private static final int OPS_PER_ROUND = 20000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURE_ROUNDS = 15;
+
+    private static final double TIME_TOLERANCE = 0.50;
+    /**
+     * Ops on the fake canvas take tens of ns, where run-to-run jitter alone exceeds the
+     * relative tolerance.
+     */
+    private static final double TIME_SLACK_NANOS = 25;
+    private static final double ALLOCATION_TOLERANCE = 8;
+    private static final double DRAW_OPS_TOLERANCE = 0.05;
+
+    private static final String ARG_CHILD = "--child";
+    private static final String RESULT_PREFIX = "RESULT ";
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        File baselineFile = null;
+        boolean updateBaseline = false;
+        String filter = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i])) {
+                baselineFile = new File(args[++i]);
+            } else if ("--update-baseline".equals(args[i])) {
+                updateBaseline = true;
+            } else if ("--filter".equals(args[i])) {
+                filter = args[++i];
+            } else if (ARG_CHILD.equals(args[i])) {
+                runChild(args[++i]);
+                return;
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        final Properties baseline = new Properties();
+        if (baselineFile != null && baselineFile.exists() && !updateBaseline) {
+            final InputStream in = new FileInputStream(baselineFile);
+            try {
+                baseline.load(in);
+            } finally {
+                in.close();
+            }
+        }
+
+        final StringBuilder results = new StringBuilder("# LoadingDrawable benchmark baseline, see BenchmarkRunner\n");
+        int regressions = 0;
+        System.out.println(String.format(Locale.US, "%-20s %12s %12s %12s %12s %8s %8s",
+                "benchmark", "ns/op", "base ns/op", "bytes/op", "base bytes", "draws", "base"));
+        final List<Benchmark> benchmarks = LoadingDrawableBenchmarks.all();
+        for (Benchmark benchmark : benchmarks) {
+            if (filter != null && !benchmark.getName().contains(filter)) {
+                continue;
+            }
+            final Result result = fork(benchmark.getName());
+            results.append(benchmark.getName()).append(".ns=").append(format(result.mNanosPerOp)).append('\n');
+            results.append(benchmark.getName()).append(".bytes=").append(format(result.mBytesPerOp)).append('\n');
+            if (result.mDrawOpsPerOp >= 0) {
+                results.append(benchmark.getName()).append(".draws=").append(format(result.mDrawOpsPerOp)).append('\n');
+            }
+
+            final String baseNanos = baseline.getProperty(benchmark.getName() + ".ns");
+            final String baseBytes = baseline.getProperty(benchmark.getName() + ".bytes");
+            final String baseDraws = baseline.getProperty(benchmark.getName() + ".draws");
+            String verdict = "";
+            if (baseNanos != null && isSlower(result.mNanosPerOp, Double.parseDouble(baseNanos))) {
+                verdict += " SLOWER";
+            }
+            if (baseBytes != null && result.mBytesPerOp > Double.parseDouble(baseBytes) + ALLOCATION_TOLERANCE) {
+                verdict += " ALLOCATES MORE";
+            }
+            if (baseDraws != null && result.mDrawOpsPerOp > Double.parseDouble(baseDraws) + DRAW_OPS_TOLERANCE) {
+                verdict += " DRAWS MORE";
+            }
+            if (verdict.length() > 0) {
+                regressions++;
+            }
+            System.out.println(String.format(Locale.US, "%-20s %12.1f %12s %12.1f %12s %8s %8s%s",
+                    benchmark.getName(), result.mNanosPerOp, baseNanos != null ? baseNanos : "-",
+                    result.mBytesPerOp, baseBytes != null ? baseBytes : "-",
+                    result.mDrawOpsPerOp >= 0 ? format(result.mDrawOpsPerOp) : "-",
+                    baseDraws != null ? baseDraws : "-", verdict));
+        }
+
+        if (updateBaseline && baselineFile != null) {
+            final OutputStream out = new FileOutputStream(baselineFile);
+            try {
+                out.write(results.toString().getBytes("ISO-8859-1"));
+            } finally {
+                out.close();
+            }
+            System.out.println("Baseline written to " + baselineFile);
+        } else if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed against the baseline");
+            System.exit(1);
+        }
+    }
+
+    private static boolean isSlower(double nanos, double baseNanos) {
+        return nanos > baseNanos * (1 + TIME_TOLERANCE) && nanos > baseNanos + TIME_SLACK_NANOS;
+    }
+
+    private static void runChild(String name) {
+        for (Benchmark benchmark : LoadingDrawableBenchmarks.all()) {
+            if (benchmark.getName().equals(name)) {
+                final Result result = new BenchmarkRunner().measure(benchmark);
+                System.out.println(RESULT_PREFIX + result.mNanosPerOp + " " + result.mBytesPerOp
+                        + " " + result.mDrawOpsPerOp);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark: " + name);
+    }
+
+    private static Result fork(String name) throws IOException {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                BenchmarkRunner.class.getName(), ARG_CHILD, name).redirectErrorStream(true).start();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        Result result = null;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    final String[] values = line.substring(RESULT_PREFIX.length()).split(" ");
+                    result = new Result(Double.parseDouble(values[0]), Double.parseDouble(values[1]),
+                            Double.parseDouble(values[2]));
+                } else {
+                    System.out.println(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (result == null) {
+            throw new IllegalStateException("Benchmark " + name + " produced no result");
+        }
+        return result;
+    }
+
+    Result measure(Benchmark benchmark) {
+        benchmark.setUp();
+        int op = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < OPS_PER_ROUND; i++) {
+                benchmark.run(op++);
+            }
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final double[] nanos = new double[MEASURE_ROUNDS];
+        long allocated = 0;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            final long bytesBefore = mThreadBean.getThreadAllocatedBytes(threadId);
+            final long start = System.nanoTime();
+            for (int i = 0; i < OPS_PER_ROUND; i++) {
+                benchmark.run(op++);
+            }
+            final long elapsed = System.nanoTime() - start;
+            allocated += mThreadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+            nanos[round] = elapsed / (double) OPS_PER_ROUND;
+        }
+        final double drawOps = benchmark.getDrawOpsPerRun();
+        benchmark.tearDown();
+
+        // the fastest round is the least disturbed by GC and other processes
+        Arrays.sort(nanos);
+        return new Result(nanos[0], allocated / (double) (MEASURE_ROUNDS * OPS_PER_ROUND), drawOps);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.1f", value);
+    }
+
+    static final class Result {
+        final double mNanosPerOp;
+        final double mBytesPerOp;
+        final double mDrawOpsPerOp;
+
+        Result(double nanosPerOp, double bytesPerOp, double drawOpsPerOp) {
+            mNanosPerOp = nanosPerOp;
+            mBytesPerOp = bytesPerOp;
+            mDrawOpsPerOp = drawOpsPerOp;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Stands in for the host view and counts invalidation requests.
+ */
+class CountingCallback implements Drawable.Callback {
+
+    private int mInvalidations;
+
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        mInvalidations++;
+    }
+
+    @Override
+    public void scheduleDrawable(Drawable who, Runnable what, long when) {
+    }
+
+    @Override
+    public void unscheduleDrawable(Drawable who, Runnable what) {
+    }
+
+    int getInvalidations() {
+        return mInvalidations;
+    }
+
+    void reset() {
+        mInvalidations = 0;
+    }
+}
@@ -0,0 +1,367 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The hot paths of {@link LoadingDrawable}: construction, bounds changes, per-frame
+ * state updates in every phase, drawing, and the shared ticker, and of
+ * {@link LoadingBatchDrawable} hosting as many spinners.
+ */
+final class LoadingDrawableBenchmarks {
+
+    static final int SIZE = 300;
+    static final long FRAME = 16;
+
+    private static final long START = 1000;
+
+    private LoadingDrawableBenchmarks() {
+    }
+
+    static List<Benchmark> all() {
+        final Context context = new Context(3f);
+        final List<Benchmark> benchmarks = new ArrayList<>();
+
+        // nothing allocated while constructing is temporary, bytes/op is the retained size
+        benchmarks.add(new Benchmark("construct") {
+            @Override
+            void run(int op) {
+                sSink = new LoadingDrawable(context);
+            }
+        });
+
+        benchmarks.add(new Benchmark("construct.shared") {
+            private final LoadingDrawable mTemplate = new LoadingDrawable(context);
+
+            @Override
+            void run(int op) {
+                sSink = mTemplate.getConstantState().newDrawable();
+            }
+        });
+
+        benchmarks.add(new Benchmark("bind.pooled") {
+            private final LoadingDrawablePool mPool = new LoadingDrawablePool(new LoadingDrawable(context), 4);
+            private final CountingCallback mCallback = new CountingCallback();
+
+            @Override
+            void run(int op) {
+                // one list row binding a spinner and giving it back when scrolled off
+                final LoadingDrawable drawable = mPool.obtain();
+                drawable.setCallback(mCallback);
+                drawable.setBounds(0, 0, SIZE, SIZE);
+                drawable.start();
+                mPool.release(drawable);
+            }
+        });
+
+        benchmarks.add(new Benchmark("boundsChange") {
+            private LoadingDrawable mDrawable;
+
+            @Override
+            void setUp() {
+                mDrawable = newDrawable(context);
+            }
+
+            @Override
+            void run(int op) {
+                final int size = (op & 1) == 0 ? SIZE : SIZE + 1;
+                mDrawable.setBounds(0, 0, size, size);
+            }
+        });
+
+        benchmarks.add(new Benchmark("boundsChange.glyph") {
+            private LoadingDrawable mDrawable;
+
+            @Override
+            void setUp() {
+                mDrawable = newDrawable(context);
+                mDrawable.updateSuccess(1f);
+            }
+
+            @Override
+            void run(int op) {
+                final int size = (op & 1) == 0 ? SIZE : SIZE + 1;
+                mDrawable.setBounds(0, 0, size, size);
+            }
+        });
+
+        benchmarks.add(new FrameBenchmark("frame.loading", context, null, 0, 4000));
+        benchmarks.add(new FrameBenchmark("frame.complete", context, LoadingDrawable.LoadingState.SUCCESS, 800, 800));
+        benchmarks.add(new FrameBenchmark("frame.error", context, LoadingDrawable.LoadingState.ERROR, 1600, 400));
+        benchmarks.add(new FrameBenchmark("frame.success", context, LoadingDrawable.LoadingState.SUCCESS, 1600, 400));
+
+        benchmarks.add(new ProgressBenchmark("frame.progress", context));
+        benchmarks.add(new Benchmark("progress.set") {
+            private final LoadingDrawable mDrawable = newDrawable(context);
+
+            @Override
+            void run(int op) {
+                mDrawable.setProgress((op & 1023) / 1024f);
+            }
+        });
+
+        benchmarks.add(new DrawBenchmark("draw.loading", context, null, 0, 4000, false));
+        benchmarks.add(new DrawBenchmark("draw.error", context, LoadingDrawable.LoadingState.ERROR, 1600, 400, false));
+        benchmarks.add(new DrawBenchmark("draw.success", context, LoadingDrawable.LoadingState.SUCCESS, 1600, 400, false));
+        benchmarks.add(new DrawBenchmark("draw.cached", context, null, 0, 4000, true));
+
+        benchmarks.add(new TickerBenchmark("ticker.100", context, 100, FrameRatePolicy.FULL, false));
+        benchmarks.add(new TickerBenchmark("ticker.100.capped30", context, 100, FrameRatePolicy.capped(30), false));
+        benchmarks.add(new TickerBenchmark("ticker.100.synced", context, 100, FrameRatePolicy.FULL, true));
+
+        benchmarks.add(new BatchBenchmark("batch.100", context, 100, false));
+        benchmarks.add(new BatchBenchmark("batch.100.draw", context, 100, true));
+        return benchmarks;
+    }
+
+    /**
+     * Drawables only hold their callback weakly, keep ours alive like a view would.
+     */
+    private static final List<CountingCallback> sCallbacks = new ArrayList<>();
+
+    static LoadingDrawable newDrawable(Context context) {
+        final LoadingDrawable drawable = new LoadingDrawable(context);
+        drawable.setBounds(0, 0, SIZE, SIZE);
+        final CountingCallback callback = new CountingCallback();
+        sCallbacks.add(callback);
+        drawable.setCallback(callback);
+        return drawable;
+    }
+
+    /**
+     * Starts a drawable and, if {@code state} is set, requests it right away, so the
+     * completion sweep runs over elapsed [800, 1600) and the glyph over [1600, 2000).
+     */
+    static LoadingDrawable startedDrawable(Context context, LoadingDrawable.LoadingState state) {
+        final LoadingDrawable drawable = newDrawable(context);
+        SystemClock.setUptimeMillis(START);
+        drawable.start();
+        drawable.onFrame(START);
+        if (state != null) {
+            drawable.setLoadingState(state);
+        }
+        return drawable;
+    }
+
+    /**
+     * Evaluates frames inside the window [offset, offset + window) of elapsed time.
+     */
+    static class FrameBenchmark extends Benchmark {
+        private final Context mContext;
+        private final LoadingDrawable.LoadingState mState;
+        private final long mOffset;
+        private final long mWindow;
+        LoadingDrawable mDrawable;
+
+        FrameBenchmark(String name, Context context, LoadingDrawable.LoadingState state, long offset, long window) {
+            super(name);
+            mContext = context;
+            mState = state;
+            mOffset = offset;
+            mWindow = window;
+        }
+
+        @Override
+        void setUp() {
+            mDrawable = startedDrawable(mContext, mState);
+        }
+
+        long frameTime(int op) {
+            return START + mOffset + (op * FRAME) % mWindow;
+        }
+
+        @Override
+        void run(int op) {
+            mDrawable.onFrame(frameTime(op));
+        }
+
+        @Override
+        void tearDown() {
+            mDrawable.stop();
+        }
+    }
+
+    /**
+     * A determinate drawable whose progress moves on every frame.
+     */
+    static class ProgressBenchmark extends Benchmark {
+        private final Context mContext;
+        private LoadingDrawable mDrawable;
+
+        ProgressBenchmark(String name, Context context) {
+            super(name);
+            mContext = context;
+        }
+
+        @Override
+        void setUp() {
+            mDrawable = newDrawable(mContext);
+            mDrawable.setDeterminate(true);
+            SystemClock.setUptimeMillis(START);
+            mDrawable.start();
+        }
+
+        @Override
+        void run(int op) {
+            mDrawable.setProgress((op & 1023) / 1024f);
+            mDrawable.onFrame(START + op * FRAME);
+        }
+
+        @Override
+        void tearDown() {
+            mDrawable.stop();
+        }
+    }
+
+    static class DrawBenchmark extends FrameBenchmark {
+        private final boolean mCached;
+        private final Canvas mCanvas = new Canvas();
+        private long mRuns;
+
+        DrawBenchmark(String name, Context context, LoadingDrawable.LoadingState state, long offset, long window,
+                      boolean cached) {
+            super(name, context, state, offset, window);
+            mCached = cached;
+        }
+
+        @Override
+        void setUp() {
+            super.setUp();
+            if (mCached) {
+                // the atlas of a SIZE spinner exceeds the default budget, which draws directly
+                LoadingAtlasCache.setMaxBytes((int) LoadingFrameAtlas.getByteCount(SIZE, SIZE));
+            }
+            mDrawable.setCachedRendering(mCached);
+        }
+
+        @Override
+        void tearDown() {
+            super.tearDown();
+            LoadingAtlasCache.setMaxBytes(LoadingAtlasCache.DEFAULT_MAX_BYTES);
+        }
+
+        @Override
+        void run(int op) {
+            if ((op & 63) == 0) {
+                // keep the frame moving, the update is amortized over 64 draws
+                mDrawable.onFrame(frameTime(op >> 6));
+            }
+            mDrawable.draw(mCanvas);
+            mRuns++;
+        }
+
+        @Override
+        double getDrawOpsPerRun() {
+            return mCanvas.getDrawOpCount() / (double) mRuns;
+        }
+    }
+
+    /**
+     * One shared ticker frame driving {@code count} running drawables.
+     */
+    static class TickerBenchmark extends Benchmark {
+        private final Context mContext;
+        private final int mCount;
+        private final FrameRatePolicy mPolicy;
+        private final boolean mSynchronized;
+        private final List<LoadingDrawable> mDrawables = new ArrayList<>();
+        private long mTime = START;
+
+        TickerBenchmark(String name, Context context, int count, FrameRatePolicy policy, boolean synchronize) {
+            super(name);
+            mContext = context;
+            mCount = count;
+            mPolicy = policy;
+            mSynchronized = synchronize;
+        }
+
+        @Override
+        void setUp() {
+            for (int i = 0; i < mCount; i++) {
+                final LoadingDrawable drawable = newDrawable(mContext);
+                drawable.setFrameRatePolicy(mPolicy);
+                drawable.setSynchronized(mSynchronized);
+                drawable.start();
+                mDrawables.add(drawable);
+            }
+        }
+
+        @Override
+        void run(int op) {
+            mTime += FRAME;
+            Choreographer.getInstance().doFrame(mTime);
+        }
+
+        @Override
+        void tearDown() {
+            for (LoadingDrawable drawable : mDrawables) {
+                drawable.stop();
+            }
+        }
+    }
+
+    /**
+     * One shared ticker frame driving a batch of {@code count} spinning slots, and the
+     * draw of all of them if {@code draw} is set.
+     */
+    static class BatchBenchmark extends Benchmark {
+        private static final int COLUMNS = 10;
+
+        private final Context mContext;
+        private final int mCount;
+        private final boolean mDraw;
+        private final Canvas mCanvas = new Canvas();
+        private LoadingBatchDrawable mBatch;
+        private long mTime = START;
+        private long mRuns;
+
+        BatchBenchmark(String name, Context context, int count, boolean draw) {
+            super(name);
+            mContext = context;
+            mCount = count;
+            mDraw = draw;
+        }
+
+        @Override
+        void setUp() {
+            final int slotSize = SIZE / COLUMNS;
+            mBatch = new LoadingBatchDrawable(mContext, slotSize);
+            mBatch.setBounds(0, 0, SIZE, slotSize * ((mCount + COLUMNS - 1) / COLUMNS));
+            final CountingCallback callback = new CountingCallback();
+            sCallbacks.add(callback);
+            mBatch.setCallback(callback);
+            mBatch.setSlotCount(mCount);
+            SystemClock.setUptimeMillis(mTime);
+            for (int i = 0; i < mCount; i++) {
+                mBatch.setSlotPosition(i, (i % COLUMNS) * slotSize, (i / COLUMNS) * slotSize);
+                mBatch.setSlotState(i, LoadingDrawable.LoadingState.LOADING);
+            }
+        }
+
+        @Override
+        void run(int op) {
+            mTime += FRAME;
+            Choreographer.getInstance().doFrame(mTime);
+            if (mDraw) {
+                mBatch.draw(mCanvas);
+                mRuns++;
+            }
+        }
+
+        @Override
+        double getDrawOpsPerRun() {
+            return mDraw ? mCanvas.getDrawOpCount() / (double) mRuns : -1;
+        }
+
+        @Override
+        void tearDown() {
+            // the batch leaves the ticker on its next frame
+            mBatch.setSlotCount(0);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.alexjing.loadingdrawable;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+/**
+ * Fails if a success or error glyph frame allocates on the calling thread.
+ */
+public class LoadingDrawableAllocationTest extends AndroidTestCase {
+
+    private static final int FRAMES = 200;
+
+    private LoadingDrawable mDrawable;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDrawable = new LoadingDrawable(getContext());
+        mDrawable.setBounds(0, 0, 300, 300);
+        // warm up so class loading and lazy native init are not counted
+        runSuccessFrames();
+        runErrorFrames();
+    }
+
+    public void testSuccessFramesDoNotAllocate() {
+        assertEquals(0, countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                runSuccessFrames();
+            }
+        }));
+    }
+
+    public void testErrorFramesDoNotAllocate() {
+        assertEquals(0, countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                runErrorFrames();
+            }
+        }));
+    }
+
+    private void runSuccessFrames() {
+        for (int i = 0; i <= FRAMES; i++) {
+            // overshoot goes past 1, cover that range too
+            mDrawable.updateSuccess(i * 1.2f / FRAMES);
+        }
+    }
+
+    private void runErrorFrames() {
+        for (int i = 0; i <= FRAMES; i++) {
+            mDrawable.updateError(i * 1.2f / FRAMES);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(Runnable frames) {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        frames.run();
+        final int count = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        return count;
+    }
+}
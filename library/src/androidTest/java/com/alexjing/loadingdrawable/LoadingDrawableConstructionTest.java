@@ -0,0 +1,90 @@
+package com.alexjing.loadingdrawable;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+/**
+ * Keeps construction cheap for screens that inflate many spinners: glyph resources must
+ * only be created once a drawable shows its first glyph frame. Construction time is
+ * tracked by the {@code construct} benchmarks.
+ */
+public class LoadingDrawableConstructionTest extends AndroidTestCase {
+
+    /**
+     * Drawable, constant state, frame model, paint, bounds rect and the two frames, with
+     * room for what the framework {@code Drawable} and {@code Paint} allocate themselves.
+     */
+    private static final int CONSTRUCTION_ALLOCATION_BUDGET = 16;
+
+    private LoadingDrawable mTemplate;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // warm up so class loading is not counted
+        mTemplate = new LoadingDrawable(getContext());
+        mTemplate.setBounds(0, 0, 300, 300);
+        mTemplate.updateSuccess(1f);
+    }
+
+    public void testConstructionStaysWithinBudget() {
+        final int count = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                new LoadingDrawable(getContext());
+            }
+        });
+        assertTrue("construction allocated " + count + " objects", count <= CONSTRUCTION_ALLOCATION_BUDGET);
+    }
+
+    public void testSharedStateConstructionAllocatesLess() {
+        final int own = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                new LoadingDrawable(getContext());
+            }
+        });
+        final int shared = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mTemplate.getConstantState().newDrawable();
+            }
+        });
+        assertTrue(shared < own);
+    }
+
+    public void testGlyphResourcesAreCreatedOnFirstGlyphFrame() {
+        final LoadingDrawable drawable = new LoadingDrawable(getContext());
+        // the framework allocates the bounds rect on the first call
+        drawable.setBounds(0, 0, 100, 100);
+        assertEquals(0, countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                drawable.setBounds(0, 0, 200, 200);
+            }
+        }));
+        assertTrue(countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                drawable.updateSuccess(0.5f);
+            }
+        }) > 0);
+        assertEquals(0, countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                drawable.updateError(0.5f);
+                drawable.setBounds(0, 0, 300, 300);
+            }
+        }));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(Runnable work) {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        work.run();
+        final int count = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        return count;
+    }
+}
@@ -0,0 +1,149 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.test.AndroidTestCase;
+
+public class LoadingDrawablePoolTest extends AndroidTestCase {
+
+    private LoadingDrawable mTemplate;
+    private LoadingDrawablePool mPool;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mTemplate = new LoadingDrawable(getContext());
+        mPool = new LoadingDrawablePool(mTemplate, 2);
+    }
+
+    public void testNewDrawableSharesState() {
+        final Drawable drawable = mTemplate.getConstantState().newDrawable();
+        assertTrue(drawable instanceof LoadingDrawable);
+        assertSame(mTemplate.getConstantState(), drawable.getConstantState());
+    }
+
+    public void testMutateDetachesState() {
+        final LoadingDrawable drawable = mPool.obtain();
+        assertSame(drawable, drawable.mutate());
+        drawable.setBorder(mTemplate.getBorder() * 2);
+        assertNotSame(mTemplate.getConstantState(), drawable.getConstantState());
+        assertEquals(mTemplate.getBorder() * 2, drawable.getBorder(), 0f);
+        assertFalse(mPool.release(drawable));
+    }
+
+    public void testSettersDetachState() {
+        final LoadingDrawable drawable = mPool.obtain();
+        final LoadingDrawable sibling = mPool.obtain();
+        final float border = mTemplate.getBorder();
+        drawable.setBorder(border * 2);
+        drawable.setMinSweepAngle(drawable.getMinSweepAngle() / 2);
+        assertNotSame(sibling.getConstantState(), drawable.getConstantState());
+        assertEquals(border, sibling.getBorder(), 0f);
+        assertEquals(border, mTemplate.getBorder(), 0f);
+        assertEquals(mTemplate.getMinSweepAngle(), sibling.getMinSweepAngle(), 0f);
+    }
+
+    public void testRecycledDrawableDrawsNothingBeforeStart() {
+        final LoadingDrawable drawable = mPool.obtain();
+        drawable.setBounds(0, 0, 100, 100);
+        drawable.start();
+        drawable.onFrame(1000);
+        drawable.onFrame(1300);
+        RecordingCanvas canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        assertTrue(canvas.mSweep != 0f);
+        assertTrue(mPool.release(drawable));
+
+        assertSame(drawable, mPool.obtain());
+        canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        assertEquals(0f, canvas.mSweep, 0f);
+        assertEquals(0, canvas.mLineCoords);
+    }
+
+    public void testReleasedDrawableIsReused() {
+        final LoadingDrawable drawable = mPool.obtain();
+        drawable.start();
+        drawable.setLoadingState(LoadingDrawable.LoadingState.SUCCESS);
+        assertTrue(mPool.release(drawable));
+        assertFalse(drawable.isRunning());
+        assertNull(drawable.getCallback());
+
+        assertSame(drawable, mPool.obtain());
+        assertEquals(LoadingDrawable.LoadingState.LOADING, drawable.getLoadingState());
+        assertEquals(0, mPool.getSize());
+    }
+
+    public void testReleaseResetsSettings() {
+        final LoadingDrawable drawable = mPool.obtain();
+        drawable.setMetricsListener(new LoadingMetrics.Listener() {
+            @Override
+            public void onMetrics(LoadingDrawable d, LoadingMetrics metrics) {
+                fail("listener of the previous row called");
+            }
+        });
+        drawable.setCachedRendering(true);
+        drawable.setFrameRatePolicy(FrameRatePolicy.capped(30));
+        drawable.setRenderThreadAnimationEnabled(true);
+        drawable.setQualityController(new LoadingQualityController());
+        drawable.setTraceRecorder(new LoadingTraceRecorder());
+        drawable.setSynchronized(true);
+        drawable.setDeterminate(true);
+        drawable.setProgress(0.5f);
+        drawable.setOnLoadingStateChangeListener(new LoadingDrawable.OnLoadingStateChangeListener() {
+            @Override
+            public void onLoadingStateChanged(LoadingDrawable d, LoadingDrawable.LoadingState previous,
+                                              LoadingDrawable.LoadingState state, int mode) {
+                fail("listener of the previous row called");
+            }
+        });
+        assertTrue(mPool.release(drawable));
+
+        assertSame(drawable, mPool.obtain());
+        assertNull(drawable.getMetrics());
+        assertFalse(drawable.isCachedRendering());
+        assertSame(FrameRatePolicy.FULL, drawable.getFrameRatePolicy());
+        assertFalse(drawable.isRenderThreadAnimationEnabled());
+        assertNull(drawable.getQualityController());
+        assertNull(drawable.getTraceRecorder());
+        assertFalse(drawable.isSynchronized());
+        assertFalse(drawable.isDeterminate());
+        assertEquals(0f, drawable.getProgress(), 0f);
+        assertNull(drawable.getOnLoadingStateChangeListener());
+        drawable.start();
+        drawable.stop();
+    }
+
+    public void testPoolIsBounded() {
+        final LoadingDrawable first = mPool.obtain();
+        final LoadingDrawable second = mPool.obtain();
+        final LoadingDrawable third = mPool.obtain();
+        assertTrue(mPool.release(first));
+        assertTrue(mPool.release(second));
+        assertFalse(mPool.release(third));
+        assertEquals(2, mPool.getSize());
+
+        mPool.clear();
+        assertEquals(0, mPool.getSize());
+    }
+
+    /**
+     * Keeps what the drawable strokes instead of drawing it.
+     */
+    private static final class RecordingCanvas extends Canvas {
+        float mSweep;
+        int mLineCoords;
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+            mSweep = sweepAngle;
+        }
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+            mLineCoords += count;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.alexjing.loadingdrawable;
+
+import android.test.AndroidTestCase;
+
+public class LoadingGlyphGeometryTest extends AndroidTestCase {
+
+    public void testSameSizeSharesGeometry() {
+        final LoadingGlyphGeometry geometry = LoadingGlyphGeometry.obtain(300, 300, 12f);
+        assertSame(geometry, LoadingGlyphGeometry.obtain(300, 300, 12f));
+        assertNotSame(geometry, LoadingGlyphGeometry.obtain(300, 300, 8f));
+        assertNotSame(geometry, LoadingGlyphGeometry.obtain(300, 200, 12f));
+    }
+
+    public void testGeometryIsCenteredInsideBorder() {
+        final LoadingGlyphGeometry geometry = LoadingGlyphGeometry.obtain(200, 100, 10f);
+        assertEquals(100.25f, geometry.mCenterX, 0f);
+        assertEquals(50.25f, geometry.mCenterY, 0f);
+        // arms are 5/12 of the shorter half side
+        assertEquals((100 - 10.5f) / 2f * 5f / 12, geometry.mOffset, 1e-4f);
+        assertTrue(geometry.mStartX < geometry.mInflectionX);
+        assertTrue(geometry.mInflectionX < geometry.mStopX);
+    }
+}
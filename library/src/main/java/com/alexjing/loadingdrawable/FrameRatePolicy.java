@@ -0,0 +1,103 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+
+/**
+ * How often a {@link LoadingDrawable} advances its animation.
+ * <p>
+ * A reduced rate does not skip frames at random: the animation time is snapped to a
+ * fixed grid of the frame interval, so every shown frame is evenly spaced and frames in
+ * between evaluate to the same picture and cause no invalidation. Intervals are kept in
+ * nanoseconds, so rates that do not divide a second, like 24 fps, keep their average
+ * spacing instead of running fast on a rounded-down millisecond grid.
+ */
+public final class FrameRatePolicy {
+
+    public static final FrameRatePolicy FULL = new FrameRatePolicy(0, 0, Integer.MAX_VALUE);
+
+    public static final int DEFAULT_REDUCED_FPS = 30;
+    public static final int DEFAULT_CROWD_THRESHOLD = 20;
+
+    private static final long POWER_SAVE_CHECK_INTERVAL = 1000;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static long sPowerSaveCheckTime = -1;
+    private static boolean sPowerSaveMode;
+
+    private final long mInterval;
+    private final long mReducedInterval;
+    private final int mCrowdThreshold;
+
+    private FrameRatePolicy(long interval, long reducedInterval, int crowdThreshold) {
+        mInterval = interval;
+        mReducedInterval = reducedInterval;
+        mCrowdThreshold = crowdThreshold;
+    }
+
+    /**
+     * Never advances more than {@code fps} times per second.
+     */
+    public static FrameRatePolicy capped(int fps) {
+        final long interval = intervalFor(fps);
+        return new FrameRatePolicy(interval, interval, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Full rate, dropping to {@code reducedFps} while at least {@code crowdThreshold}
+     * drawables are animating or battery saver is on.
+     */
+    public static FrameRatePolicy adaptive(int reducedFps, int crowdThreshold) {
+        return new FrameRatePolicy(0, intervalFor(reducedFps), crowdThreshold);
+    }
+
+    public static FrameRatePolicy adaptive() {
+        return adaptive(DEFAULT_REDUCED_FPS, DEFAULT_CROWD_THRESHOLD);
+    }
+
+    static long intervalFor(int fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("fps must be positive: " + fps);
+        }
+        return 1000L * NANOS_PER_MILLI / fps;
+    }
+
+    /**
+     * Snaps {@code elapsed} ms down to the start of its frame on the {@code interval} ns
+     * grid, rounded up to the first whole ms of that frame so the grid never drifts.
+     */
+    static long snap(long elapsed, long interval) {
+        final long frame = elapsed * NANOS_PER_MILLI / interval;
+        return (frame * interval + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Interval in ns the animation time is snapped to, 0 to use every frame.
+     */
+    long getFrameInterval(Context context, long now) {
+        if (mInterval == mReducedInterval) {
+            return mInterval;
+        }
+        if (LoadingDrawable.getActiveInstanceCount() >= mCrowdThreshold || isPowerSaveMode(context, now)) {
+            return mReducedInterval;
+        }
+        return mInterval;
+    }
+
+    /**
+     * Battery saver state, re-read at most once per {@link #POWER_SAVE_CHECK_INTERVAL} as
+     * it is a system service call.
+     */
+    private static boolean isPowerSaveMode(Context context, long now) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        if (sPowerSaveCheckTime < 0 || now - sPowerSaveCheckTime >= POWER_SAVE_CHECK_INTERVAL) {
+            sPowerSaveCheckTime = now;
+            final PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            sPowerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+        }
+        return sPowerSaveMode;
+    }
+}
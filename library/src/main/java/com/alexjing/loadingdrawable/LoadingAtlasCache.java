@@ -0,0 +1,69 @@
+package com.alexjing.loadingdrawable;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide LRU of {@link LoadingFrameAtlas}es, bounded by bitmap bytes, used by
+ * drawables in cached rendering mode. Drawables with the same size and border share
+ * one atlas regardless of their colors. Drawables whose atlas alone would exceed the
+ * budget, about 200px square with the default one, draw directly instead.
+ */
+public final class LoadingAtlasCache {
+
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static AtlasLruCache sCache = new AtlasLruCache(DEFAULT_MAX_BYTES);
+
+    private LoadingAtlasCache() {
+    }
+
+    /**
+     * Sets the byte budget and drops every cached atlas. Drawables keep using the atlas
+     * they already hold until their bounds change.
+     */
+    public static synchronized void setMaxBytes(int maxBytes) {
+        sCache.evictAll();
+        sCache = new AtlasLruCache(maxBytes);
+    }
+
+    public static synchronized int getMaxBytes() {
+        return sCache.maxSize();
+    }
+
+    public static synchronized int getSizeBytes() {
+        return sCache.size();
+    }
+
+    public static synchronized void clear() {
+        sCache.evictAll();
+    }
+
+    /**
+     * The shared atlas for the given size and border, null if it does not fit the budget.
+     */
+    static synchronized LoadingFrameAtlas obtain(int width, int height, float border) {
+        if (LoadingFrameAtlas.getByteCount(width, height) > sCache.maxSize()) {
+            // evicted as soon as it is put, every drawable would render its own
+            return null;
+        }
+        final LoadingFrameAtlas.Key key = new LoadingFrameAtlas.Key(width, height, border);
+        LoadingFrameAtlas atlas = sCache.get(key);
+        if (atlas == null) {
+            atlas = new LoadingFrameAtlas(key);
+            sCache.put(key, atlas);
+        }
+        return atlas;
+    }
+
+    private static final class AtlasLruCache extends LruCache<LoadingFrameAtlas.Key, LoadingFrameAtlas> {
+
+        AtlasLruCache(int maxBytes) {
+            super(maxBytes);
+        }
+
+        @Override
+        protected int sizeOf(LoadingFrameAtlas.Key key, LoadingFrameAtlas value) {
+            return value.getByteCount();
+        }
+    }
+}
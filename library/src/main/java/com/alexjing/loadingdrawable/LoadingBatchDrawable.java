@@ -0,0 +1,485 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.view.animation.AnimationUtils;
+
+import java.util.Arrays;
+
+/**
+ * Many spinners in one drawable, for screens like grids that would otherwise give every
+ * cell its own {@link LoadingDrawable}.
+ * <p>
+ * Each spinner is a slot addressed by index, with its own position, state, timeline and
+ * color. Slots are kept in parallel arrays rather than one object each, share one size
+ * and the configuration of a template {@link LoadingDrawable}, are advanced together
+ * from one {@link LoadingTicker} callback and drawn in a single {@link #draw} pass with
+ * one {@link Paint}. N spinners cost one invalidation and one draw per frame instead of
+ * N of each.
+ * <p>
+ * A slot is empty and draws nothing until its state is set. States are requested as on
+ * a running {@link LoadingDrawable}: SUCCESS and ERROR close the spinner and then hold
+ * the glyph. An empty or finished slot starts spinning on LOADING and shows the glyph at
+ * once on SUCCESS or ERROR, so an adapter rebinding a cell to another item clears its
+ * slot first. The drawable stays off the ticker while no slot is animating.
+ * <p>
+ * Must only be used from the main thread.
+ */
+public class LoadingBatchDrawable extends Drawable {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SLOT_EMPTY = -1;
+
+    private final LoadingFrameModel mModel;
+    private final float mBorder;
+    private final int mSlotSize;
+
+    private final Paint mPaint;
+    /**
+     * The arc of a slot at the origin, offset into {@link #mArcRect} for each slot drawn.
+     */
+    private final RectF mOval = new RectF();
+    private final RectF mArcRect = new RectF();
+    private final LoadingFrame mFrame = new LoadingFrame();
+    private LoadingGlyph mGlyph;
+
+    private int mSlotCount;
+    private int[] mSlotLeft = new int[INITIAL_CAPACITY];
+    private int[] mSlotTop = new int[INITIAL_CAPACITY];
+    /**
+     * Requested {@code LoadingFrameModel.STATE_*} of each slot, {@link #SLOT_EMPTY} if none.
+     */
+    private int[] mSlotState = new int[INITIAL_CAPACITY];
+    private long[] mSlotStartTime = new long[INITIAL_CAPACITY];
+    private long[] mSlotTransitionTime = new long[INITIAL_CAPACITY];
+    /**
+     * Sweep a {@link LoadingDrawable#TRANSITION_FINISH_NOW} request closes from, NaN otherwise.
+     */
+    private float[] mSlotFromSweep = new float[INITIAL_CAPACITY];
+
+    // the frame each slot shows
+    private int[] mSlotPhase = new int[INITIAL_CAPACITY];
+    private float[] mSlotRotation = new float[INITIAL_CAPACITY];
+    private float[] mSlotSweep = new float[INITIAL_CAPACITY];
+    private int[] mSlotColor = new int[INITIAL_CAPACITY];
+    private float[] mSlotGlyphProgress = new float[INITIAL_CAPACITY];
+
+    /**
+     * Index in the {@link LoadingTicker}'s batch array, -1 when not registered.
+     */
+    int mTickerIndex = -1;
+    private boolean mPaused;
+    private long mPauseTime;
+
+    /**
+     * Union of the cells the last frame changed, see {@link #getDirtyBounds()}.
+     */
+    private final Rect mDirtyBounds = new Rect();
+    private boolean mDirtyBoundsValid;
+
+    /**
+     * Slots of {@code slotSize} pixels configured like a default {@link LoadingDrawable}.
+     */
+    public LoadingBatchDrawable(Context context, int slotSize) {
+        this(new LoadingDrawable(context), slotSize);
+    }
+
+    /**
+     * Slots of {@code slotSize} pixels with the border, sweep range, colors and duration
+     * of {@code template}. Later changes to the template do not apply.
+     */
+    public LoadingBatchDrawable(LoadingDrawable template, int slotSize) {
+        if (slotSize <= 0) {
+            throw new IllegalArgumentException("slotSize must be positive");
+        }
+        final LoadingDrawable.LoadingConstantState state =
+                (LoadingDrawable.LoadingConstantState) template.getConstantState();
+        mModel = state.mModel;
+        mBorder = state.mBorder;
+        mSlotSize = slotSize;
+
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        mPaint.setStrokeWidth(mBorder);
+
+        mOval.left = mBorder / 2f + 0.5f;
+        mOval.right = slotSize - mBorder / 2f;
+        mOval.top = mBorder / 2f + 0.5f;
+        mOval.bottom = slotSize - mBorder / 2f;
+    }
+
+    public int getSlotSize() {
+        return mSlotSize;
+    }
+
+    public int getSlotCount() {
+        return mSlotCount;
+    }
+
+    /**
+     * Grows or shrinks the slots to {@code count}. Slots added are empty at the origin,
+     * slots kept are unchanged.
+     */
+    public void setSlotCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        ensureCapacity(count);
+        for (int i = mSlotCount; i < count; i++) {
+            mSlotLeft[i] = 0;
+            mSlotTop[i] = 0;
+            mSlotState[i] = SLOT_EMPTY;
+        }
+        mSlotCount = count;
+        invalidateAll();
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= mSlotState.length) {
+            return;
+        }
+        final int capacity = Math.max(count, mSlotState.length * 2);
+        mSlotLeft = Arrays.copyOf(mSlotLeft, capacity);
+        mSlotTop = Arrays.copyOf(mSlotTop, capacity);
+        mSlotState = Arrays.copyOf(mSlotState, capacity);
+        mSlotStartTime = Arrays.copyOf(mSlotStartTime, capacity);
+        mSlotTransitionTime = Arrays.copyOf(mSlotTransitionTime, capacity);
+        mSlotFromSweep = Arrays.copyOf(mSlotFromSweep, capacity);
+        mSlotPhase = Arrays.copyOf(mSlotPhase, capacity);
+        mSlotRotation = Arrays.copyOf(mSlotRotation, capacity);
+        mSlotSweep = Arrays.copyOf(mSlotSweep, capacity);
+        mSlotColor = Arrays.copyOf(mSlotColor, capacity);
+        mSlotGlyphProgress = Arrays.copyOf(mSlotGlyphProgress, capacity);
+    }
+
+    /**
+     * Places the top left corner of slot {@code index}, relative to the bounds.
+     */
+    public void setSlotPosition(int index, int left, int top) {
+        checkIndex(index);
+        mSlotLeft[index] = left;
+        mSlotTop[index] = top;
+        invalidateAll();
+    }
+
+    public int getSlotLeft(int index) {
+        checkIndex(index);
+        return mSlotLeft[index];
+    }
+
+    public int getSlotTop(int index) {
+        checkIndex(index);
+        return mSlotTop[index];
+    }
+
+    public void setSlotState(int index, LoadingDrawable.LoadingState state) {
+        setSlotState(index, state, LoadingDrawable.TRANSITION_ANIMATE);
+    }
+
+    /**
+     * Requests a state for slot {@code index}. A spinning slot takes it as
+     * {@link LoadingDrawable#setLoadingState} would, dropping it while the completion is
+     * already playing. An empty or finished slot starts spinning on LOADING and shows the
+     * glyph right away on SUCCESS or ERROR.
+     *
+     * @param mode one of {@link LoadingDrawable#TRANSITION_ANIMATE},
+     *             {@link LoadingDrawable#TRANSITION_FINISH_NOW} and
+     *             {@link LoadingDrawable#TRANSITION_SKIP}
+     */
+    public void setSlotState(int index, LoadingDrawable.LoadingState state, int mode) {
+        checkIndex(index);
+        if (state == null) {
+            throw new IllegalArgumentException("state == null");
+        }
+        LoadingDrawable.checkTransitionMode(mode);
+        final int target = LoadingDrawable.toModelState(state);
+        final int phase = mSlotPhase[index];
+        final boolean idle = mSlotState[index] == SLOT_EMPTY || phase == LoadingFrameModel.PHASE_FINISHED;
+        if (target == LoadingFrameModel.STATE_LOADING && idle) {
+            mSlotState[index] = target;
+            mSlotStartTime[index] = -1;
+            mSlotTransitionTime[index] = -1;
+            mSlotFromSweep[index] = Float.NaN;
+            setSlotFrame(index, LoadingFrameModel.PHASE_APPEARING, 0f, 0f, mModel.getLoadingColor(), 0f);
+            startTicking();
+            invalidateAll();
+            return;
+        }
+        if (target != LoadingFrameModel.STATE_LOADING && (idle || mode == LoadingDrawable.TRANSITION_SKIP)) {
+            mSlotState[index] = target;
+            setSlotFrame(index, LoadingFrameModel.PHASE_FINISHED, mSlotRotation[index], 360f,
+                    mModel.getStateColor(target), 1f);
+            invalidateAll();
+            return;
+        }
+        if (phase >= LoadingFrameModel.PHASE_COMPLETE) {
+            // the completion sweep already committed to a state
+            return;
+        }
+        mSlotState[index] = target;
+        if (target == LoadingFrameModel.STATE_LOADING) {
+            mSlotTransitionTime[index] = -1;
+            mSlotFromSweep[index] = Float.NaN;
+            return;
+        }
+        final long now = mPaused ? mPauseTime : AnimationUtils.currentAnimationTimeMillis();
+        if (mode == LoadingDrawable.TRANSITION_FINISH_NOW && mSlotStartTime[index] >= 0) {
+            // replaces a pending completion, closing from the sweep on screen
+            mSlotTransitionTime[index] = now;
+            mSlotFromSweep[index] = mSlotSweep[index];
+        } else if (mSlotTransitionTime[index] < 0) {
+            mSlotTransitionTime[index] = now;
+        }
+    }
+
+    /**
+     * The state last requested for slot {@code index}, null if it is empty.
+     */
+    public LoadingDrawable.LoadingState getSlotState(int index) {
+        checkIndex(index);
+        switch (mSlotState[index]) {
+            case SLOT_EMPTY:
+                return null;
+            case LoadingFrameModel.STATE_ERROR:
+                return LoadingDrawable.LoadingState.ERROR;
+            case LoadingFrameModel.STATE_SUCCESS:
+                return LoadingDrawable.LoadingState.SUCCESS;
+            default:
+                return LoadingDrawable.LoadingState.LOADING;
+        }
+    }
+
+    /**
+     * Whether slot {@code index} is spinning or closing, as opposed to empty or finished.
+     */
+    public boolean isSlotAnimating(int index) {
+        checkIndex(index);
+        return mSlotState[index] != SLOT_EMPTY && mSlotPhase[index] != LoadingFrameModel.PHASE_FINISHED;
+    }
+
+    /**
+     * Empties slot {@code index}, it draws nothing until its state is set again.
+     */
+    public void clearSlot(int index) {
+        checkIndex(index);
+        mSlotState[index] = SLOT_EMPTY;
+        invalidateAll();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSlotCount) {
+            throw new IndexOutOfBoundsException("slot " + index + " of " + mSlotCount);
+        }
+    }
+
+    private void setSlotFrame(int index, int phase, float rotation, float sweep, int color, float glyphProgress) {
+        mSlotPhase[index] = phase;
+        mSlotRotation[index] = rotation;
+        mSlotSweep[index] = sweep;
+        mSlotColor[index] = color;
+        mSlotGlyphProgress[index] = glyphProgress;
+    }
+
+    private void startTicking() {
+        if (mPaused) {
+            // resume() registers again
+            return;
+        }
+        LoadingTicker.getInstance().add(this);
+        if (!isVisible()) {
+            pause();
+        }
+    }
+
+    /**
+     * Evaluates every animating slot at the given frame time and invalidates once if any
+     * changed. Called by {@link LoadingTicker}.
+     */
+    void onFrame(long frameTime) {
+        final LoadingFrame frame = mFrame;
+        final Rect bounds = getBounds();
+        boolean animating = false;
+        mDirtyBounds.setEmpty();
+        for (int i = 0; i < mSlotCount; i++) {
+            final int state = mSlotState[i];
+            if (state == SLOT_EMPTY || mSlotPhase[i] == LoadingFrameModel.PHASE_FINISHED) {
+                continue;
+            }
+            long start = mSlotStartTime[i];
+            if (start < 0) {
+                start = frameTime;
+                mSlotStartTime[i] = start;
+            }
+            final long transitionTime = mSlotTransitionTime[i];
+            final long elapsed = frameTime - start;
+            if (transitionTime < 0) {
+                mModel.evaluate(elapsed, state, LoadingFrameModel.NO_TRANSITION, frame);
+            } else if (Float.isNaN(mSlotFromSweep[i])) {
+                mModel.evaluate(elapsed, state, Math.max(0, transitionTime - start), frame);
+            } else {
+                mModel.evaluateCompletion(elapsed, state, Math.max(0, transitionTime - start),
+                        mSlotFromSweep[i], frame);
+            }
+            if (frame.getPhase() != mSlotPhase[i] || frame.getRotation() != mSlotRotation[i]
+                    || frame.getSweep() != mSlotSweep[i] || frame.getColor() != mSlotColor[i]
+                    || frame.getGlyphProgress() != mSlotGlyphProgress[i]) {
+                setSlotFrame(i, frame.getPhase(), frame.getRotation(), frame.getSweep(), frame.getColor(),
+                        frame.getGlyphProgress());
+                final int left = bounds.left + mSlotLeft[i];
+                final int top = bounds.top + mSlotTop[i];
+                mDirtyBounds.union(left, top, left + mSlotSize, top + mSlotSize);
+            }
+            if (!frame.isFinished()) {
+                animating = true;
+            }
+        }
+        if (!mDirtyBounds.isEmpty()) {
+            mDirtyBoundsValid = true;
+            invalidateSelf();
+        }
+        if (!animating) {
+            LoadingTicker.getInstance().remove(this);
+        }
+    }
+
+    private void invalidateAll() {
+        mDirtyBoundsValid = false;
+        invalidateSelf();
+    }
+
+    /**
+     * After a frame, the cells it changed; the whole bounds after anything else changed.
+     */
+    @Override
+    public Rect getDirtyBounds() {
+        return mDirtyBoundsValid ? mDirtyBounds : getBounds();
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mDirtyBoundsValid = false;
+    }
+
+    /**
+     * Stops advancing the slots without losing their phase. Called when the drawable
+     * becomes invisible or the ticker finds its callback gone.
+     */
+    void pause() {
+        if (mPaused || mTickerIndex < 0) {
+            return;
+        }
+        mPaused = true;
+        mPauseTime = AnimationUtils.currentAnimationTimeMillis();
+        LoadingTicker.getInstance().remove(this);
+    }
+
+    /**
+     * Continues from the phase the slots were paused at by shifting their timelines past
+     * the paused interval.
+     */
+    void resume() {
+        if (!mPaused) {
+            return;
+        }
+        mPaused = false;
+        final long pausedFor = AnimationUtils.currentAnimationTimeMillis() - mPauseTime;
+        for (int i = 0; i < mSlotCount; i++) {
+            if (mSlotStartTime[i] >= 0) {
+                mSlotStartTime[i] += pausedFor;
+            }
+            if (mSlotTransitionTime[i] >= 0) {
+                mSlotTransitionTime[i] += pausedFor;
+            }
+        }
+        LoadingTicker.getInstance().add(this);
+    }
+
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        mDirtyBoundsValid = false;
+        final boolean changed = super.setVisible(visible, restart);
+        if (!visible) {
+            pause();
+        } else if (getCallback() != null) {
+            resume();
+        }
+        return changed;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mPaused && isVisible()) {
+            // paused by the ticker while detached, resume now that we are drawn again
+            resume();
+        }
+        final Rect bounds = getBounds();
+        final Paint paint = mPaint;
+        final RectF oval = mOval;
+        final RectF arc = mArcRect;
+        for (int i = 0; i < mSlotCount; i++) {
+            final int state = mSlotState[i];
+            if (state == SLOT_EMPTY) {
+                continue;
+            }
+            final int left = bounds.left + mSlotLeft[i];
+            final int top = bounds.top + mSlotTop[i];
+            arc.left = oval.left + left;
+            arc.top = oval.top + top;
+            arc.right = oval.right + left;
+            arc.bottom = oval.bottom + top;
+            paint.setColor(mSlotColor[i]);
+            canvas.drawArc(arc, mSlotRotation[i] % 360, mSlotSweep[i], false, paint);
+            if (mSlotPhase[i] >= LoadingFrameModel.PHASE_GLYPH && state != LoadingFrameModel.STATE_LOADING) {
+                drawGlyph(canvas, state, mSlotGlyphProgress[i], left, top);
+            }
+        }
+    }
+
+    /**
+     * The glyph is laid out once for a slot at the origin and drawn translated.
+     */
+    private void drawGlyph(Canvas canvas, int state, float progress, int left, int top) {
+        if (mGlyph == null) {
+            mGlyph = new LoadingGlyph();
+            mGlyph.layout(new Rect(0, 0, mSlotSize, mSlotSize), mBorder);
+        }
+        final int saveCount = canvas.save();
+        canvas.translate(left, top);
+        if (state == LoadingFrameModel.STATE_ERROR) {
+            mGlyph.updateError(progress);
+            mGlyph.drawError(canvas, mPaint);
+        } else {
+            mGlyph.updateSuccess(progress);
+            mGlyph.drawSuccess(canvas, mPaint);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
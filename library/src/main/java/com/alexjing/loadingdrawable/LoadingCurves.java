@@ -0,0 +1,114 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * Lookup tables for the per-frame math of {@link LoadingFrameModel}: its two easing
+ * curves sampled at {@link #TABLE_SIZE} intervals and linearly interpolated, and color
+ * blends as precomputed ARGB ramps. Also a sine table over a full turn for
+ * {@link LoadingDirtyRegion}.
+ * <p>
+ * Linear interpolation over 256 intervals stays within 1e-4 of either curve, well
+ * under a hundredth of a degree of arc, and a ramp within one level per channel of
+ * {@link LoadingFrameModel#blendArgb}. The sine stays within 1e-4 too, a small fraction of
+ * a pixel on any spinner. Pure Java like the model.
+ */
+final class LoadingCurves {
+
+    static final int TABLE_SIZE = 256;
+
+    private static final float[] ACCELERATE_DECELERATE = new float[TABLE_SIZE + 1];
+    private static final float[] OVERSHOOT = new float[TABLE_SIZE + 1];
+    private static final float[] SINE = new float[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            final float input = i / (float) TABLE_SIZE;
+            ACCELERATE_DECELERATE[i] = LoadingFrameModel.accelerateDecelerate(input);
+            OVERSHOOT[i] = LoadingFrameModel.overshoot(input);
+            SINE[i] = (float) Math.sin(2 * Math.PI * input);
+        }
+    }
+
+    private LoadingCurves() {
+    }
+
+    /**
+     * {@link LoadingFrameModel#accelerateDecelerate} for inputs in [0, 1], clamped outside.
+     */
+    static float accelerateDecelerate(float input) {
+        return lookup(ACCELERATE_DECELERATE, input);
+    }
+
+    /**
+     * {@link LoadingFrameModel#overshoot} for inputs in [0, 1], clamped outside.
+     */
+    static float overshoot(float input) {
+        return lookup(OVERSHOOT, input);
+    }
+
+    /**
+     * Sine of an angle in degrees, any angle.
+     */
+    static float sin(float degrees) {
+        return sine(degrees * (TABLE_SIZE / 360f));
+    }
+
+    /**
+     * Cosine of an angle in degrees, any angle.
+     */
+    static float cos(float degrees) {
+        return sine(degrees * (TABLE_SIZE / 360f) + TABLE_SIZE / 4);
+    }
+
+    /**
+     * {@code position} is in table intervals, wrapped to one turn with a mask since
+     * {@link #TABLE_SIZE} is a power of two.
+     */
+    private static float sine(float position) {
+        int index = (int) position;
+        if (index > position) {
+            index--;
+        }
+        final float fraction = position - index;
+        index &= TABLE_SIZE - 1;
+        final float start = SINE[index];
+        return start + fraction * (SINE[index + 1] - start);
+    }
+
+    private static float lookup(float[] table, float input) {
+        if (!(input > 0f)) {
+            return table[0];
+        }
+        if (input >= 1f) {
+            return table[TABLE_SIZE];
+        }
+        final float position = input * TABLE_SIZE;
+        final int index = (int) position;
+        final float start = table[index];
+        return start + (position - index) * (table[index + 1] - start);
+    }
+
+    /**
+     * {@link LoadingFrameModel#blendArgb} from {@code startColor} to {@code endColor},
+     * sampled for {@link #color}.
+     */
+    static int[] colorRamp(int startColor, int endColor) {
+        final int[] ramp = new int[TABLE_SIZE + 1];
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            ramp[i] = LoadingFrameModel.blendArgb(i / (float) TABLE_SIZE, startColor, endColor);
+        }
+        return ramp;
+    }
+
+    /**
+     * The ramp entry nearest to {@code fraction}, clamped to [0, 1].
+     */
+    static int color(int[] ramp, float fraction) {
+        if (!(fraction > 0f)) {
+            return ramp[0];
+        }
+        if (fraction >= 1f) {
+            return ramp[TABLE_SIZE];
+        }
+        return ramp[(int) (fraction * TABLE_SIZE + 0.5f)];
+    }
+}
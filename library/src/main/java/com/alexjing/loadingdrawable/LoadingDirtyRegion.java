@@ -0,0 +1,198 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Dirty rect of a {@link LoadingDrawable} frame. Keeps the bounding box of the geometry
+ * the last draw stroked and of what the next one will, the arc and the glyph segments
+ * before the stroke width is added, and reports their union as what changes.
+ * <p>
+ * A box is unknown until a frame describes it, and both are forgotten by {@link #reset()}
+ * whenever something other than a frame step changes what is drawn; the dirty rect is
+ * then the whole drawable.
+ * <p>
+ * A frame step only marks the region pending, the next box is described when the dirty
+ * rect is asked for. A frame drawn without that leaves what is on screen unknown.
+ */
+final class LoadingDirtyRegion {
+
+    private float mLeft;
+    private float mTop;
+    private float mRight;
+    private float mBottom;
+    private boolean mEmpty = true;
+    private boolean mKnown;
+
+    private float mDrawnLeft;
+    private float mDrawnTop;
+    private float mDrawnRight;
+    private float mDrawnBottom;
+    private boolean mDrawnEmpty = true;
+    private boolean mDrawnKnown;
+
+    private final Rect mDirtyBounds = new Rect();
+    private boolean mDirtyBoundsValid;
+    private boolean mPending;
+
+    /**
+     * Forgets both boxes and the dirty rect.
+     */
+    void reset() {
+        mKnown = false;
+        mDrawnKnown = false;
+        mDirtyBoundsValid = false;
+        mPending = false;
+    }
+
+    /**
+     * A frame step changed what the next draw strokes, not described yet.
+     */
+    void onFrame() {
+        mPending = true;
+    }
+
+    boolean isPending() {
+        return mPending;
+    }
+
+    /**
+     * Starts describing the next draw with an empty box.
+     */
+    void begin() {
+        mEmpty = true;
+        mKnown = true;
+    }
+
+    /**
+     * The next draw is not described, e.g. because it blits a whole atlas cell.
+     */
+    void beginUnknown() {
+        mKnown = false;
+    }
+
+    void addPoint(float x, float y) {
+        if (mEmpty) {
+            mLeft = mRight = x;
+            mTop = mBottom = y;
+            mEmpty = false;
+            return;
+        }
+        if (x < mLeft) {
+            mLeft = x;
+        } else if (x > mRight) {
+            mRight = x;
+        }
+        if (y < mTop) {
+            mTop = y;
+        } else if (y > mBottom) {
+            mBottom = y;
+        }
+    }
+
+    /**
+     * Adds the arc {@code Canvas.drawArc} strokes for these angles: its end points and
+     * every axis extreme of the oval it passes.
+     */
+    void addArc(RectF oval, float startAngle, float sweepAngle) {
+        if (sweepAngle < 0) {
+            startAngle += sweepAngle;
+            sweepAngle = -sweepAngle;
+        }
+        if (sweepAngle >= 360f) {
+            addPoint(oval.left, oval.top);
+            addPoint(oval.right, oval.bottom);
+            return;
+        }
+        final float centerX = oval.centerX();
+        final float centerY = oval.centerY();
+        final float radiusX = oval.width() / 2f;
+        final float radiusY = oval.height() / 2f;
+        final float endAngle = startAngle + sweepAngle;
+        addPoint(centerX + radiusX * LoadingCurves.cos(startAngle), centerY + radiusY * LoadingCurves.sin(startAngle));
+        addPoint(centerX + radiusX * LoadingCurves.cos(endAngle), centerY + radiusY * LoadingCurves.sin(endAngle));
+        // every multiple of 90 degrees within the sweep is an extreme: right, bottom, left, top
+        final float startQuadrant = startAngle / 90f;
+        int quadrant = (int) startQuadrant;
+        if (quadrant < startQuadrant) {
+            quadrant++;
+        }
+        for (float angle = quadrant * 90f; angle < endAngle; angle += 90f, quadrant++) {
+            switch (quadrant & 3) {
+                case 0:
+                    addPoint(oval.right, centerY);
+                    break;
+                case 1:
+                    addPoint(centerX, oval.bottom);
+                    break;
+                case 2:
+                    addPoint(oval.left, centerY);
+                    break;
+                default:
+                    addPoint(centerX, oval.top);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Adds the end points of {@code count} {@code drawLines} coordinates.
+     */
+    void addLines(float[] points, int count) {
+        for (int i = 0; i + 1 < count; i += 2) {
+            addPoint(points[i], points[i + 1]);
+        }
+    }
+
+    /**
+     * Computes the dirty rect for the frame just described: the drawn and the next box
+     * outset by {@code outset} and rounded out to whole pixels, or {@code bounds} while
+     * either is unknown.
+     */
+    void update(Rect bounds, float outset) {
+        mPending = false;
+        mDirtyBoundsValid = true;
+        if (!mKnown || !mDrawnKnown) {
+            mDirtyBounds.set(bounds);
+            return;
+        }
+        mDirtyBounds.setEmpty();
+        if (!mDrawnEmpty) {
+            union(mDirtyBounds, mDrawnLeft, mDrawnTop, mDrawnRight, mDrawnBottom, outset);
+        }
+        if (!mEmpty) {
+            union(mDirtyBounds, mLeft, mTop, mRight, mBottom, outset);
+        }
+        if (!mDirtyBounds.intersect(bounds)) {
+            mDirtyBounds.setEmpty();
+        }
+    }
+
+    private static void union(Rect out, float left, float top, float right, float bottom, float outset) {
+        out.union((int) Math.floor(left - outset), (int) Math.floor(top - outset),
+                (int) Math.ceil(right + outset), (int) Math.ceil(bottom + outset));
+    }
+
+    /**
+     * The next box is on screen now.
+     */
+    void onDraw() {
+        if (mPending) {
+            reset();
+            return;
+        }
+        mDrawnKnown = mKnown;
+        mDrawnLeft = mLeft;
+        mDrawnTop = mTop;
+        mDrawnRight = mRight;
+        mDrawnBottom = mBottom;
+        mDrawnEmpty = mEmpty;
+    }
+
+    /**
+     * The dirty rect of the last frame step, null if something else changed since.
+     */
+    Rect getDirtyBounds() {
+        return mDirtyBoundsValid ? mDirtyBounds : null;
+    }
+}
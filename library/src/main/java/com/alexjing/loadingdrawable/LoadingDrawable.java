@@ -1,23 +1,19 @@
 package com.alexjing.loadingdrawable;
 
-import android.animation.Animator;
-import android.animation.ArgbEvaluator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.Point;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
-import android.os.Build;
-import android.view.animation.OvershootInterpolator;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.animation.AnimationUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Created by alex on 15/4/29.
@@ -32,408 +28,487 @@ public class LoadingDrawable extends Drawable implements Animatable {
     private static final int DEFAULT_MAX_SWEEP_ANGLE = 180;
     private static final int DEFAULT_MIN_SWEEP_ANGLE = 10;
 
-    private static ArgbEvaluator sArgbEvaluator = new ArgbEvaluator();
+    /**
+     * Plays the completion from wherever the animation is.
+     */
+    public static final int TRANSITION_ANIMATE = 0;
+    /**
+     * Starts the completion sweep right away instead of at the end of the next growth.
+     */
+    public static final int TRANSITION_FINISH_NOW = 1;
+    /**
+     * Jumps to the finished glyph and stops.
+     */
+    public static final int TRANSITION_SKIP = 2;
 
-    private Context mContext;
+    private static final int NO_PENDING_TRANSITION = -1;
 
-    private RectF mRectF = new RectF();
+    /**
+     * An updater rather than an AtomicInteger per drawable, most never leave the main thread.
+     */
+    private static final AtomicIntegerFieldUpdater<LoadingDrawable> PENDING_TRANSITION =
+            AtomicIntegerFieldUpdater.newUpdater(LoadingDrawable.class, "mPendingTransition");
 
-    private int mCurrentColor;
+    private static Handler sMainHandler;
 
-    private int mHookMaxLength;
-    private int mSuccessMaxLength;
+    private LoadingConstantState mConstantState;
+    private boolean mMutated;
 
+    private RectF mRectF = new RectF();
 
-    private float mBorder;
     private float mCurrentRotationAngle;
-    private float mMaxSweepAngle;
-    private float mMinSweepAngle;
     private float mCurrentSweepAngle;
-    private float mCenterX;
-    private float mCenterY;
-    private float mOffset;
-
-    private Point mInflectionPoint = new Point();
-    private Point mStartPoint = new Point();
-    private Point mStopPoint = new Point();
-
-    private boolean mFirstSweep = true;
     private boolean isRunning = false;
-    private boolean isComplete = false;
-
-    private List<Path> mErrorPathList = new ArrayList<>();
-    private Path mSuccessPath = new Path();
-
-    private ValueAnimator mRotationAnimator;
-    private ValueAnimator mSweepAppearingAnimator;
-    private ValueAnimator mSweepDisappearingAnimator;
-    private ValueAnimator mSweepCompleteAnimator;
-    private ValueAnimator mErrorAnimator;
-    private ValueAnimator mSuccessAnimator;
+    private boolean mPaused;
+    private long mPauseTime;
+
+    /**
+     * Created on the first glyph frame, most spinners never get there.
+     */
+    private LoadingGlyph mGlyph;
+
+    private final LoadingFrame mFrame = new LoadingFrame();
+    private final LoadingFrame mDrawnFrame = new LoadingFrame();
+    private boolean mDirty;
+    /**
+     * See {@link #getDirtyBounds()}, created when a host first asks for it.
+     */
+    private LoadingDirtyRegion mDirtyRegion;
+
+    private FrameRatePolicy mFrameRatePolicy = FrameRatePolicy.FULL;
+
+    private boolean mDeterminate;
+    /**
+     * The current run shows progress rather than spinning.
+     */
+    private boolean mProgressShown;
+    /**
+     * Float bits of the latest progress, written from any thread and read once per frame,
+     * so any number of updates between two frames costs one evaluation and at most one
+     * invalidation.
+     */
+    private volatile int mProgressBits;
+    private float mProgressSweep;
+    private long mProgressTime = -1;
+
+    private boolean mSynchronized;
+    /**
+     * Shared timeline of the current run, null unless started synchronized.
+     */
+    private LoadingPhase mPhase;
+
+    private long mStartTime = -1;
+    private long mEvaluatedTime = -1;
+    private long mTransitionTime = -1;
+    private int mTargetState = LoadingFrameModel.STATE_LOADING;
+
+    /**
+     * Slot in {@link LoadingTicker}'s registry, -1 while not registered.
+     */
+    int mTickerIndex = -1;
+    /**
+     * Ticker of the thread the drawable runs on, null for the main thread's.
+     */
+    private LoadingTicker mTicker;
 
     private Paint mPaint;
 
-    private LoadingState mState = LoadingState.LOADING;
+    private LoadingMetrics mMetrics;
+    private LoadingMetrics.Listener mMetricsListener;
+
+    private boolean mRenderThreadAnimation;
+    private LoadingVectorAnimation mVectorAnimation;
+    /**
+     * The last start() went to {@link #mVectorAnimation}, which also draws.
+     */
+    private boolean mVectorShown;
+
+    private boolean mCachedRendering;
+    private LoadingQualityController mQualityController;
+    /**
+     * Tier of {@link #mQualityController} the paint and renderer are set up for.
+     */
+    private int mQualityTier = LoadingQualityController.TIER_FULL;
+    private LoadingTraceRecorder mTraceRecorder;
+    private LoadingFrameAtlas mAtlas;
+    private LoadingFrameAtlas.Renderer mAtlasRenderer;
+    private Paint mAtlasPaint;
+
+    private volatile LoadingState mState = LoadingState.LOADING;
+
+    /**
+     * Latest transition requested off the main thread, packed by {@link #packTransition},
+     * or {@link #NO_PENDING_TRANSITION}. Newer requests replace it until it is applied.
+     */
+    private volatile int mPendingTransition = NO_PENDING_TRANSITION;
+    /**
+     * Posted to the main thread by the request that found no transition pending, created
+     * on the first such request.
+     */
+    private volatile Runnable mApplyPendingTransition;
+    private OnLoadingStateChangeListener mStateListener;
+    /**
+     * The current request asked to finish now: the completion starts at
+     * {@link #mTransitionTime} from {@link #mImmediateSweep}.
+     */
+    private boolean mFinishNow;
+    private float mImmediateSweep;
 
     public enum LoadingState {
         LOADING, ERROR, SUCCESS
     }
 
+    public interface OnLoadingStateChangeListener {
+        /**
+         * Called on the main thread, or that of the {@link LoadingRenderThread} drawing
+         * the drawable, when a requested state is applied, with the
+         * {@code TRANSITION_*} mode it was requested with. Not called for requests made
+         * while the completion of a previous one is playing, which are dropped.
+         */
+        void onLoadingStateChanged(LoadingDrawable drawable, LoadingState previous, LoadingState state, int mode);
+    }
+
     public LoadingDrawable(Context context) {
-        mContext = context;
+        this(new LoadingConstantState(context));
+    }
+
+    private LoadingDrawable(LoadingConstantState state) {
+        mConstantState = state;
         init();
-        setupAnimations();
     }
 
     private void init() {
-        mBorder = dip2px(mContext, DEFAULT_BORDER_DIP);
-        mCurrentColor = DEBAULT_LOADING_COLOR;
-        mMaxSweepAngle = DEFAULT_MAX_SWEEP_ANGLE;
-        mMinSweepAngle = DEFAULT_MIN_SWEEP_ANGLE;
-
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
         mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setColor(mCurrentColor);
+        mPaint.setColor(mConstantState.mLoadingColor);
         mPaint.setStrokeCap(Paint.Cap.ROUND);
-        mPaint.setStrokeWidth(mBorder);
+        mPaint.setStrokeWidth(mConstantState.mBorder);
     }
 
     private void setupAnimations() {
-        mRotationAnimator = ValueAnimator.ofFloat(0f, 1f);
-        mRotationAnimator.setDuration(DEFAULT_DURATION);
-        mRotationAnimator.setRepeatMode(ValueAnimator.RESTART);
-        mRotationAnimator.setRepeatCount(ValueAnimator.INFINITE);
-        mRotationAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction = getAnimatedFraction(animation);
-                final float angle = fraction * 360f;
-                setCurrentRotationAngle(angle);
-            }
-        });
-
-        mSweepAppearingAnimator = ValueAnimator.ofFloat(0, 1f);
-        mSweepAppearingAnimator.setDuration(DEFAULT_DURATION);
-        mSweepAppearingAnimator.addListener(new Animator.AnimatorListener() {
-            boolean cancelled;
-
-            @Override
-            public void onAnimationStart(Animator animation) {
-                cancelled = false;
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                if (!cancelled) {
-                    mFirstSweep = false;
-                    switch (mState) {
-                        case LOADING: {
-                            mSweepDisappearingAnimator.start();
-                        }
-                        break;
-                        case ERROR: {
-                            mSweepCompleteAnimator.start();
-                        }
-                        break;
-                        case SUCCESS: {
-                            mSweepCompleteAnimator.start();
-                        }
-                        break;
-                    }
-                }
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                cancelled = true;
-            }
-
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-
-            }
-        });
-        mSweepAppearingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction = getAnimatedFraction(animation);
-                final float angle;
-                if (mFirstSweep) {
-                    angle = fraction * mMaxSweepAngle;
-                } else {
-                    angle = fraction * (mMaxSweepAngle - mMinSweepAngle) + mMinSweepAngle;
-                }
-                setCurrentSweepAngle(angle);
+        mConstantState.updateModel();
+        mEvaluatedTime = -1;
+        if (mPhase != null) {
+            final LoadingPhase previous = mPhase;
+            mPhase = LoadingPhase.obtain(mConstantState.mModel);
+            previous.release();
+            if (mTransitionTime < 0) {
+                // join the phase of the new configuration on the next frame
+                mStartTime = -1;
             }
-        });
-
-        mSweepDisappearingAnimator = ValueAnimator.ofFloat(0, 1f);
-        mSweepDisappearingAnimator.setDuration(DEFAULT_DURATION);
-        mSweepDisappearingAnimator.addListener(new Animator.AnimatorListener() {
-            boolean cancelled = false;
+        }
+    }
 
-            @Override
-            public void onAnimationStart(Animator animation) {
-                cancelled = false;
-            }
+    @Override
+    public ConstantState getConstantState() {
+        return mConstantState;
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                if (!cancelled) {
-                    mSweepAppearingAnimator.start();
-                }
-            }
+    /**
+     * Gives this drawable its own copy of the configuration, so setters no longer affect
+     * the other drawables created from the same {@link ConstantState}.
+     */
+    @Override
+    public Drawable mutate() {
+        if (!mMutated && super.mutate() == this) {
+            mConstantState = new LoadingConstantState(mConstantState);
+            mMutated = true;
+        }
+        return this;
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                cancelled = true;
-            }
+    /**
+     * Configuration shared by every drawable created from it: border, sweep range,
+     * colors, duration and the frame model built from them.
+     */
+    static final class LoadingConstantState extends ConstantState {
+        final Context mContext;
+        float mBorder;
+        float mMinSweepAngle;
+        float mMaxSweepAngle;
+        int mLoadingColor;
+        int mErrorColor;
+        int mSuccessColor;
+        int mDuration;
+        LoadingFrameModel mModel;
+
+        LoadingConstantState(Context context) {
+            final Context appContext = context.getApplicationContext();
+            mContext = appContext != null ? appContext : context;
+            mBorder = dip2px(context, DEFAULT_BORDER_DIP);
+            mMinSweepAngle = DEFAULT_MIN_SWEEP_ANGLE;
+            mMaxSweepAngle = DEFAULT_MAX_SWEEP_ANGLE;
+            mLoadingColor = DEBAULT_LOADING_COLOR;
+            mErrorColor = DEBAULT_ERROR_COLOR;
+            mSuccessColor = DEBAULT_SUCCESS_COLOR;
+            mDuration = DEFAULT_DURATION;
+            mModel = DefaultModel.INSTANCE;
+        }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+        LoadingConstantState(LoadingConstantState orig) {
+            mContext = orig.mContext;
+            mBorder = orig.mBorder;
+            mMinSweepAngle = orig.mMinSweepAngle;
+            mMaxSweepAngle = orig.mMaxSweepAngle;
+            mLoadingColor = orig.mLoadingColor;
+            mErrorColor = orig.mErrorColor;
+            mSuccessColor = orig.mSuccessColor;
+            mDuration = orig.mDuration;
+            mModel = orig.mModel;
+        }
 
-            }
-        });
-        mSweepDisappearingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction = getAnimatedFraction(animation);
-                final float angle = mMaxSweepAngle - fraction * (mMaxSweepAngle - mMinSweepAngle);
-                setCurrentSweepAngle(angle);
-            }
-        });
-
-        mSweepCompleteAnimator = ValueAnimator.ofFloat(0, 1f);
-        mSweepCompleteAnimator.setDuration(DEFAULT_DURATION);
-        mSweepCompleteAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction = getAnimatedFraction(animation);
-                final float angle = mMaxSweepAngle + fraction * (360 - mMaxSweepAngle);
-                final int color;
-                switch (mState) {
-                    case SUCCESS: {
-                        color = (int) sArgbEvaluator.evaluate(fraction, mCurrentColor, DEBAULT_SUCCESS_COLOR);
-                    }
-                    break;
-                    case ERROR: {
-                        color = (int) sArgbEvaluator.evaluate(fraction, mCurrentColor, DEBAULT_ERROR_COLOR);
-                    }
-                    break;
-                    default:
-                        color = DEBAULT_LOADING_COLOR;
-                }
-                mPaint.setColor(color);
-                setCurrentSweepAngle(angle);
+        void updateModel() {
+            mModel = new LoadingFrameModel(mDuration, mMinSweepAngle, mMaxSweepAngle,
+                    mLoadingColor, mErrorColor, mSuccessColor);
+        }
 
-            }
-        });
-        mSweepCompleteAnimator.addListener(new Animator.AnimatorListener() {
-            boolean cancelled = false;
-
-            @Override
-            public void onAnimationStart(Animator animation) {
-                isComplete = false;
-                cancelled = false;
-            }
+        /**
+         * Model of the default configuration, built once as building its color ramps costs
+         * far more than the rest of a drawable.
+         */
+        private static final class DefaultModel {
+            static final LoadingFrameModel INSTANCE = new LoadingFrameModel(DEFAULT_DURATION,
+                    DEFAULT_MIN_SWEEP_ANGLE, DEFAULT_MAX_SWEEP_ANGLE, DEBAULT_LOADING_COLOR,
+                    DEBAULT_ERROR_COLOR, DEBAULT_SUCCESS_COLOR);
+        }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                isComplete = true;
-                switch (mState) {
-                    case ERROR: {
-                        mErrorAnimator.start();
-                    }
-                    break;
-                    case SUCCESS: {
-                        mSuccessAnimator.start();
-                    }
-                    break;
-                }
-            }
+        /**
+         * Whether this is the configuration the {@link LoadingVectorSpec} resources were
+         * generated from.
+         */
+        boolean isDefault() {
+            return mBorder == dip2px(mContext, DEFAULT_BORDER_DIP)
+                    && mMinSweepAngle == DEFAULT_MIN_SWEEP_ANGLE && mMaxSweepAngle == DEFAULT_MAX_SWEEP_ANGLE
+                    && mLoadingColor == DEBAULT_LOADING_COLOR && mErrorColor == DEBAULT_ERROR_COLOR
+                    && mSuccessColor == DEBAULT_SUCCESS_COLOR && mDuration == DEFAULT_DURATION;
+        }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                cancelled = true;
-            }
+        @Override
+        public Drawable newDrawable() {
+            return new LoadingDrawable(this);
+        }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
+        }
+    }
 
+    /**
+     * Evaluates the model at the given frame time. Called by {@link LoadingTicker}.
+     */
+    void onFrame(long frameTime) {
+        if (mPendingTransition != NO_PENDING_TRANSITION) {
+            applyPendingTransition();
+            if (!isRunning) {
+                return;
             }
-        });
-        mErrorAnimator = ValueAnimator.ofFloat(0, 1f);
-        mErrorAnimator.setDuration(DEFAULT_DURATION / 2);
-        mErrorAnimator.setInterpolator(new OvershootInterpolator());
-        mErrorAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction;
-                if (Build.VERSION.SDK_INT > 11) {
-                     fraction= animation.getAnimatedFraction();
-                }else {
-                    fraction = getAnimatedFraction(animation);
-                }
-                final float offset = mOffset * fraction;
-                lineTo(offset);
+        }
+        if (mQualityController != null) {
+            mQualityController.onFrame(frameTime);
+            if (mQualityController.getTier() != mQualityTier) {
+                applyQualityTier(mQualityController.getTier());
             }
-        });
-        mErrorAnimator.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+        }
+        if (mMetrics == null) {
+            updateFrame(frameTime);
+        } else {
+            final int phase = mFrame.getPhase();
+            final long start = System.nanoTime();
+            updateFrame(frameTime);
+            mMetrics.recordUpdate(System.nanoTime() - start, phase, frameTime);
+        }
+        if (mTraceRecorder != null) {
+            mTraceRecorder.recordFrame(frameTime, mFrame);
+        }
+        if (mFrame.isFinished()) {
+            stop();
+        }
+    }
 
-            }
+    /**
+     * The frame evaluated last, owned by the drawable.
+     */
+    LoadingFrame getCurrentFrame() {
+        return mFrame;
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                stop();
+    private void updateFrame(long frameTime) {
+        if (mStartTime < 0) {
+            mStartTime = mPhase != null ? mPhase.getEpoch(frameTime) : frameTime;
+        }
+        final long transitionTime = mTransitionTime < 0
+                ? LoadingFrameModel.NO_TRANSITION : Math.max(0, mTransitionTime - mStartTime);
+        long elapsed = frameTime - mStartTime;
+        long interval = mFrameRatePolicy.getFrameInterval(mConstantState.mContext, frameTime);
+        if (mQualityTier >= LoadingQualityController.TIER_REDUCED_RATE) {
+            interval = Math.max(interval, mQualityController.getReducedFrameInterval());
+        }
+        if (interval > 0) {
+            elapsed = FrameRatePolicy.snap(elapsed, interval);
+        }
+        if (elapsed == mEvaluatedTime) {
+            // still on the same reduced-rate frame
+            return;
+        }
+        mEvaluatedTime = elapsed;
+        if (mProgressShown) {
+            updateProgress(elapsed, transitionTime);
+        } else if (mFinishNow && transitionTime != LoadingFrameModel.NO_TRANSITION) {
+            mConstantState.mModel.evaluateCompletion(elapsed, mTargetState, transitionTime, mImmediateSweep, mFrame);
+        } else if (mPhase != null && transitionTime == LoadingFrameModel.NO_TRANSITION) {
+            mFrame.set(mPhase.evaluate(elapsed));
+        } else {
+            mConstantState.mModel.evaluate(elapsed, mTargetState, transitionTime, mFrame);
+        }
+        if (!mFrame.sameAs(mDrawnFrame)) {
+            applyFrame();
+            if (mDirtyRegion != null) {
+                mDirtyRegion.onFrame();
             }
+            mDirty = true;
+        }
+        flushInvalidate();
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
+    /**
+     * Eases the arc toward the latest progress. Once SUCCESS or ERROR is requested the
+     * arc closes from wherever it is.
+     */
+    private void updateProgress(long elapsed, long transitionTime) {
+        final LoadingFrameModel model = mConstantState.mModel;
+        if (transitionTime == LoadingFrameModel.NO_TRANSITION) {
+            final float target = 360f * Float.intBitsToFloat(mProgressBits);
+            mProgressSweep = mProgressTime < 0
+                    ? 0f : model.stepProgress(mProgressSweep, target, elapsed - mProgressTime);
+            mProgressTime = elapsed;
+        }
+        model.evaluateProgress(elapsed, mProgressSweep, mTargetState, transitionTime, mFrame);
+    }
 
+    private void applyFrame() {
+        mCurrentRotationAngle = mFrame.getRotation();
+        mCurrentSweepAngle = mFrame.getSweep();
+        mPaint.setColor(mFrame.getColor());
+        if (mFrame.isGlyphVisible()) {
+            if (mFrame.getState() == LoadingFrameModel.STATE_ERROR) {
+                updateError(mFrame.getGlyphProgress());
+            } else {
+                updateSuccess(mFrame.getGlyphProgress());
             }
+        }
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-
-            }
-        });
-
-        mSuccessAnimator = ValueAnimator.ofFloat(0, 1f);
-        mSuccessAnimator.setDuration(DEFAULT_DURATION/2);
-        mSuccessAnimator.setInterpolator(new OvershootInterpolator());
-        mSuccessAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                final float fraction;
-                if (Build.VERSION.SDK_INT > 11) {
-                    fraction= animation.getAnimatedFraction();
-                }else {
-                    fraction = getAnimatedFraction(animation);
-                }
+    /**
+     * Requests a redraw. While running it is deferred to the end of the next frame so a
+     * drawable invalidates at most once per frame.
+     */
+    private void markDirty() {
+        invalidateDirtyBounds();
+        mDirty = true;
+        if (mTickerIndex < 0) {
+            flushInvalidate();
+        }
+    }
 
-                final int xLength = (int) (fraction * mSuccessMaxLength);
-                final int inflaction = (int) (mHookMaxLength * 0.5);
-                if (xLength < mHookMaxLength * 0.8) {
-                    Point lineTo = new Point(mStartPoint.x + xLength, mStartPoint.y + xLength);
-                    successLineTo(mStartPoint, lineTo);
-                } else if (xLength == inflaction) {
-                    mInflectionPoint.set(mStartPoint.x + xLength, mStartPoint.y + xLength);
-                    successLineTo(mStartPoint, mInflectionPoint);
-                } else{
-                    if (xLength < mHookMaxLength) {
-                        int x = xLength - inflaction;
-                        Point lineTo = new Point(mInflectionPoint.x+x,mInflectionPoint.y-x);
-                        successLineTo(mStartPoint,mInflectionPoint,lineTo);
-                    }else {
-                        int x = xLength - mHookMaxLength;
-                        Point start = new Point(mStartPoint.x+x,mStartPoint.y+x);
-                        int xx =(int) ( xLength -mHookMaxLength*.8f);
-                        Point lineTo = new Point(mInflectionPoint.x+xx,mInflectionPoint.y-xx);
-                        successLineTo(start,mInflectionPoint,lineTo);
-                    }
+    /**
+     * The frame just evaluated changes only the union of what was drawn last and what
+     * will be drawn next, outset by half the stroke and a pixel of anti-aliasing. Only
+     * computed when a host asks, so frames nobody redraws partially skip it.
+     */
+    private void updateDirtyBounds() {
+        final LoadingDirtyRegion region = mDirtyRegion;
+        if (isCachedRenderingActive()) {
+            // atlas cells are blitted whole
+            region.beginUnknown();
+        } else {
+            region.begin();
+            region.addArc(mRectF, mCurrentRotationAngle, mCurrentSweepAngle);
+            if (mFrame.isGlyphVisible()) {
+                if (mFrame.getState() == LoadingFrameModel.STATE_ERROR) {
+                    getGlyph().addErrorTo(region);
+                } else {
+                    getGlyph().addSuccessTo(region);
                 }
             }
-        });
-        mSuccessAnimator.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                stop();
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-
-            }
-        });
-
+        }
+        region.update(getBounds(), mPaint.getStrokeWidth() / 2f + 1f);
     }
 
-    private void successLineTo(Point start, Point... lineTo) {
-        mSuccessPath.reset();
-        mSuccessPath.moveTo(start.x, start.y);
-        for (Point p : lineTo) {
-            mSuccessPath.lineTo(p.x, p.y);
+    /**
+     * The next invalidation is not a plain frame step, or the last draw is unknown.
+     */
+    private void invalidateDirtyBounds() {
+        if (mDirtyRegion != null) {
+            mDirtyRegion.reset();
         }
-        invalidateSelf();
     }
 
-    private void setCurrentRotationAngle(float angle) {
-        mCurrentRotationAngle = angle;
-        invalidateSelf();
+    /**
+     * While running, the area the last frame changed, which hosts like {@code View} only
+     * need to redraw; the whole bounds after anything else changed.
+     */
+    @Override
+    public Rect getDirtyBounds() {
+        if (mDirtyRegion == null) {
+            mDirtyRegion = new LoadingDirtyRegion();
+        } else if (mDirtyRegion.isPending()) {
+            updateDirtyBounds();
+        }
+        final Rect dirty = mDirtyRegion != null ? mDirtyRegion.getDirtyBounds() : null;
+        return dirty != null ? dirty : getBounds();
     }
 
-    private void setCurrentSweepAngle(float angle) {
-        mCurrentSweepAngle = angle;
-        invalidateSelf();
+    private void flushInvalidate() {
+        if (mDirty) {
+            mDirty = false;
+            if (mMetrics != null) {
+                mMetrics.recordInvalidation();
+            }
+            invalidateSelf();
+        }
     }
 
-    private void initPathList(RectF rect) {
-        mCenterX = rect.width() / 2f + rect.left;
-        mCenterY = rect.height() / 2f + rect.top;
-        final float pathLenth = Math.min(rect.width() / 2f, rect.height() / 2f);
-        mOffset = pathLenth * 5f/12;
-
-        mErrorPathList.clear();
+    void updateError(float fraction) {
+        getGlyph().updateError(fraction);
+    }
 
-        for (int i = 0; i < 4; i++) {
-            Path path = new Path();
-            path.moveTo(mCenterX, mCenterY);
-            mErrorPathList.add(path);
-        }
+    void updateSuccess(float fraction) {
+        getGlyph().updateSuccess(fraction);
     }
 
-    private void lineTo(float offset) {
-        for (int i = 0; i < mErrorPathList.size(); i++) {
-            int xSign = i < 2 ? 1 : -1;
-            int ySign = i > 0 && i < 3 ? -1 : 1;
-            Path path = mErrorPathList.get(i);
-            path.reset();
-            path.moveTo(mCenterX, mCenterY);
-            path.lineTo(xSign * offset + mCenterX, ySign * offset + mCenterY);
+    private LoadingGlyph getGlyph() {
+        if (mGlyph == null) {
+            mGlyph = new LoadingGlyph();
+            mGlyph.layout(getBounds(), mConstantState.mBorder);
         }
-        invalidateSelf();
+        return mGlyph;
     }
 
     @Override
     protected void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
-        mRectF.left = bounds.left + mBorder / 2f + 0.5f;
-        mRectF.right = bounds.right - mBorder / 2f;
-        mRectF.top = bounds.top + mBorder / 2f + 0.5f;
-        mRectF.bottom = bounds.bottom - mBorder / 2f;
-
-        initPathList(mRectF);
-        initPoints(mRectF);
+        layoutStroke(bounds);
+        if (mVectorAnimation != null) {
+            mVectorAnimation.setBounds(bounds);
+        }
     }
 
-    private void initPoints(RectF mRectF) {
-        final int inflectX = (int) (mCenterX - .12f * mRectF.width() / 2f + .5);
-        final int inflectY = (int) (mCenterY + .375f * mRectF.height() / 2f + .5);
-        mInflectionPoint.set(inflectX, inflectY);
-
-        final int startX = (int) (mCenterX - .8f * mRectF.width() / 2f);
-        final int startY = (int) (mCenterY - .39f * mRectF.height() / 2f);
-        mStartPoint.set(startX, startY);
-
-        final int stopX = (int) (mCenterX + .48f * mRectF.width() / 2f);
-        final int stopY = (int) (mCenterY - .29 * mRectF.height() / 2f);
-        mStopPoint.set(stopX, stopY);
-
-        mHookMaxLength = (int) (mRectF.width()* 7/12f);
-        mSuccessMaxLength = (int) (mRectF.width() * .8f);
+    /**
+     * Fits the arc and the glyph inside {@code bounds} for the current border.
+     */
+    private void layoutStroke(Rect bounds) {
+        final float border = mConstantState.mBorder;
+        mRectF.left = bounds.left + border / 2f + 0.5f;
+        mRectF.right = bounds.right - border / 2f;
+        mRectF.top = bounds.top + border / 2f + 0.5f;
+        mRectF.bottom = bounds.bottom - border / 2f;
+        invalidateDirtyBounds();
+
+        if (mGlyph != null) {
+            mGlyph.layout(bounds, border);
+        }
     }
 
     @Override
@@ -441,12 +516,40 @@ public class LoadingDrawable extends Drawable implements Animatable {
         if (isRunning()) {
             return;
         }
-        mPaint.setColor(mCurrentColor);
+        invalidateDirtyBounds();
+        if (mRenderThreadAnimation && !mDeterminate && mTicker == null && LoadingVectorAnimation.isSupported()
+                && mConstantState.isDefault()) {
+            startVectorAnimation();
+            return;
+        }
+        mVectorShown = false;
+        mPaint.setColor(mConstantState.mLoadingColor);
         isRunning = true;
-        isComplete = false;
         mState = LoadingState.LOADING;
-        mRotationAnimator.start();
-        mSweepAppearingAnimator.start();
+        mTargetState = LoadingFrameModel.STATE_LOADING;
+        mStartTime = -1;
+        mTransitionTime = -1;
+        mEvaluatedTime = -1;
+        mFinishNow = false;
+        mProgressShown = mDeterminate;
+        mProgressSweep = 0f;
+        mProgressTime = -1;
+        // the shared phases belong to the main thread
+        mPhase = mSynchronized && !mDeterminate && mTicker == null
+                ? LoadingPhase.obtain(mConstantState.mModel) : null;
+        mFrame.set(LoadingFrameModel.PHASE_APPEARING, mTargetState, 0f, 0f, mConstantState.mLoadingColor, 0f);
+        if (mMetrics != null) {
+            mMetrics.markIdle();
+        }
+        if (mTraceRecorder != null) {
+            mTraceRecorder.recordStart(AnimationUtils.currentAnimationTimeMillis());
+        }
+        final LoadingTicker ticker = getTicker();
+        ticker.mActiveCount++;
+        ticker.add(this);
+        if (!isVisible()) {
+            pause();
+        }
     }
 
     @Override
@@ -454,10 +557,184 @@ public class LoadingDrawable extends Drawable implements Animatable {
         if (!isRunning()) {
             return;
         }
-        mRotationAnimator.cancel();
-        mSweepAppearingAnimator.cancel();
-        mSweepDisappearingAnimator.cancel();
         isRunning = false;
+        if (mPhase != null) {
+            mPhase.release();
+            mPhase = null;
+        }
+        if (mVectorShown) {
+            mVectorAnimation.stop();
+            return;
+        }
+        final LoadingTicker ticker = getTicker();
+        if (mPaused) {
+            mPaused = false;
+            ticker.mPausedCount--;
+        } else {
+            ticker.mActiveCount--;
+        }
+        ticker.remove(this);
+        if (mTraceRecorder != null) {
+            mTraceRecorder.recordStop(AnimationUtils.currentAnimationTimeMillis());
+        }
+        if (mMetricsListener != null) {
+            mMetricsListener.onMetrics(this, mMetrics);
+            mMetrics.reset();
+        }
+    }
+
+    private void startVectorAnimation() {
+        if (mVectorAnimation == null) {
+            mVectorAnimation = new LoadingVectorAnimation(this, mConstantState.mContext, mConstantState.mModel);
+        }
+        isRunning = true;
+        mState = LoadingState.LOADING;
+        mVectorShown = true;
+        mVectorAnimation.start();
+    }
+
+    /**
+     * Returns the drawable to the state it had right after construction, so a
+     * {@link LoadingDrawablePool} can hand it out again. Every per-instance setting is
+     * reset too, the next row configures its own.
+     */
+    void recycle() {
+        stop();
+        setCallback(null);
+        setOnLoadingStateChangeListener(null);
+        setVisible(true, false);
+        setMetricsListener(null);
+        setCachedRendering(false);
+        mFrameRatePolicy = FrameRatePolicy.FULL;
+        mRenderThreadAnimation = false;
+        setQualityController(null);
+        setTraceRecorder(null);
+        mSynchronized = false;
+        mDeterminate = false;
+        mProgressShown = false;
+        mState = LoadingState.LOADING;
+        mTargetState = LoadingFrameModel.STATE_LOADING;
+        mFrame.set(LoadingFrameModel.PHASE_APPEARING, mTargetState, 0f, 0f, mConstantState.mLoadingColor, 0f);
+        // drawn before the next start, it must not show the previous row's arc or glyph
+        applyFrame();
+        mDrawnFrame.set(mFrame);
+        invalidateDirtyBounds();
+        if (mGlyph != null) {
+            mGlyph.reset();
+        }
+        mDirty = false;
+        mVectorShown = false;
+        // volatile writes are not free, pooled drawables are recycled often
+        if (mProgressBits != 0) {
+            mProgressBits = 0;
+        }
+        if (mPendingTransition != NO_PENDING_TRANSITION) {
+            mPendingTransition = NO_PENDING_TRANSITION;
+        }
+        if (mApplyPendingTransition != null) {
+            getOwnerHandler().removeCallbacks(mApplyPendingTransition);
+        }
+    }
+
+    /**
+     * Stops advancing the animation without losing its phase. Called when the drawable
+     * becomes invisible or the ticker finds its callback gone.
+     */
+    void pause() {
+        if (!isRunning || mPaused) {
+            return;
+        }
+        mPaused = true;
+        mPauseTime = AnimationUtils.currentAnimationTimeMillis();
+        if (mTraceRecorder != null) {
+            mTraceRecorder.recordPause(mPauseTime);
+        }
+        final LoadingTicker ticker = getTicker();
+        ticker.mActiveCount--;
+        ticker.mPausedCount++;
+        ticker.remove(this);
+        if (mMetrics != null) {
+            mMetrics.markIdle();
+        }
+    }
+
+    /**
+     * Continues from the phase the animation was paused at by shifting its timeline
+     * past the paused interval.
+     */
+    void resume() {
+        if (!mPaused) {
+            return;
+        }
+        mPaused = false;
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+        final long pausedFor = now - mPauseTime;
+        if (mTraceRecorder != null) {
+            mTraceRecorder.recordResume(now);
+        }
+        // a synchronized spinner stays in step with the shared phase, which kept going
+        if (mPhase == null || mTransitionTime >= 0) {
+            if (mStartTime >= 0) {
+                mStartTime += pausedFor;
+            }
+            if (mTransitionTime >= 0) {
+                mTransitionTime += pausedFor;
+            }
+        }
+        final LoadingTicker ticker = getTicker();
+        ticker.mPausedCount--;
+        ticker.mActiveCount++;
+        ticker.add(this);
+    }
+
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * Number of running drawables currently animating on the main thread.
+     */
+    public static int getActiveInstanceCount() {
+        return LoadingTicker.getInstance().mActiveCount;
+    }
+
+    /**
+     * Number of running drawables on the main thread paused because they are invisible
+     * or detached.
+     */
+    public static int getPausedInstanceCount() {
+        return LoadingTicker.getInstance().mPausedCount;
+    }
+
+    private LoadingTicker getTicker() {
+        return mTicker != null ? mTicker : LoadingTicker.getInstance();
+    }
+
+    /**
+     * Moves the drawable to the thread of {@code ticker}, which from then on animates it
+     * and applies its state requests, see {@link LoadingRenderThread}. Must be called
+     * while the drawable is stopped.
+     */
+    void setTicker(LoadingTicker ticker) {
+        if (isRunning) {
+            throw new IllegalStateException("Cannot move a running drawable to another thread");
+        }
+        mTicker = ticker;
+        updateAtlasRenderer();
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        invalidateDirtyBounds();
+        final boolean changed = super.setVisible(visible, restart);
+        if (mVectorShown) {
+            mVectorAnimation.setVisible(visible);
+        } else if (!visible) {
+            pause();
+        } else if (getCallback() != null) {
+            resume();
+        }
+        return changed;
     }
 
     @Override
@@ -467,34 +744,292 @@ public class LoadingDrawable extends Drawable implements Animatable {
 
     @Override
     public void draw(Canvas canvas) {
+        if (mVectorShown) {
+            mVectorAnimation.draw(canvas);
+            return;
+        }
+        if (mPaused && isVisible()) {
+            // paused by the ticker while detached, resume now that we are drawn again
+            resume();
+        }
+        if (mMetrics == null) {
+            drawFrame(canvas);
+        } else {
+            final long start = System.nanoTime();
+            drawFrame(canvas);
+            mMetrics.recordDraw(System.nanoTime() - start);
+        }
+    }
+
+    private void drawFrame(Canvas canvas) {
+        mDrawnFrame.set(mFrame);
+        if (mDirtyRegion != null) {
+            mDirtyRegion.onDraw();
+        }
         float startAngle = mCurrentRotationAngle;
         float sweepAngle = mCurrentSweepAngle;
         startAngle %= 360;
+        if (isCachedRenderingActive() && drawCached(canvas, startAngle, sweepAngle)) {
+            return;
+        }
         canvas.drawArc(mRectF, startAngle, sweepAngle, false, mPaint);
-        switch (mState) {
-            case ERROR: {
-                if (isComplete) {
-                    drawErrorPaths(canvas);
-                }
+        drawGlyph(canvas);
+    }
+
+    private void drawGlyph(Canvas canvas) {
+        if (mFrame.isGlyphVisible()) {
+            if (mFrame.getState() == LoadingFrameModel.STATE_ERROR) {
+                getGlyph().drawError(canvas, mPaint);
+            } else {
+                getGlyph().drawSuccess(canvas, mPaint);
             }
-            break;
-            case SUCCESS:{
-                if (isComplete){
-                    drawSuccessPath(canvas);
-                }
+        }
+    }
+
+    /**
+     * Blits the frame from the shared atlas. The finished glyph comes from the atlas too,
+     * a glyph still animating is drawn on top of the cached full circle.
+     */
+    private boolean drawCached(Canvas canvas, float startAngle, float sweepAngle) {
+        final Rect bounds = getBounds();
+        if (bounds.isEmpty()) {
+            return false;
+        }
+        final float border = mConstantState.mBorder;
+        if (mAtlas == null || !mAtlas.getKey().matches(bounds.width(), bounds.height(), border)) {
+            mAtlas = LoadingAtlasCache.obtain(bounds.width(), bounds.height(), border);
+            if (mAtlas == null) {
+                return false;
             }
         }
+        mAtlasPaint.setColor(mPaint.getColor());
+        if (mFrame.isFinished() && mFrame.isGlyphVisible()) {
+            final int cell = mFrame.getState() == LoadingFrameModel.STATE_ERROR
+                    ? LoadingFrameAtlas.CELL_ERROR : LoadingFrameAtlas.CELL_SUCCESS;
+            mAtlas.drawGlyph(canvas, bounds, cell, mAtlasPaint, mAtlasRenderer);
+            return true;
+        }
+        mAtlas.drawArc(canvas, bounds, startAngle, sweepAngle, mAtlasPaint, mAtlasRenderer);
+        drawGlyph(canvas);
+        return true;
+    }
+
+    /**
+     * Enables drawing from a pre-rendered frame atlas shared by every cached drawable with
+     * the same size and border, see {@link LoadingAtlasCache}. Trades a little sweep
+     * precision for skipping the anti-aliased arc stroke on every frame. Drawables too
+     * large for the cache budget keep drawing directly, as do drawables a
+     * {@link LoadingRenderThread} draws: the shared atlases are rendered into without
+     * locking, so only from the main thread.
+     */
+    public void setCachedRendering(boolean cachedRendering) {
+        if (mCachedRendering == cachedRendering) {
+            return;
+        }
+        mCachedRendering = cachedRendering;
+        updateAtlasRenderer();
+        markDirty();
+    }
+
+    private boolean isCachedRenderingActive() {
+        return (mCachedRendering || mQualityTier >= LoadingQualityController.TIER_CACHED) && mTicker == null;
+    }
+
+    private void updateAtlasRenderer() {
+        if (!isCachedRenderingActive()) {
+            mAtlas = null;
+        } else if (mAtlasRenderer == null) {
+            mAtlasPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            mAtlasRenderer = new AtlasRenderer();
+        }
+    }
+
+    /**
+     * Lets {@code controller} lower the rendering quality while the app misses frames, see
+     * {@link LoadingQualityController}. It can be shared by many drawables. Null restores
+     * full quality.
+     */
+    public void setQualityController(LoadingQualityController controller) {
+        mQualityController = controller;
+        final int tier = controller != null ? controller.getTier() : LoadingQualityController.TIER_FULL;
+        if (tier != mQualityTier) {
+            applyQualityTier(tier);
+        }
+    }
 
+    public LoadingQualityController getQualityController() {
+        return mQualityController;
     }
 
-    private void drawErrorPaths(Canvas canvas) {
-        for (Path p : mErrorPathList) {
-            canvas.drawPath(p, mPaint);
+    /**
+     * Records every start, stop, pause, resume, applied state request and evaluated frame
+     * into {@code recorder}, which starts a new trace, see {@link LoadingTraceRecorder}.
+     * Null stops recording. Traces of the render thread animation hold no frames.
+     */
+    public void setTraceRecorder(LoadingTraceRecorder recorder) {
+        mTraceRecorder = recorder;
+        if (recorder != null) {
+            recorder.begin(AnimationUtils.currentAnimationTimeMillis(), mConstantState.mModel,
+                    mConstantState.mBorder);
         }
     }
 
-    private void drawSuccessPath(Canvas canvas){
-        canvas.drawPath(mSuccessPath,mPaint);
+    public LoadingTraceRecorder getTraceRecorder() {
+        return mTraceRecorder;
+    }
+
+    private void applyQualityTier(int tier) {
+        mQualityTier = tier;
+        mPaint.setStrokeCap(tier >= LoadingQualityController.TIER_BUTT_CAPS ? Paint.Cap.BUTT : Paint.Cap.ROUND);
+        mPaint.setAntiAlias(tier < LoadingQualityController.TIER_NO_ANTIALIAS);
+        updateAtlasRenderer();
+        // evaluate the next frame even if the reduced rate would hold this one
+        mEvaluatedTime = -1;
+        markDirty();
+    }
+
+    public boolean isCachedRendering() {
+        return mCachedRendering;
+    }
+
+    /**
+     * Starts collecting {@link LoadingMetrics}, reported to {@code listener} each time the
+     * drawable stops. Pass null to stop collecting; costs nothing while unset.
+     */
+    public void setMetricsListener(LoadingMetrics.Listener listener) {
+        mMetricsListener = listener;
+        if (listener == null) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new LoadingMetrics();
+        }
+    }
+
+    /**
+     * Metrics collected since the last report, null unless a listener is set.
+     */
+    public LoadingMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Limits how often the animation advances, {@link FrameRatePolicy#FULL} by default.
+     */
+    public void setFrameRatePolicy(FrameRatePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy == null");
+        }
+        mFrameRatePolicy = policy;
+    }
+
+    public FrameRatePolicy getFrameRatePolicy() {
+        return mFrameRatePolicy;
+    }
+
+    /**
+     * Switches between the indeterminate spinner and an arc that follows
+     * {@link #setProgress(float)}. SUCCESS and ERROR close the arc from its current
+     * progress. Takes effect on the next {@link #start()}.
+     */
+    public void setDeterminate(boolean determinate) {
+        mDeterminate = determinate;
+    }
+
+    public boolean isDeterminate() {
+        return mDeterminate;
+    }
+
+    /**
+     * Sets the progress shown in determinate mode, clamped to [0, 1]. Lock-free and safe
+     * to call from any thread as often as progress is known: the arc eases toward the
+     * latest value on the next frame.
+     */
+    public void setProgress(float progress) {
+        if (Float.isNaN(progress)) {
+            progress = 0f;
+        }
+        mProgressBits = Float.floatToIntBits(Math.max(0f, Math.min(1f, progress)));
+    }
+
+    public float getProgress() {
+        return Float.intBitsToFloat(mProgressBits);
+    }
+
+    /**
+     * Spins in phase with every other synchronized drawable of the same configuration,
+     * sharing one frame computation per vsync with them while loading; see
+     * {@link LoadingPhase}. A drawable started or resumed later jumps to the shared phase
+     * rather than growing its arc from zero. Takes effect on the next {@link #start()}.
+     */
+    public void setSynchronized(boolean synchronize) {
+        mSynchronized = synchronize;
+    }
+
+    public boolean isSynchronized() {
+        return mSynchronized;
+    }
+
+    /**
+     * On API 25+ plays the animation as animated vectors the render thread drives on its
+     * own, so it keeps running while the main thread is busy. Takes effect on the next
+     * {@link #start()}, and only with the default border, sweep angles, colors and
+     * duration the vectors were generated from; otherwise, and on older releases, the
+     * drawable animates as usual. The stroke scales with the bounds in this mode.
+     */
+    public void setRenderThreadAnimationEnabled(boolean enabled) {
+        mRenderThreadAnimation = enabled;
+    }
+
+    public boolean isRenderThreadAnimationEnabled() {
+        return mRenderThreadAnimation;
+    }
+
+    /**
+     * Whether the current run is played by the render thread.
+     */
+    public boolean isRenderThreadAnimationActive() {
+        return isRunning && mVectorShown;
+    }
+
+    /**
+     * Renders atlas cells, which every drawable of the same size and border shares, so
+     * always at full quality whatever tier this drawable is at.
+     */
+    private class AtlasRenderer implements LoadingFrameAtlas.Renderer {
+
+        private final Paint mMaskPaint = new Paint();
+
+        AtlasRenderer() {
+            mMaskPaint.setAntiAlias(true);
+            mMaskPaint.setStyle(Paint.Style.STROKE);
+            mMaskPaint.setStrokeCap(Paint.Cap.ROUND);
+            mMaskPaint.setColor(0xFF000000);
+        }
+
+        @Override
+        public void renderArc(Canvas canvas, float sweep) {
+            begin(canvas);
+            canvas.drawArc(mRectF, 0, sweep, false, mMaskPaint);
+        }
+
+        @Override
+        public void renderGlyph(Canvas canvas, int state) {
+            begin(canvas);
+            canvas.drawArc(mRectF, 0, 360, false, mMaskPaint);
+            if (state == LoadingFrameModel.STATE_ERROR) {
+                updateError(1f);
+                getGlyph().drawError(canvas, mMaskPaint);
+            } else {
+                updateSuccess(1f);
+                getGlyph().drawSuccess(canvas, mMaskPaint);
+            }
+        }
+
+        private void begin(Canvas canvas) {
+            final Rect bounds = getBounds();
+            canvas.translate(-bounds.left, -bounds.top);
+            mMaskPaint.setStrokeWidth(mConstantState.mBorder);
+        }
     }
 
     @Override
@@ -513,37 +1048,196 @@ public class LoadingDrawable extends Drawable implements Animatable {
     }
 
     public float getBorder() {
-        return mBorder;
+        return mConstantState.mBorder;
     }
 
+    /**
+     * Mutates the drawable first, so drawables sharing its configuration keep theirs.
+     */
     public void setBorder(float border) {
-        this.mBorder = border;
+        mutate();
+        mConstantState.mBorder = border;
+        mPaint.setStrokeWidth(border);
+        layoutStroke(getBounds());
+        markDirty();
     }
 
     public LoadingState getLoadingState(){
         return mState;
     }
     public void setLoadingState(LoadingState state) {
+        setLoadingState(state, TRANSITION_ANIMATE);
+    }
+
+    /**
+     * Requests a state, from any thread. On the main thread, or the thread of the
+     * {@link LoadingRenderThread} drawing it, it applies right away, otherwise it is
+     * queued and applied on the next frame; a newer request replaces a queued one, so
+     * only the latest state of a burst is applied. Once the completion of SUCCESS or
+     * ERROR has started the state is locked until the drawable restarts.
+     *
+     * @param mode one of {@link #TRANSITION_ANIMATE}, {@link #TRANSITION_FINISH_NOW} and
+     *             {@link #TRANSITION_SKIP}; the render thread animation always animates
+     */
+    public void setLoadingState(LoadingState state, int mode) {
+        if (state == null) {
+            throw new IllegalArgumentException("state == null");
+        }
+        checkTransitionMode(mode);
+        if (Looper.myLooper() == (mTicker != null ? mTicker.getLooper() : Looper.getMainLooper())) {
+            mPendingTransition = NO_PENDING_TRANSITION;
+            applyTransition(state, mode);
+            return;
+        }
+        if (PENDING_TRANSITION.getAndSet(this, packTransition(state, mode)) == NO_PENDING_TRANSITION) {
+            Runnable apply = mApplyPendingTransition;
+            if (apply == null) {
+                apply = new Runnable() {
+                    @Override
+                    public void run() {
+                        applyPendingTransition();
+                    }
+                };
+                mApplyPendingTransition = apply;
+            }
+            getOwnerHandler().post(apply);
+        }
+    }
+
+    /**
+     * Reports every applied transition, see {@link OnLoadingStateChangeListener}.
+     */
+    public void setOnLoadingStateChangeListener(OnLoadingStateChangeListener listener) {
+        mStateListener = listener;
+    }
+
+    public OnLoadingStateChangeListener getOnLoadingStateChangeListener() {
+        return mStateListener;
+    }
+
+    private Handler getOwnerHandler() {
+        return mTicker != null ? mTicker.getHandler() : getMainHandler();
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    /**
+     * Modes are packed next to the state, anything else would corrupt it.
+     */
+    static void checkTransitionMode(int mode) {
+        if (mode != TRANSITION_ANIMATE && mode != TRANSITION_FINISH_NOW && mode != TRANSITION_SKIP) {
+            throw new IllegalArgumentException("Unknown transition mode: " + mode);
+        }
+    }
+
+    private static int packTransition(LoadingState state, int mode) {
+        return (mode << 2) | state.ordinal();
+    }
+
+    private void applyPendingTransition() {
+        final int pending = PENDING_TRANSITION.getAndSet(this, NO_PENDING_TRANSITION);
+        if (pending != NO_PENDING_TRANSITION) {
+            applyTransition(LoadingState.values()[pending & 3], pending >> 2);
+        }
+    }
+
+    private void applyTransition(LoadingState state, int mode) {
+        if (mTraceRecorder != null) {
+            // recorded even when locked out, a replay makes the same request
+            mTraceRecorder.recordState(AnimationUtils.currentAnimationTimeMillis(), state, mode);
+        }
+        if (isRunning && !mVectorShown && mFrame.getPhase() >= LoadingFrameModel.PHASE_COMPLETE) {
+            // the completion sweep already committed to a state
+            return;
+        }
+        final LoadingState previous = mState;
         mState = state;
+        final int target = toModelState(state);
+        if (mVectorShown) {
+            if (isRunning) {
+                mVectorAnimation.setState(target);
+            }
+        } else if (mode == TRANSITION_SKIP && target != LoadingFrameModel.STATE_LOADING) {
+            showFinished(target);
+        } else if (isRunning) {
+            mTargetState = target;
+            mEvaluatedTime = -1;
+            if (target == LoadingFrameModel.STATE_LOADING) {
+                mTransitionTime = -1;
+                mFinishNow = false;
+                if (mPhase != null) {
+                    // back to the shared phase, which a pause during the request may have left
+                    mStartTime = -1;
+                }
+            } else if (mode == TRANSITION_FINISH_NOW && !mProgressShown && mStartTime >= 0) {
+                // close from the sweep on screen, the paused animation is frozen at the pause time
+                mTransitionTime = mPaused ? mPauseTime : AnimationUtils.currentAnimationTimeMillis();
+                mImmediateSweep = mFrame.getSweep();
+                mFinishNow = true;
+            } else if (mTransitionTime < 0) {
+                mTransitionTime = mPaused ? mPauseTime : AnimationUtils.currentAnimationTimeMillis();
+            }
+        }
+        if (mStateListener != null) {
+            mStateListener.onLoadingStateChanged(this, previous, state, mode);
+        }
+    }
+
+    /**
+     * Shows the closed circle and glyph of {@code target} at once and stops.
+     */
+    private void showFinished(int target) {
+        mTargetState = target;
+        mFrame.set(LoadingFrameModel.PHASE_FINISHED, target, mFrame.getRotation(), 360f,
+                mConstantState.mModel.getStateColor(target), 1f);
+        applyFrame();
+        stop();
+        markDirty();
+    }
+
+    static int toModelState(LoadingState state) {
+        switch (state) {
+            case ERROR:
+                return LoadingFrameModel.STATE_ERROR;
+            case SUCCESS:
+                return LoadingFrameModel.STATE_SUCCESS;
+            default:
+                return LoadingFrameModel.STATE_LOADING;
+        }
     }
 
     public float getMaxSweepAngle() {
-        return mMaxSweepAngle;
+        return mConstantState.mMaxSweepAngle;
     }
 
+    /**
+     * Mutates the drawable first, so drawables sharing its configuration keep theirs.
+     */
     public void setmMaxSweepAngle(float maxSweepAngle) {
-        this.mMaxSweepAngle = maxSweepAngle;
+        mutate();
+        mConstantState.mMaxSweepAngle = maxSweepAngle;
+        setupAnimations();
     }
 
     public float getMinSweepAngle() {
-        return mMinSweepAngle;
+        return mConstantState.mMinSweepAngle;
     }
 
+    /**
+     * Mutates the drawable first, so drawables sharing its configuration keep theirs.
+     */
     public void setMinSweepAngle(float minSweepAngle) {
-        this.mMinSweepAngle = minSweepAngle;
+        mutate();
+        mConstantState.mMinSweepAngle = minSweepAngle;
+        setupAnimations();
     }
 
-    public float dip2px(Context context,float dpValue){
+    public static float dip2px(Context context,float dpValue){
         float density = context.getResources().getDisplayMetrics().density;
         return dpValue * density + 0.5f;
     }
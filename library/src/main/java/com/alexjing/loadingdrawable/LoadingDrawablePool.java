@@ -0,0 +1,69 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Bounded pool of {@link LoadingDrawable}s sharing the configuration of a template, for
+ * list rows that bind and unbind a spinner many times per scroll.
+ * <p>
+ * {@link #obtain()} hands out a stopped drawable without a callback,
+ * {@link #release(LoadingDrawable)} stops it and keeps it for the next row unless the
+ * pool is full. Drawables that were {@link Drawable#mutate() mutated} no longer share the
+ * template configuration and are not taken back.
+ * <p>
+ * Must only be used from the main thread.
+ */
+public final class LoadingDrawablePool {
+
+    private final Drawable.ConstantState mState;
+    private final LoadingDrawable[] mPool;
+    private int mSize;
+
+    public LoadingDrawablePool(LoadingDrawable template, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        mState = template.getConstantState();
+        mPool = new LoadingDrawable[maxSize];
+    }
+
+    public LoadingDrawable obtain() {
+        if (mSize > 0) {
+            final LoadingDrawable drawable = mPool[--mSize];
+            mPool[mSize] = null;
+            return drawable;
+        }
+        return (LoadingDrawable) mState.newDrawable();
+    }
+
+    /**
+     * @return whether the drawable was kept for reuse
+     */
+    public boolean release(LoadingDrawable drawable) {
+        drawable.recycle();
+        if (mSize == mPool.length || drawable.getConstantState() != mState) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (mPool[i] == drawable) {
+                return false;
+            }
+        }
+        mPool[mSize++] = drawable;
+        return true;
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getMaxSize() {
+        return mPool.length;
+    }
+
+    public void clear() {
+        while (mSize > 0) {
+            mPool[--mSize] = null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * One evaluated frame of the loading animation, filled in by {@link LoadingFrameModel}.
+ * <p>
+ * Instances are mutable and meant to be reused across frames.
+ */
+public final class LoadingFrame {
+
+    private int mPhase;
+    private int mState;
+    private float mRotation;
+    private float mSweep;
+    private int mColor;
+    private float mGlyphProgress;
+
+    void set(int phase, int state, float rotation, float sweep, int color, float glyphProgress) {
+        mPhase = phase;
+        mState = state;
+        mRotation = rotation;
+        mSweep = sweep;
+        mColor = color;
+        mGlyphProgress = glyphProgress;
+    }
+
+    public void set(LoadingFrame other) {
+        set(other.mPhase, other.mState, other.mRotation, other.mSweep, other.mColor, other.mGlyphProgress);
+    }
+
+    /**
+     * One of the {@code LoadingFrameModel.PHASE_*} constants.
+     */
+    public int getPhase() {
+        return mPhase;
+    }
+
+    /**
+     * One of the {@code LoadingFrameModel.STATE_*} constants.
+     */
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * Start angle of the arc in degrees, in [0, 360).
+     */
+    public float getRotation() {
+        return mRotation;
+    }
+
+    public float getSweep() {
+        return mSweep;
+    }
+
+    public int getColor() {
+        return mColor;
+    }
+
+    /**
+     * Interpolated progress of the error cross or success hook, 0 until the glyph phase.
+     * May overshoot 1 while the glyph is animating.
+     */
+    public float getGlyphProgress() {
+        return mGlyphProgress;
+    }
+
+    public boolean isGlyphVisible() {
+        return mPhase >= LoadingFrameModel.PHASE_GLYPH && mState != LoadingFrameModel.STATE_LOADING;
+    }
+
+    public boolean isFinished() {
+        return mPhase == LoadingFrameModel.PHASE_FINISHED;
+    }
+
+    public boolean sameAs(LoadingFrame other) {
+        return mPhase == other.mPhase
+                && mState == other.mState
+                && mRotation == other.mRotation
+                && mSweep == other.mSweep
+                && mColor == other.mColor
+                && mGlyphProgress == other.mGlyphProgress;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadingFrame{phase=" + mPhase + ", state=" + mState + ", rotation=" + mRotation
+                + ", sweep=" + mSweep + ", color=#" + Integer.toHexString(mColor)
+                + ", glyph=" + mGlyphProgress + "}";
+    }
+}
@@ -0,0 +1,161 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Pre-rasterized frames for one (width, height, border) combination.
+ * <p>
+ * Frames are stored as an {@link Bitmap.Config#ALPHA_8} mask and tinted by the paint
+ * color when blitted, so color does not need to be part of the key. Arc frames are
+ * indexed by sweep only, drawn at a start angle of 0, and rotated into place at blit
+ * time, so one set of cells covers every rotation and any sweep range. Two more cells
+ * hold the finished error and success glyphs.
+ * <p>
+ * Cells are rendered the first time they are needed. Atlases are shared and not locked,
+ * so they are only drawn from the main thread.
+ */
+final class LoadingFrameAtlas {
+
+    static final float SWEEP_STEP = 4f;
+    static final int SWEEP_CELLS = (int) (360 / SWEEP_STEP) + 1;
+    static final int CELL_ERROR = SWEEP_CELLS;
+    static final int CELL_SUCCESS = SWEEP_CELLS + 1;
+    static final int CELL_COUNT = SWEEP_CELLS + 2;
+
+    private static final int COLUMNS = 10;
+    private static final int ROWS = (CELL_COUNT + COLUMNS - 1) / COLUMNS;
+
+    /**
+     * Renders cell contents relative to the top left of the drawable bounds.
+     */
+    interface Renderer {
+        void renderArc(Canvas canvas, float sweep);
+
+        void renderGlyph(Canvas canvas, int state);
+    }
+
+    private final Key mKey;
+    private final Bitmap mBitmap;
+    private final Canvas mCanvas;
+    private final boolean[] mRendered = new boolean[CELL_COUNT];
+    private final Rect mSrc = new Rect();
+
+    LoadingFrameAtlas(Key key) {
+        mKey = key;
+        mBitmap = Bitmap.createBitmap(key.mWidth * COLUMNS, key.mHeight * ROWS, Bitmap.Config.ALPHA_8);
+        mCanvas = new Canvas(mBitmap);
+    }
+
+    /**
+     * Bytes of the atlas of drawables sized {@code width} x {@code height}, before it is
+     * allocated.
+     */
+    static long getByteCount(int width, int height) {
+        return (long) width * COLUMNS * height * ROWS;
+    }
+
+    Key getKey() {
+        return mKey;
+    }
+
+    int getByteCount() {
+        return mBitmap.getRowBytes() * mBitmap.getHeight();
+    }
+
+    static int sweepCell(float sweep) {
+        final int cell = Math.round(sweep / SWEEP_STEP);
+        return Math.max(0, Math.min(SWEEP_CELLS - 1, cell));
+    }
+
+    /**
+     * Blits the arc cell closest to {@code sweep}, rotated by {@code rotation} degrees
+     * around the center of {@code bounds}.
+     */
+    void drawArc(Canvas canvas, Rect bounds, float rotation, float sweep, Paint paint, Renderer renderer) {
+        final int cell = sweepCell(sweep);
+        ensureCell(cell, renderer);
+        final int save = canvas.save();
+        canvas.rotate(rotation, bounds.exactCenterX(), bounds.exactCenterY());
+        canvas.drawBitmap(mBitmap, cellRect(cell), bounds, paint);
+        canvas.restoreToCount(save);
+    }
+
+    /**
+     * Blits a finished glyph, {@link #CELL_ERROR} or {@link #CELL_SUCCESS}.
+     */
+    void drawGlyph(Canvas canvas, Rect bounds, int cell, Paint paint, Renderer renderer) {
+        ensureCell(cell, renderer);
+        canvas.drawBitmap(mBitmap, cellRect(cell), bounds, paint);
+    }
+
+    private void ensureCell(int cell, Renderer renderer) {
+        if (mRendered[cell]) {
+            return;
+        }
+        final Rect rect = cellRect(cell);
+        final int save = mCanvas.save();
+        mCanvas.clipRect(rect);
+        mCanvas.translate(rect.left, rect.top);
+        if (cell < SWEEP_CELLS) {
+            renderer.renderArc(mCanvas, cell * SWEEP_STEP);
+        } else {
+            renderer.renderGlyph(mCanvas, cell == CELL_ERROR
+                    ? LoadingFrameModel.STATE_ERROR : LoadingFrameModel.STATE_SUCCESS);
+        }
+        mCanvas.restoreToCount(save);
+        mRendered[cell] = true;
+    }
+
+    private Rect cellRect(int cell) {
+        final int left = (cell % COLUMNS) * mKey.mWidth;
+        final int top = (cell / COLUMNS) * mKey.mHeight;
+        mSrc.set(left, top, left + mKey.mWidth, top + mKey.mHeight);
+        return mSrc;
+    }
+
+    /**
+     * Only lookup probes are changed after construction, never a key stored in a cache.
+     */
+    static final class Key {
+        int mWidth;
+        int mHeight;
+        float mBorder;
+
+        Key(int width, int height, float border) {
+            set(width, height, border);
+        }
+
+        void set(int width, int height, float border) {
+            mWidth = width;
+            mHeight = height;
+            mBorder = border;
+        }
+
+        boolean matches(int width, int height, float border) {
+            return mWidth == width && mHeight == height && mBorder == border;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return matches(key.mWidth, key.mHeight, key.mBorder);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + Float.floatToIntBits(mBorder);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * Stateless description of the loading animation.
+ * <p>
+ * Maps the time elapsed since {@link LoadingDrawable#start()} and the time at which a
+ * terminal state was requested to a {@link LoadingFrame}. There is no hidden state, so
+ * any timestamp can be evaluated directly, e.g. after a long pause. The timeline is:
+ * <ul>
+ * <li>the arc grows from 0 to the max sweep for one duration,</li>
+ * <li>then alternately shrinks to the min sweep and grows back, one duration each,</li>
+ * <li>at the end of the first growth after a terminal state was requested the arc closes
+ * to a full circle while blending to the state color, for one duration,</li>
+ * <li>then the cross or hook is drawn for half a duration and the animation finishes.</li>
+ * </ul>
+ * The rotation restarts every duration for as long as the animation runs.
+ * <p>
+ * Frames are evaluated through the lookup tables of {@link LoadingCurves}; the static
+ * curves here are the exact reference they are built from.
+ * <p>
+ * Has no Android dependencies so it can be evaluated on a plain JVM.
+ */
+public final class LoadingFrameModel {
+
+    public static final int PHASE_APPEARING = 0;
+    public static final int PHASE_DISAPPEARING = 1;
+    public static final int PHASE_COMPLETE = 2;
+    public static final int PHASE_GLYPH = 3;
+    public static final int PHASE_FINISHED = 4;
+
+    public static final int STATE_LOADING = 0;
+    public static final int STATE_ERROR = 1;
+    public static final int STATE_SUCCESS = 2;
+
+    /**
+     * Transition time meaning no terminal state has been requested.
+     */
+    public static final long NO_TRANSITION = -1;
+
+    /**
+     * Determinate arcs start at the top.
+     */
+    public static final float PROGRESS_ROTATION = 270f;
+
+    /**
+     * Displayed progress closer than this many degrees to its target snaps to it.
+     */
+    private static final float PROGRESS_SNAP = 0.5f;
+
+    private static final float OVERSHOOT_TENSION = 2f;
+
+    /**
+     * Input at which {@link #overshoot} reaches 1, it stays above 1 from there to the end.
+     */
+    static final float OVERSHOOT_END_INPUT = 1f / (OVERSHOOT_TENSION + 1);
+
+    private final long mDuration;
+    private final long mGlyphDuration;
+    private final float mMinSweepAngle;
+    private final float mMaxSweepAngle;
+    private final int mLoadingColor;
+    private final int mErrorColor;
+    private final int mSuccessColor;
+
+    /**
+     * Completion color ramps. Built up front and never written again, as models are
+     * shared by drawables animating on different threads.
+     */
+    private final int[] mErrorRamp;
+    private final int[] mSuccessRamp;
+
+    public LoadingFrameModel(long duration, float minSweepAngle, float maxSweepAngle,
+                             int loadingColor, int errorColor, int successColor) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        mDuration = duration;
+        mGlyphDuration = Math.max(1, duration / 2);
+        mMinSweepAngle = minSweepAngle;
+        mMaxSweepAngle = maxSweepAngle;
+        mLoadingColor = loadingColor;
+        mErrorColor = errorColor;
+        mSuccessColor = successColor;
+        mErrorRamp = LoadingCurves.colorRamp(loadingColor, errorColor);
+        mSuccessRamp = LoadingCurves.colorRamp(loadingColor, successColor);
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public long getGlyphDuration() {
+        return mGlyphDuration;
+    }
+
+    public float getMinSweepAngle() {
+        return mMinSweepAngle;
+    }
+
+    public float getMaxSweepAngle() {
+        return mMaxSweepAngle;
+    }
+
+    public int getLoadingColor() {
+        return mLoadingColor;
+    }
+
+    public int getErrorColor() {
+        return mErrorColor;
+    }
+
+    public int getSuccessColor() {
+        return mSuccessColor;
+    }
+
+    public int getStateColor(int state) {
+        switch (state) {
+            case STATE_ERROR:
+                return mErrorColor;
+            case STATE_SUCCESS:
+                return mSuccessColor;
+            default:
+                return mLoadingColor;
+        }
+    }
+
+    /**
+     * Elapsed time at which the completion sweep starts when a terminal state was
+     * requested at {@code transitionTime}: the end of the next growing sweep.
+     */
+    public long getCompleteStartTime(long transitionTime) {
+        if (transitionTime <= mDuration) {
+            return mDuration;
+        }
+        final long period = 2 * mDuration;
+        final long cycles = (transitionTime - mDuration + period - 1) / period;
+        return mDuration + cycles * period;
+    }
+
+    /**
+     * Elapsed time at which the animation finishes for a transition requested at
+     * {@code transitionTime}.
+     */
+    public long getFinishTime(long transitionTime) {
+        return getCompleteStartTime(transitionTime) + mDuration + mGlyphDuration;
+    }
+
+    /**
+     * Models with the same configuration produce the same frames.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LoadingFrameModel)) {
+            return false;
+        }
+        final LoadingFrameModel other = (LoadingFrameModel) o;
+        return mDuration == other.mDuration
+                && Float.compare(mMinSweepAngle, other.mMinSweepAngle) == 0
+                && Float.compare(mMaxSweepAngle, other.mMaxSweepAngle) == 0
+                && mLoadingColor == other.mLoadingColor
+                && mErrorColor == other.mErrorColor
+                && mSuccessColor == other.mSuccessColor;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (mDuration ^ (mDuration >>> 32));
+        result = 31 * result + Float.floatToIntBits(mMinSweepAngle);
+        result = 31 * result + Float.floatToIntBits(mMaxSweepAngle);
+        result = 31 * result + mLoadingColor;
+        result = 31 * result + mErrorColor;
+        result = 31 * result + mSuccessColor;
+        return result;
+    }
+
+    /**
+     * Evaluates the frame at {@code time} ms after start.
+     *
+     * @param state          target state, one of the {@code STATE_*} constants
+     * @param transitionTime elapsed time at which {@code state} was requested, or
+     *                       {@link #NO_TRANSITION}; ignored for {@link #STATE_LOADING}
+     * @param out            receives the frame
+     */
+    public void evaluate(long time, int state, long transitionTime, LoadingFrame out) {
+        if (time < 0) {
+            time = 0;
+        }
+        if (state == STATE_LOADING || transitionTime == NO_TRANSITION) {
+            evaluateSpin(time, STATE_LOADING, out);
+            return;
+        }
+        final long completeStart = getCompleteStartTime(Math.max(0, transitionTime));
+        if (time < completeStart) {
+            evaluateSpin(time, state, out);
+            return;
+        }
+        evaluateCompletion(time, state, completeStart, mMaxSweepAngle, true, out);
+    }
+
+    /**
+     * Evaluates a spinner asked to finish right away rather than at the end of its next
+     * growth: from {@code completeStart} the arc closes from {@code fromSweep}, the sweep
+     * it had then, and the glyph follows as usual.
+     */
+    public void evaluateCompletion(long time, int state, long completeStart, float fromSweep, LoadingFrame out) {
+        evaluateCompletion(Math.max(time, completeStart), state, completeStart, fromSweep, true, out);
+    }
+
+    /**
+     * Evaluates a determinate frame: an arc from the top covering {@code sweep} degrees
+     * until {@code completeStart}, from where it closes and draws the glyph like the
+     * spinner does, starting from {@code sweep}.
+     *
+     * @param time          elapsed time, only used once completing
+     * @param sweep         the displayed progress in degrees, see {@link #stepProgress}
+     * @param state         target state, one of the {@code STATE_*} constants
+     * @param completeStart elapsed time at which {@code state} was requested, or
+     *                      {@link #NO_TRANSITION}; ignored for {@link #STATE_LOADING}
+     */
+    public void evaluateProgress(long time, float sweep, int state, long completeStart, LoadingFrame out) {
+        if (state == STATE_LOADING || completeStart == NO_TRANSITION || time < completeStart) {
+            out.set(PHASE_APPEARING, state, PROGRESS_ROTATION, sweep, mLoadingColor, 0f);
+            return;
+        }
+        evaluateCompletion(time, state, completeStart, sweep, false, out);
+    }
+
+    /**
+     * Moves the displayed progress {@code elapsed} ms closer to {@code target}, both in
+     * degrees. Eases out, closing most of any distance within a quarter duration, so
+     * frequent small updates and a single jump both look smooth.
+     */
+    public float stepProgress(float sweep, float target, long elapsed) {
+        if (elapsed > 0) {
+            final double decay = Math.exp(-elapsed * 8.0 / mDuration);
+            sweep = target + (float) ((sweep - target) * decay);
+        }
+        return Math.abs(target - sweep) < PROGRESS_SNAP ? target : sweep;
+    }
+
+    private void evaluateCompletion(long time, int state, long completeStart, float fromSweep, boolean spin,
+                                    LoadingFrame out) {
+        final long glyphStart = completeStart + mDuration;
+        if (time < glyphStart) {
+            final float fraction = LoadingCurves.accelerateDecelerate((time - completeStart) / (float) mDuration);
+            out.set(PHASE_COMPLETE, state, spin ? rotation(time) : PROGRESS_ROTATION,
+                    fromSweep + fraction * (360 - fromSweep),
+                    LoadingCurves.color(getColorRamp(state), fraction), 0f);
+            return;
+        }
+        final long glyphEnd = glyphStart + mGlyphDuration;
+        if (time < glyphEnd) {
+            final float fraction = LoadingCurves.overshoot((time - glyphStart) / (float) mGlyphDuration);
+            out.set(PHASE_GLYPH, state, spin ? rotation(time) : PROGRESS_ROTATION, 360f, getStateColor(state),
+                    fraction);
+            return;
+        }
+        out.set(PHASE_FINISHED, state, spin ? rotation(glyphEnd) : PROGRESS_ROTATION, 360f, getStateColor(state),
+                1f);
+    }
+
+    private void evaluateSpin(long time, int state, LoadingFrame out) {
+        final float rotation = rotation(time);
+        if (time < mDuration) {
+            final float fraction = LoadingCurves.accelerateDecelerate(time / (float) mDuration);
+            out.set(PHASE_APPEARING, state, rotation, fraction * mMaxSweepAngle, mLoadingColor, 0f);
+            return;
+        }
+        final long sinceFirst = time - mDuration;
+        final float fraction = LoadingCurves.accelerateDecelerate((sinceFirst % mDuration) / (float) mDuration);
+        final float range = mMaxSweepAngle - mMinSweepAngle;
+        if ((sinceFirst / mDuration) % 2 == 0) {
+            out.set(PHASE_DISAPPEARING, state, rotation, mMaxSweepAngle - fraction * range, mLoadingColor, 0f);
+        } else {
+            out.set(PHASE_APPEARING, state, rotation, mMinSweepAngle + fraction * range, mLoadingColor, 0f);
+        }
+    }
+
+    private float rotation(long time) {
+        return LoadingCurves.accelerateDecelerate((time % mDuration) / (float) mDuration) * 360f;
+    }
+
+    private int[] getColorRamp(int state) {
+        return state == STATE_ERROR ? mErrorRamp : mSuccessRamp;
+    }
+
+    /**
+     * Same curve as {@code AccelerateDecelerateInterpolator}, the default of {@code ValueAnimator}.
+     */
+    public static float accelerateDecelerate(float input) {
+        return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+    }
+
+    /**
+     * Same curve as {@code OvershootInterpolator} with its default tension.
+     */
+    public static float overshoot(float input) {
+        input -= 1.0f;
+        return input * input * ((OVERSHOOT_TENSION + 1) * input + OVERSHOOT_TENSION) + 1.0f;
+    }
+
+    /**
+     * Same per-channel blend as {@code ArgbEvaluator}, without boxing.
+     */
+    public static int blendArgb(float fraction, int startValue, int endValue) {
+        final int startA = (startValue >> 24) & 0xff;
+        final int startR = (startValue >> 16) & 0xff;
+        final int startG = (startValue >> 8) & 0xff;
+        final int startB = startValue & 0xff;
+
+        final int endA = (endValue >> 24) & 0xff;
+        final int endR = (endValue >> 16) & 0xff;
+        final int endG = (endValue >> 8) & 0xff;
+        final int endB = endValue & 0xff;
+
+        return ((startA + (int) (fraction * (endA - startA))) << 24)
+                | ((startR + (int) (fraction * (endR - startR))) << 16)
+                | ((startG + (int) (fraction * (endG - startG))) << 8)
+                | (startB + (int) (fraction * (endB - startB)));
+    }
+}
@@ -0,0 +1,179 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * The error cross and success hook of a {@link LoadingDrawable}.
+ * <p>
+ * Only needed once a drawable reaches a terminal state, so it is created on the first
+ * glyph frame rather than with the drawable. The layout comes from a shared
+ * {@link LoadingGlyphGeometry}, looked up on the first update after the bounds change so
+ * resizing itself never allocates.
+ * <p>
+ * Both glyphs are a handful of straight segments, kept as preallocated
+ * {@code drawLines} coordinates rather than paths: each frame only rewrites a few floats
+ * and the glyph is one draw call.
+ */
+final class LoadingGlyph {
+
+    /**
+     * The cross is two diagonals through the center, the hook at most two segments.
+     */
+    private static final int MAX_LINE_COORDS = 8;
+
+    private LoadingGlyphGeometry mGeometry;
+    private int mLeft;
+    private int mTop;
+    private int mWidth;
+    private int mHeight;
+    private float mBorder;
+    private boolean mLayoutPending;
+
+    private int mStartX;
+    private int mStartY;
+    private int mInflectionX;
+    private int mInflectionY;
+
+    /**
+     * Up to three hook points as x/y pairs, reused by every success frame.
+     */
+    private final int[] mSuccessCoords = new int[6];
+
+    private final float[] mErrorLines = new float[MAX_LINE_COORDS];
+    private final float[] mSuccessLines = new float[MAX_LINE_COORDS];
+    private int mErrorLineCoords;
+    private int mSuccessLineCoords;
+
+    void layout(Rect bounds, float border) {
+        mLeft = bounds.left;
+        mTop = bounds.top;
+        mWidth = bounds.width();
+        mHeight = bounds.height();
+        mBorder = border;
+        mLayoutPending = true;
+        mErrorLineCoords = 0;
+        mSuccessLineCoords = 0;
+    }
+
+    private void ensureLayout() {
+        if (!mLayoutPending) {
+            return;
+        }
+        mLayoutPending = false;
+        if (mGeometry == null || !mGeometry.matches(mWidth, mHeight, mBorder)) {
+            mGeometry = LoadingGlyphGeometry.obtain(mWidth, mHeight, mBorder);
+        }
+        mStartX = mLeft + mGeometry.mStartX;
+        mStartY = mTop + mGeometry.mStartY;
+        mInflectionX = mLeft + mGeometry.mInflectionX;
+        mInflectionY = mTop + mGeometry.mInflectionY;
+    }
+
+    /**
+     * Forgets the glyph laid out by the last update, nothing is drawn until the next one.
+     */
+    void reset() {
+        mErrorLineCoords = 0;
+        mSuccessLineCoords = 0;
+    }
+
+    void updateError(float fraction) {
+        ensureLayout();
+        final float offset = mGeometry.mOffset * fraction;
+        lineTo(offset);
+    }
+
+    /**
+     * Lays out the hook for the given success progress. Runs every frame, so points go
+     * through {@link #mSuccessCoords} instead of allocating.
+     */
+    void updateSuccess(float fraction) {
+        ensureLayout();
+        final int hookMaxLength = mGeometry.mHookMaxLength;
+        final int xLength = (int) (fraction * mGeometry.mSuccessMaxLength);
+        final int inflaction = (int) (hookMaxLength * 0.5);
+        if (xLength < hookMaxLength * 0.8) {
+            setSuccessCoord(0, mStartX, mStartY);
+            setSuccessCoord(1, mStartX + xLength, mStartY + xLength);
+            successLineTo(2);
+        } else if (xLength == inflaction) {
+            mInflectionX = mStartX + xLength;
+            mInflectionY = mStartY + xLength;
+            setSuccessCoord(0, mStartX, mStartY);
+            setSuccessCoord(1, mInflectionX, mInflectionY);
+            successLineTo(2);
+        } else {
+            if (xLength < hookMaxLength) {
+                int x = xLength - inflaction;
+                setSuccessCoord(0, mStartX, mStartY);
+                setSuccessCoord(2, mInflectionX + x, mInflectionY - x);
+            } else {
+                int x = xLength - hookMaxLength;
+                setSuccessCoord(0, mStartX + x, mStartY + x);
+                int xx = (int) (xLength - hookMaxLength * .8f);
+                setSuccessCoord(2, mInflectionX + xx, mInflectionY - xx);
+            }
+            setSuccessCoord(1, mInflectionX, mInflectionY);
+            successLineTo(3);
+        }
+    }
+
+    void drawError(Canvas canvas, Paint paint) {
+        if (mErrorLineCoords > 0) {
+            canvas.drawLines(mErrorLines, 0, mErrorLineCoords, paint);
+        }
+    }
+
+    void drawSuccess(Canvas canvas, Paint paint) {
+        if (mSuccessLineCoords > 0) {
+            canvas.drawLines(mSuccessLines, 0, mSuccessLineCoords, paint);
+        }
+    }
+
+    void addErrorTo(LoadingDirtyRegion region) {
+        region.addLines(mErrorLines, mErrorLineCoords);
+    }
+
+    void addSuccessTo(LoadingDirtyRegion region) {
+        region.addLines(mSuccessLines, mSuccessLineCoords);
+    }
+
+    private void setSuccessCoord(int index, int x, int y) {
+        mSuccessCoords[index * 2] = x;
+        mSuccessCoords[index * 2 + 1] = y;
+    }
+
+    /**
+     * Turns the first {@code pointCount} hook points into consecutive segments.
+     */
+    private void successLineTo(int pointCount) {
+        int n = 0;
+        for (int i = 1; i < pointCount; i++) {
+            mSuccessLines[n++] = mSuccessCoords[i * 2 - 2];
+            mSuccessLines[n++] = mSuccessCoords[i * 2 - 1];
+            mSuccessLines[n++] = mSuccessCoords[i * 2];
+            mSuccessLines[n++] = mSuccessCoords[i * 2 + 1];
+        }
+        mSuccessLineCoords = n;
+    }
+
+    /**
+     * The four arms grow from the center by {@code offset}, drawn as the two diagonals
+     * they form.
+     */
+    private void lineTo(float offset) {
+        final float centerX = mLeft + mGeometry.mCenterX;
+        final float centerY = mTop + mGeometry.mCenterY;
+        mErrorLines[0] = centerX - offset;
+        mErrorLines[1] = centerY - offset;
+        mErrorLines[2] = centerX + offset;
+        mErrorLines[3] = centerY + offset;
+        mErrorLines[4] = centerX - offset;
+        mErrorLines[5] = centerY + offset;
+        mErrorLines[6] = centerX + offset;
+        mErrorLines[7] = centerY - offset;
+        mErrorLineCoords = MAX_LINE_COORDS;
+    }
+}
@@ -0,0 +1,84 @@
+package com.alexjing.loadingdrawable;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * Immutable layout of the error cross and success hook for one (width, height, border),
+ * relative to the top left corner of the bounds.
+ * <p>
+ * Layout animations and item resizes change bounds every frame, often back and forth
+ * between a few sizes and across many drawables at once, so instances are shared through
+ * a small process-wide LRU.
+ */
+final class LoadingGlyphGeometry {
+
+    private static final int CACHE_SIZE = 32;
+
+    private static final LruCache<LoadingFrameAtlas.Key, LoadingGlyphGeometry> sCache =
+            new LruCache<>(CACHE_SIZE);
+    /**
+     * Looks up {@link #sCache} without allocating a key, guarded by it.
+     */
+    private static final LoadingFrameAtlas.Key sProbe = new LoadingFrameAtlas.Key(0, 0, 0f);
+
+    final LoadingFrameAtlas.Key mKey;
+
+    final float mCenterX;
+    final float mCenterY;
+    /**
+     * Length of each arm of the cross along x and y, the arms end at center +/- offset.
+     */
+    final float mOffset;
+
+    final int mStartX;
+    final int mStartY;
+    final int mInflectionX;
+    final int mInflectionY;
+    final int mStopX;
+    final int mStopY;
+
+    final int mHookMaxLength;
+    final int mSuccessMaxLength;
+
+    private LoadingGlyphGeometry(LoadingFrameAtlas.Key key) {
+        mKey = key;
+        final float left = key.mBorder / 2f + 0.5f;
+        final float top = key.mBorder / 2f + 0.5f;
+        final float width = key.mWidth - key.mBorder / 2f - left;
+        final float height = key.mHeight - key.mBorder / 2f - top;
+
+        mCenterX = width / 2f + left;
+        mCenterY = height / 2f + top;
+        final float pathLenth = Math.min(width / 2f, height / 2f);
+        mOffset = pathLenth * 5f/12;
+
+        mInflectionX = (int) (mCenterX - .12f * width / 2f + .5);
+        mInflectionY = (int) (mCenterY + .375f * height / 2f + .5);
+
+        mStartX = (int) (mCenterX - .8f * width / 2f);
+        mStartY = (int) (mCenterY - .39f * height / 2f);
+
+        mStopX = (int) (mCenterX + .48f * width / 2f);
+        mStopY = (int) (mCenterY - .29 * height / 2f);
+
+        mHookMaxLength = (int) (width * 7/12f);
+        mSuccessMaxLength = (int) (width * .8f);
+    }
+
+    static LoadingGlyphGeometry obtain(int width, int height, float border) {
+        synchronized (sCache) {
+            sProbe.set(width, height, border);
+            LoadingGlyphGeometry geometry = sCache.get(sProbe);
+            if (geometry == null) {
+                final LoadingFrameAtlas.Key key = new LoadingFrameAtlas.Key(width, height, border);
+                geometry = new LoadingGlyphGeometry(key);
+                sCache.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    boolean matches(int width, int height, float border) {
+        return mKey.matches(width, height, border);
+    }
+}
@@ -0,0 +1,220 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * Frame statistics of one {@link LoadingDrawable} run, collected only while a
+ * {@link Listener} is set. Instances can be merged with {@link #add(LoadingMetrics)} to
+ * aggregate across drawables.
+ */
+public final class LoadingMetrics {
+
+    private static final int PHASE_COUNT = LoadingFrameModel.PHASE_FINISHED + 1;
+
+    public interface Listener {
+        /**
+         * Called when the drawable stops. {@code metrics} is reset right after this
+         * returns, copy or {@link #add(LoadingMetrics) add} it to keep the numbers.
+         */
+        void onMetrics(LoadingDrawable drawable, LoadingMetrics metrics);
+    }
+
+    private final Histogram mDrawTime = new Histogram();
+    private final Histogram mUpdateTime = new Histogram();
+    private final long[] mPhaseTime = new long[PHASE_COUNT];
+    private long mFramesDrawn;
+    private long mInvalidations;
+    private long mLastFrameTime = -1;
+
+    public LoadingMetrics() {
+    }
+
+    void recordDraw(long nanos) {
+        mFramesDrawn++;
+        mDrawTime.record(nanos);
+    }
+
+    /**
+     * @param phase the phase the drawable was in up to {@code frameTime}
+     */
+    void recordUpdate(long nanos, int phase, long frameTime) {
+        mUpdateTime.record(nanos);
+        if (mLastFrameTime >= 0 && frameTime > mLastFrameTime) {
+            mPhaseTime[phase] += frameTime - mLastFrameTime;
+        }
+        mLastFrameTime = frameTime;
+    }
+
+    void recordInvalidation() {
+        mInvalidations++;
+    }
+
+    /**
+     * The time until the next update is not spent animating, e.g. while paused.
+     */
+    void markIdle() {
+        mLastFrameTime = -1;
+    }
+
+    public long getFramesDrawn() {
+        return mFramesDrawn;
+    }
+
+    public long getInvalidations() {
+        return mInvalidations;
+    }
+
+    /**
+     * Time spent in {@code draw()}.
+     */
+    public Histogram getDrawTime() {
+        return mDrawTime;
+    }
+
+    /**
+     * Time spent advancing the animation on each ticker frame.
+     */
+    public Histogram getUpdateTime() {
+        return mUpdateTime;
+    }
+
+    /**
+     * Animation time in ms spent in one of the {@code LoadingFrameModel.PHASE_*} phases.
+     */
+    public long getPhaseTime(int phase) {
+        return mPhaseTime[phase];
+    }
+
+    /**
+     * Animation time in ms spent spinning, i.e. in the LOADING state.
+     */
+    public long getLoadingTime() {
+        return mPhaseTime[LoadingFrameModel.PHASE_APPEARING] + mPhaseTime[LoadingFrameModel.PHASE_DISAPPEARING];
+    }
+
+    /**
+     * Animation time in ms from the start of the completion sweep to the end of the glyph.
+     */
+    public long getCompletionTime() {
+        return mPhaseTime[LoadingFrameModel.PHASE_COMPLETE] + mPhaseTime[LoadingFrameModel.PHASE_GLYPH];
+    }
+
+    public void add(LoadingMetrics other) {
+        mDrawTime.add(other.mDrawTime);
+        mUpdateTime.add(other.mUpdateTime);
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            mPhaseTime[i] += other.mPhaseTime[i];
+        }
+        mFramesDrawn += other.mFramesDrawn;
+        mInvalidations += other.mInvalidations;
+    }
+
+    public void reset() {
+        mDrawTime.reset();
+        mUpdateTime.reset();
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            mPhaseTime[i] = 0;
+        }
+        mFramesDrawn = 0;
+        mInvalidations = 0;
+        mLastFrameTime = -1;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadingMetrics{framesDrawn=" + mFramesDrawn + ", invalidations=" + mInvalidations
+                + ", draw=" + mDrawTime + ", update=" + mUpdateTime
+                + ", loadingMs=" + getLoadingTime() + ", completionMs=" + getCompletionTime() + "}";
+    }
+
+    /**
+     * Nanosecond histogram with power-of-two buckets: bucket {@code i} counts samples in
+     * [2^i, 2^(i+1)), bucket 0 also takes anything below 2.
+     */
+    public static final class Histogram {
+
+        public static final int BUCKET_COUNT = 40;
+
+        private final long[] mBuckets = new long[BUCKET_COUNT];
+        private long mCount;
+        private long mTotal;
+        private long mMax;
+
+        void record(long nanos) {
+            int bucket = nanos < 2 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+            if (bucket >= BUCKET_COUNT) {
+                bucket = BUCKET_COUNT - 1;
+            }
+            mBuckets[bucket]++;
+            mCount++;
+            mTotal += nanos;
+            if (nanos > mMax) {
+                mMax = nanos;
+            }
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalNanos() {
+            return mTotal;
+        }
+
+        public long getMaxNanos() {
+            return mMax;
+        }
+
+        public long getMeanNanos() {
+            return mCount > 0 ? mTotal / mCount : 0;
+        }
+
+        public long getBucketCount(int bucket) {
+            return mBuckets[bucket];
+        }
+
+        public static long getBucketLowerBound(int bucket) {
+            return bucket == 0 ? 0 : 1L << bucket;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, in [0, 100].
+         */
+        public long getPercentileNanos(float percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(percentile / 100f * mCount);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(mMax, (1L << (i + 1)) - 1);
+                }
+            }
+            return mMax;
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets[i] += other.mBuckets[i];
+            }
+            mCount += other.mCount;
+            mTotal += other.mTotal;
+            mMax = Math.max(mMax, other.mMax);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets[i] = 0;
+            }
+            mCount = 0;
+            mTotal = 0;
+            mMax = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + mCount + ", meanNs=" + getMeanNanos() + ", p90Ns=" + getPercentileNanos(90)
+                    + ", maxNs=" + mMax + "}";
+        }
+    }
+}
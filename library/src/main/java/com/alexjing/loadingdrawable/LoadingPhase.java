@@ -0,0 +1,94 @@
+package com.alexjing.loadingdrawable;
+
+import android.support.v4.util.LruCache;
+
+import java.util.HashMap;
+
+/**
+ * Spinner timeline shared by every synchronized {@link LoadingDrawable} with an equal
+ * {@link LoadingFrameModel}.
+ * <p>
+ * The timeline starts on the first frame of the first drawable that joins and then runs
+ * for as long as the process does, so a drawable started later, or resumed after a pause,
+ * lands in step with the ones already spinning. While they are loading, members take
+ * their frame from here and it is evaluated once per frame time however many there
+ * are. A member that is asked for SUCCESS or ERROR evaluates its own frames from then on,
+ * on the same timeline, so its completion sweep starts where the shared one would.
+ * <p>
+ * Running members hold a reference from {@link #obtain} to {@link #release()}, and a
+ * referenced phase is never dropped, so members never drift onto a new timeline. Phases
+ * without members are kept in a small LRU for the next drawable to join.
+ * <p>
+ * Must only be used from the main thread.
+ */
+final class LoadingPhase {
+
+    private static final int CACHE_SIZE = 16;
+
+    private static final HashMap<LoadingFrameModel, LoadingPhase> sActive = new HashMap<>();
+    private static final LruCache<LoadingFrameModel, LoadingPhase> sIdle = new LruCache<>(CACHE_SIZE);
+
+    private final LoadingFrameModel mModel;
+    private int mMemberCount;
+    private final LoadingFrame mFrame = new LoadingFrame();
+    private long mEpoch = -1;
+    private long mEvaluatedTime = -1;
+    private int mEvaluationCount;
+
+    private LoadingPhase(LoadingFrameModel model) {
+        mModel = model;
+    }
+
+    /**
+     * The phase for {@code model}, referenced until {@link #release()}.
+     */
+    static LoadingPhase obtain(LoadingFrameModel model) {
+        LoadingPhase phase = sActive.get(model);
+        if (phase == null) {
+            phase = sIdle.remove(model);
+            if (phase == null) {
+                phase = new LoadingPhase(model);
+            }
+            sActive.put(model, phase);
+        }
+        phase.mMemberCount++;
+        return phase;
+    }
+
+    /**
+     * Drops a reference taken by {@link #obtain}.
+     */
+    void release() {
+        if (--mMemberCount == 0) {
+            sActive.remove(mModel);
+            sIdle.put(mModel, this);
+        }
+    }
+
+    /**
+     * Frame time at which the shared timeline started, {@code frameTime} if this is its
+     * first frame.
+     */
+    long getEpoch(long frameTime) {
+        if (mEpoch < 0) {
+            mEpoch = frameTime;
+        }
+        return mEpoch;
+    }
+
+    /**
+     * The loading frame at {@code elapsed} ms after the epoch. Owned by the phase, copy it.
+     */
+    LoadingFrame evaluate(long elapsed) {
+        if (elapsed != mEvaluatedTime) {
+            mEvaluatedTime = elapsed;
+            mModel.evaluate(elapsed, LoadingFrameModel.STATE_LOADING, LoadingFrameModel.NO_TRANSITION, mFrame);
+            mEvaluationCount++;
+        }
+        return mFrame;
+    }
+
+    int getEvaluationCount() {
+        return mEvaluationCount;
+    }
+}
@@ -0,0 +1,263 @@
+package com.alexjing.loadingdrawable;
+
+/**
+ * Trades rendering quality for frame time while the app is missing frames.
+ * <p>
+ * The controller watches the intervals between the frames of the drawables it is set
+ * on, see {@link LoadingDrawable#setQualityController}, and counts a frame as missed
+ * when it came more than half an interval late. Quality steps down one tier at a time
+ * while at least {@link #STEP_DOWN_MISSED_FRAMES} of the last {@link #WINDOW_FRAMES}
+ * frames were missed, and steps back up one tier after {@link #STEP_UP_HEALTHY_FRAMES}
+ * frames in a row were on time. Every step starts a new window, so a tier is judged on
+ * its own frames, and coming back up takes far longer than going down, so a device at
+ * the edge of its budget settles instead of flipping between two tiers.
+ * <p>
+ * Tiers are cumulative, each keeps the savings of the ones above it:
+ * <ol>
+ * <li>{@link #TIER_FULL}: as configured.</li>
+ * <li>{@link #TIER_REDUCED_RATE}: the animation advances at most
+ * {@link FrameRatePolicy#DEFAULT_REDUCED_FPS} times per second.</li>
+ * <li>{@link #TIER_BUTT_CAPS}: the arc is stroked with butt instead of round caps.</li>
+ * <li>{@link #TIER_NO_ANTIALIAS}: anti-aliasing is off.</li>
+ * <li>{@link #TIER_CACHED}: frames are blitted from the shared atlas, see
+ * {@link LoadingDrawable#setCachedRendering}.</li>
+ * </ol>
+ * One controller can be shared by many drawables, it counts every frame time once.
+ * Pure Java, must only be used from the main thread.
+ */
+public final class LoadingQualityController {
+
+    public static final int TIER_FULL = 0;
+    public static final int TIER_REDUCED_RATE = 1;
+    public static final int TIER_BUTT_CAPS = 2;
+    public static final int TIER_NO_ANTIALIAS = 3;
+    public static final int TIER_CACHED = 4;
+
+    /**
+     * Too many of the frames in the window were missed.
+     */
+    public static final int REASON_MISSED_FRAMES = 0;
+    /**
+     * Enough frames in a row were on time.
+     */
+    public static final int REASON_RECOVERED = 1;
+    /**
+     * {@link #reset()} was called.
+     */
+    public static final int REASON_RESET = 2;
+
+    public static final int DEFAULT_TARGET_FPS = 60;
+
+    public static final int WINDOW_FRAMES = 32;
+    public static final int STEP_DOWN_MISSED_FRAMES = 6;
+    public static final int STEP_UP_HEALTHY_FRAMES = 120;
+
+    /**
+     * A frame later than this many intervals is missed.
+     */
+    private static final float MISSED_INTERVALS = 1.5f;
+    /**
+     * Longer gaps are the ticker idling or the app in the background, not jank.
+     */
+    private static final long MAX_FRAME_GAP = 250;
+
+    public interface Listener {
+        /**
+         * Called when the tier changes, with one of the {@code REASON_*} constants. The
+         * window counts of the controller still describe the frames that caused it.
+         */
+        void onTierChanged(LoadingQualityController controller, int previousTier, int tier, int reason);
+    }
+
+    private final float mFrameInterval;
+    private final long mReducedFrameInterval;
+    private final int mMaxTier;
+
+    /**
+     * Whether each frame of the window was missed, a ring of {@link #WINDOW_FRAMES}.
+     */
+    private final boolean[] mWindow = new boolean[WINDOW_FRAMES];
+    private int mWindowStart;
+    private int mWindowCount;
+    private int mMissedFrames;
+    private int mHealthyFrames;
+    private long mLastFrameTime = -1;
+
+    private int mTier = TIER_FULL;
+    private int mLastReason = -1;
+    private int mTransitionCount;
+    private Listener mListener;
+
+    /**
+     * Judges frames against {@link #DEFAULT_TARGET_FPS} and may use every tier.
+     */
+    public LoadingQualityController() {
+        this(DEFAULT_TARGET_FPS, TIER_CACHED);
+    }
+
+    /**
+     * @param targetFps the display rate a frame is judged against
+     * @param maxTier   the cheapest tier to step down to
+     */
+    public LoadingQualityController(int targetFps, int maxTier) {
+        if (targetFps <= 0) {
+            throw new IllegalArgumentException("targetFps must be positive: " + targetFps);
+        }
+        if (maxTier < TIER_FULL || maxTier > TIER_CACHED) {
+            throw new IllegalArgumentException("Unknown tier: " + maxTier);
+        }
+        mFrameInterval = 1000f / targetFps;
+        mReducedFrameInterval = FrameRatePolicy.intervalFor(FrameRatePolicy.DEFAULT_REDUCED_FPS);
+        mMaxTier = maxTier;
+    }
+
+    /**
+     * Records the frame at {@code frameTime}, in ms. Frame times already seen are ignored,
+     * so every drawable sharing the controller can report each of its frames.
+     */
+    void onFrame(long frameTime) {
+        if (frameTime <= mLastFrameTime) {
+            return;
+        }
+        final long interval = mLastFrameTime < 0 ? -1 : frameTime - mLastFrameTime;
+        mLastFrameTime = frameTime;
+        if (interval >= 0 && interval <= MAX_FRAME_GAP) {
+            record(interval > mFrameInterval * MISSED_INTERVALS);
+        }
+    }
+
+    private void record(boolean missed) {
+        if (mWindowCount == WINDOW_FRAMES) {
+            if (mWindow[mWindowStart]) {
+                mMissedFrames--;
+            }
+            mWindow[mWindowStart] = missed;
+            mWindowStart = (mWindowStart + 1) % WINDOW_FRAMES;
+        } else {
+            mWindow[(mWindowStart + mWindowCount++) % WINDOW_FRAMES] = missed;
+        }
+        if (missed) {
+            mMissedFrames++;
+            mHealthyFrames = 0;
+        } else {
+            mHealthyFrames++;
+        }
+
+        if (mTier < mMaxTier && mWindowCount == WINDOW_FRAMES && mMissedFrames >= STEP_DOWN_MISSED_FRAMES) {
+            setTier(mTier + 1, REASON_MISSED_FRAMES);
+        } else if (mTier > TIER_FULL && mHealthyFrames >= STEP_UP_HEALTHY_FRAMES) {
+            setTier(mTier - 1, REASON_RECOVERED);
+        }
+    }
+
+    private void setTier(int tier, int reason) {
+        final int previous = mTier;
+        mTier = tier;
+        mLastReason = reason;
+        mTransitionCount++;
+        if (mListener != null) {
+            mListener.onTierChanged(this, previous, tier, reason);
+        }
+        clearWindow();
+    }
+
+    private void clearWindow() {
+        mWindowStart = 0;
+        mWindowCount = 0;
+        mMissedFrames = 0;
+        mHealthyFrames = 0;
+    }
+
+    /**
+     * Back to {@link #TIER_FULL} with a new window, e.g. when the screen changes.
+     */
+    public void reset() {
+        if (mTier != TIER_FULL) {
+            setTier(TIER_FULL, REASON_RESET);
+        } else {
+            clearWindow();
+        }
+        mLastFrameTime = -1;
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * One of the {@code TIER_*} constants.
+     */
+    public int getTier() {
+        return mTier;
+    }
+
+    public int getMaxTier() {
+        return mMaxTier;
+    }
+
+    /**
+     * The {@code REASON_*} of the last tier change, -1 if there was none.
+     */
+    public int getLastReason() {
+        return mLastReason;
+    }
+
+    public int getTransitionCount() {
+        return mTransitionCount;
+    }
+
+    /**
+     * Missed frames among the {@link #getWindowFrames()} recorded since the last change.
+     */
+    public int getMissedFrames() {
+        return mMissedFrames;
+    }
+
+    public int getWindowFrames() {
+        return mWindowCount;
+    }
+
+    /**
+     * Frames in a row that were on time.
+     */
+    public int getHealthyFrames() {
+        return mHealthyFrames;
+    }
+
+    /**
+     * Interval in ns the animation time is snapped to from {@link #TIER_REDUCED_RATE} on.
+     */
+    long getReducedFrameInterval() {
+        return mReducedFrameInterval;
+    }
+
+    public static String tierToString(int tier) {
+        switch (tier) {
+            case TIER_FULL:
+                return "FULL";
+            case TIER_REDUCED_RATE:
+                return "REDUCED_RATE";
+            case TIER_BUTT_CAPS:
+                return "BUTT_CAPS";
+            case TIER_NO_ANTIALIAS:
+                return "NO_ANTIALIAS";
+            case TIER_CACHED:
+                return "CACHED";
+            default:
+                return Integer.toString(tier);
+        }
+    }
+
+    public static String reasonToString(int reason) {
+        switch (reason) {
+            case REASON_MISSED_FRAMES:
+                return "MISSED_FRAMES";
+            case REASON_RECOVERED:
+                return "RECOVERED";
+            case REASON_RESET:
+                return "RESET";
+            default:
+                return Integer.toString(reason);
+        }
+    }
+}
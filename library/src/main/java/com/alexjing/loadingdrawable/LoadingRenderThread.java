@@ -0,0 +1,321 @@
+package com.alexjing.loadingdrawable;
+
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.SurfaceHolder;
+
+/**
+ * Animates and draws a {@link LoadingDrawable} on a thread of its own, into a surface,
+ * so the spinner keeps turning while the main thread is busy:
+ * <pre>
+ * LoadingRenderThread renderer = new LoadingRenderThread(new LoadingDrawable(context));
+ * surfaceView.getHolder().addCallback(renderer);
+ * renderer.start();
+ * ...
+ * renderer.setLoadingState(LoadingState.SUCCESS); // from any thread
+ * ...
+ * renderer.release();
+ * </pre>
+ * The drawable moves to the renderer's {@link HandlerThread}, where its own
+ * {@link LoadingTicker} advances it from that thread's {@link android.view.Choreographer},
+ * so its frames are the ones it would produce on the main thread, and each frame that
+ * changes it is drawn into the surface, within its dirty bounds once the surface has been
+ * drawn whole. Synchronized spinning, cached rendering and the render thread animation
+ * of the drawable do not apply here.
+ * <p>
+ * Requests from any thread go through a queue of packed commands the renderer's thread
+ * drains in order, so a state requested right after {@link #start()} is applied to the
+ * run it started. Once handed over the drawable must only be driven through the renderer
+ * until {@link #release()}, after which it belongs to the main thread again.
+ */
+public final class LoadingRenderThread implements SurfaceHolder.Callback, Drawable.Callback {
+
+    private static final int COMMAND_START = 1;
+    private static final int COMMAND_STOP = 2;
+    private static final int COMMAND_STATE = 3;
+    private static final int COMMAND_SURFACE_CREATED = 4;
+    private static final int COMMAND_SURFACE_CHANGED = 5;
+    private static final int COMMAND_SURFACE_DESTROYED = 6;
+    private static final int COMMAND_RELEASE = 7;
+
+    private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+    private final LoadingDrawable mDrawable;
+    private final HandlerThread mThread;
+    private final Handler mHandler;
+
+    /**
+     * Commands as {@code (argument << 8) | command}, a ring whose capacity is a power of two.
+     */
+    private final Object mQueueLock = new Object();
+    private int[] mQueue = new int[INITIAL_QUEUE_CAPACITY];
+    private int mQueueHead;
+    private int mQueueSize;
+    private boolean mDrainPosted;
+    private boolean mReleased;
+
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Held while drawing, so the surface is not destroyed under a frame.
+     */
+    private final Object mSurfaceLock = new Object();
+    private SurfaceHolder mHolder;
+    private int mSurfaceWidth;
+    private int mSurfaceHeight;
+
+    private final Rect mDirty = new Rect();
+    private boolean mFullRedraw = true;
+    private boolean mDrawPosted;
+    private final Runnable mDraw = new Runnable() {
+        @Override
+        public void run() {
+            mDrawPosted = false;
+            drawFrame();
+        }
+    };
+
+    private volatile int mBackgroundColor;
+    private volatile int mFrameCount;
+
+    /**
+     * Starts the renderer's thread and moves {@code drawable}, which must be stopped, to it.
+     */
+    public LoadingRenderThread(LoadingDrawable drawable) {
+        mDrawable = drawable;
+        mThread = new HandlerThread("LoadingRenderThread");
+        mThread.start();
+        final LoadingTicker ticker = new LoadingTicker(mThread.getLooper());
+        mHandler = ticker.getHandler();
+        drawable.setTicker(ticker);
+        // paused until there is a surface to draw into
+        drawable.setVisible(false, false);
+        drawable.setCallback(this);
+    }
+
+    public LoadingDrawable getDrawable() {
+        return mDrawable;
+    }
+
+    /**
+     * Color the surface is filled with under each frame, transparent by default, which
+     * needs a translucent surface on top of the window.
+     */
+    public void setBackgroundColor(int color) {
+        mBackgroundColor = color;
+    }
+
+    public void start() {
+        enqueue(COMMAND_START);
+    }
+
+    public void stop() {
+        enqueue(COMMAND_STOP);
+    }
+
+    public void setLoadingState(LoadingDrawable.LoadingState state) {
+        setLoadingState(state, LoadingDrawable.TRANSITION_ANIMATE);
+    }
+
+    /**
+     * See {@link LoadingDrawable#setLoadingState(LoadingDrawable.LoadingState, int)}.
+     */
+    public void setLoadingState(LoadingDrawable.LoadingState state, int mode) {
+        if (state == null) {
+            throw new IllegalArgumentException("state == null");
+        }
+        LoadingDrawable.checkTransitionMode(mode);
+        enqueue((((mode << 2) | state.ordinal()) << 8) | COMMAND_STATE);
+    }
+
+    /**
+     * Stops the drawable, hands it back to the main thread and ends the renderer's thread.
+     * Later calls are ignored.
+     */
+    public void release() {
+        enqueue(COMMAND_RELEASE);
+    }
+
+    /**
+     * Posts to the renderer's thread.
+     */
+    Handler getHandler() {
+        return mHandler;
+    }
+
+    /**
+     * Frames drawn into the surface so far.
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (mSurfaceLock) {
+            mHolder = holder;
+        }
+        enqueue(COMMAND_SURFACE_CREATED);
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (mSurfaceLock) {
+            mSurfaceWidth = width;
+            mSurfaceHeight = height;
+        }
+        enqueue(COMMAND_SURFACE_CHANGED);
+    }
+
+    /**
+     * Waits for a frame being drawn, the surface is gone once this returns.
+     */
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        synchronized (mSurfaceLock) {
+            mHolder = null;
+        }
+        enqueue(COMMAND_SURFACE_DESTROYED);
+    }
+
+    private void enqueue(int command) {
+        synchronized (mQueueLock) {
+            if (mReleased) {
+                return;
+            }
+            if (mQueueSize == mQueue.length) {
+                final int[] grown = new int[mQueueSize * 2];
+                for (int i = 0; i < mQueueSize; i++) {
+                    grown[i] = mQueue[(mQueueHead + i) & (mQueueSize - 1)];
+                }
+                mQueue = grown;
+                mQueueHead = 0;
+            }
+            mQueue[(mQueueHead + mQueueSize++) & (mQueue.length - 1)] = command;
+            if (command == COMMAND_RELEASE) {
+                mReleased = true;
+            }
+            if (mDrainPosted) {
+                return;
+            }
+            mDrainPosted = true;
+        }
+        mHandler.post(mDrain);
+    }
+
+    /**
+     * Applies the queued commands, on the renderer's thread.
+     */
+    private void drain() {
+        while (true) {
+            final int command;
+            synchronized (mQueueLock) {
+                if (mQueueSize == 0) {
+                    mDrainPosted = false;
+                    return;
+                }
+                command = mQueue[mQueueHead];
+                mQueueHead = (mQueueHead + 1) & (mQueue.length - 1);
+                mQueueSize--;
+            }
+            apply(command);
+        }
+    }
+
+    private void apply(int command) {
+        final int argument = command >> 8;
+        switch (command & 0xFF) {
+            case COMMAND_START:
+                mDrawable.start();
+                break;
+            case COMMAND_STOP:
+                mDrawable.stop();
+                break;
+            case COMMAND_STATE:
+                mDrawable.setLoadingState(LoadingDrawable.LoadingState.values()[argument & 3], argument >> 2);
+                break;
+            case COMMAND_SURFACE_CREATED:
+                mDrawable.setVisible(true, false);
+                redraw();
+                break;
+            case COMMAND_SURFACE_CHANGED:
+                synchronized (mSurfaceLock) {
+                    mDrawable.setBounds(0, 0, mSurfaceWidth, mSurfaceHeight);
+                }
+                redraw();
+                break;
+            case COMMAND_SURFACE_DESTROYED:
+                // pauses the animation until there is a surface again
+                mDrawable.setVisible(false, false);
+                break;
+            case COMMAND_RELEASE:
+                mDrawable.stop();
+                mDrawable.setCallback(null);
+                mDrawable.setVisible(true, false);
+                mDrawable.setTicker(null);
+                mThread.quit();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void redraw() {
+        mFullRedraw = true;
+        invalidateDrawable(mDrawable);
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        // after the frame that invalidated, in the same vsync
+        if (!mDrawPosted) {
+            mDrawPosted = true;
+            mHandler.post(mDraw);
+        }
+    }
+
+    @Override
+    public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        mHandler.postAtTime(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(Drawable who, Runnable what) {
+        mHandler.removeCallbacks(what);
+    }
+
+    private void drawFrame() {
+        synchronized (mSurfaceLock) {
+            if (mHolder == null) {
+                return;
+            }
+            final Canvas canvas;
+            if (mFullRedraw) {
+                canvas = mHolder.lockCanvas();
+            } else {
+                mDirty.set(mDrawable.getDirtyBounds());
+                canvas = mHolder.lockCanvas(mDirty);
+            }
+            if (canvas == null) {
+                return;
+            }
+            try {
+                canvas.drawColor(mBackgroundColor, PorterDuff.Mode.SRC);
+                mDrawable.draw(canvas);
+            } finally {
+                mHolder.unlockCanvasAndPost(canvas);
+            }
+            mFullRedraw = false;
+        }
+        mFrameCount++;
+    }
+}
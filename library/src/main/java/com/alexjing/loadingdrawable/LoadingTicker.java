@@ -0,0 +1,231 @@
+package com.alexjing.loadingdrawable;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Frame clock shared by every running {@link LoadingDrawable} of a looper thread, one for
+ * the main thread and one per {@link LoadingRenderThread}.
+ * <p>
+ * Instead of each drawable registering its own animator pulse, running drawables
+ * are kept in a compact array and advanced from a single frame callback. Removal
+ * swaps the last entry into the freed slot, so both registration and the per-frame
+ * walk stay O(1) per drawable with no allocation. Drawables that stopped are dropped on
+ * the next frame, drawables that lost their {@link android.graphics.drawable.Drawable.Callback}
+ * are paused, which also takes them out of the registry.
+ * <p>
+ * A {@link LoadingBatchDrawable} is kept the same way in an array of its own, created
+ * with the first one, and leaves it on its own once none of its slots animates.
+ * <p>
+ * Must only be used from the thread of its looper.
+ */
+final class LoadingTicker {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long FALLBACK_FRAME_DELAY = 16;
+
+    private static LoadingTicker sInstance;
+
+    private LoadingDrawable[] mDrawables = new LoadingDrawable[INITIAL_CAPACITY];
+    private int mCount;
+    private LoadingBatchDrawable[] mBatches;
+    private int mBatchCount;
+    private boolean mFrameScheduled;
+
+    /**
+     * Running drawables of this thread animating and paused, see
+     * {@link LoadingDrawable#getActiveInstanceCount()}.
+     */
+    int mActiveCount;
+    int mPausedCount;
+
+    private final Looper mLooper;
+    private final Handler mHandler;
+    private final FrameScheduler mScheduler;
+
+    /**
+     * The ticker of the main thread.
+     */
+    static LoadingTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new LoadingTicker(Looper.getMainLooper());
+        }
+        return sInstance;
+    }
+
+    /**
+     * A ticker of its own for the thread of {@code looper}, whose frames come from that
+     * thread's {@link Choreographer}.
+     */
+    LoadingTicker(Looper looper) {
+        mLooper = looper;
+        mHandler = new Handler(looper);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mScheduler = new ChoreographerScheduler(this);
+        } else {
+            mScheduler = new HandlerScheduler(this);
+        }
+    }
+
+    Looper getLooper() {
+        return mLooper;
+    }
+
+    /**
+     * Posts to the ticker's thread, from any thread.
+     */
+    Handler getHandler() {
+        return mHandler;
+    }
+
+    void add(LoadingDrawable drawable) {
+        if (drawable.mTickerIndex >= 0) {
+            return;
+        }
+        if (mCount == mDrawables.length) {
+            LoadingDrawable[] grown = new LoadingDrawable[mCount * 2];
+            System.arraycopy(mDrawables, 0, grown, 0, mCount);
+            mDrawables = grown;
+        }
+        drawable.mTickerIndex = mCount;
+        mDrawables[mCount++] = drawable;
+        scheduleFrame();
+    }
+
+    void remove(LoadingDrawable drawable) {
+        final int index = drawable.mTickerIndex;
+        if (index < 0) {
+            return;
+        }
+        final int last = --mCount;
+        final LoadingDrawable moved = mDrawables[last];
+        mDrawables[index] = moved;
+        moved.mTickerIndex = index;
+        mDrawables[last] = null;
+        drawable.mTickerIndex = -1;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    void add(LoadingBatchDrawable batch) {
+        if (batch.mTickerIndex >= 0) {
+            return;
+        }
+        if (mBatches == null) {
+            mBatches = new LoadingBatchDrawable[INITIAL_CAPACITY];
+        } else if (mBatchCount == mBatches.length) {
+            LoadingBatchDrawable[] grown = new LoadingBatchDrawable[mBatchCount * 2];
+            System.arraycopy(mBatches, 0, grown, 0, mBatchCount);
+            mBatches = grown;
+        }
+        batch.mTickerIndex = mBatchCount;
+        mBatches[mBatchCount++] = batch;
+        scheduleFrame();
+    }
+
+    void remove(LoadingBatchDrawable batch) {
+        final int index = batch.mTickerIndex;
+        if (index < 0) {
+            return;
+        }
+        final int last = --mBatchCount;
+        final LoadingBatchDrawable moved = mBatches[last];
+        mBatches[index] = moved;
+        moved.mTickerIndex = index;
+        mBatches[last] = null;
+        batch.mTickerIndex = -1;
+    }
+
+    int getBatchCount() {
+        return mBatchCount;
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.postFrame();
+        }
+    }
+
+    void doFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        int i = 0;
+        while (i < mCount) {
+            final LoadingDrawable drawable = mDrawables[i];
+            if (!drawable.isRunning()) {
+                remove(drawable);
+                continue;
+            }
+            if (drawable.getCallback() == null) {
+                drawable.pause();
+                continue;
+            }
+            drawable.onFrame(frameTimeMillis);
+            // onFrame may have stopped the drawable, in which case another one now sits at i
+            if (mDrawables[i] == drawable) {
+                i++;
+            }
+        }
+        i = 0;
+        while (i < mBatchCount) {
+            final LoadingBatchDrawable batch = mBatches[i];
+            if (batch.getCallback() == null) {
+                batch.pause();
+                continue;
+            }
+            batch.onFrame(frameTimeMillis);
+            // onFrame removes a batch with nothing left to animate
+            if (mBatches[i] == batch) {
+                i++;
+            }
+        }
+        if (mCount > 0 || mBatchCount > 0) {
+            scheduleFrame();
+        }
+    }
+
+    private interface FrameScheduler {
+        void postFrame();
+    }
+
+    private static final class ChoreographerScheduler implements FrameScheduler, Choreographer.FrameCallback {
+        private final LoadingTicker mTicker;
+
+        ChoreographerScheduler(LoadingTicker ticker) {
+            mTicker = ticker;
+        }
+
+        @Override
+        public void postFrame() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mTicker.doFrame(frameTimeNanos / 1000000L);
+        }
+    }
+
+    private static final class HandlerScheduler implements FrameScheduler, Runnable {
+        private final LoadingTicker mTicker;
+
+        HandlerScheduler(LoadingTicker ticker) {
+            mTicker = ticker;
+        }
+
+        @Override
+        public void postFrame() {
+            mTicker.mHandler.postDelayed(this, FALLBACK_FRAME_DELAY);
+        }
+
+        @Override
+        public void run() {
+            mTicker.doFrame(AnimationUtils.currentAnimationTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.alexjing.loadingdrawable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a trace written by {@link LoadingTraceRecorder}, one record at a time:
+ * <pre>
+ * LoadingTraceReader trace = new LoadingTraceReader(bytes);
+ * while (trace.next()) {
+ *     if (trace.getTag() == LoadingTraceReader.TAG_FRAME) {
+ *         trace.readFrame(frame);
+ *     }
+ * }
+ * </pre>
+ * The configuration of the recorded drawable is available right away. Reading does not
+ * allocate, and {@link #rewind()} starts over, so one reader can be replayed many times.
+ */
+public final class LoadingTraceReader {
+
+    public static final int TAG_START = LoadingTraceRecorder.TAG_START;
+    public static final int TAG_STOP = LoadingTraceRecorder.TAG_STOP;
+    public static final int TAG_PAUSE = LoadingTraceRecorder.TAG_PAUSE;
+    public static final int TAG_RESUME = LoadingTraceRecorder.TAG_RESUME;
+    public static final int TAG_STATE = LoadingTraceRecorder.TAG_STATE;
+    public static final int TAG_FRAME = LoadingTraceRecorder.TAG_FRAME;
+
+    private static final LoadingDrawable.LoadingState[] STATES = LoadingDrawable.LoadingState.values();
+
+    private final byte[] mData;
+    private int mPosition;
+
+    private final long mBaseTime;
+    private final long mDuration;
+    private final float mMinSweepAngle;
+    private final float mMaxSweepAngle;
+    private final int mLoadingColor;
+    private final int mErrorColor;
+    private final int mSuccessColor;
+    private final float mBorder;
+
+    private int mTag;
+    private long mTime;
+    private int mPacked;
+    private int mFrameOffset;
+
+    /**
+     * @throws IllegalArgumentException if {@code data} does not start with a trace header
+     */
+    public LoadingTraceReader(byte[] data) {
+        mData = data;
+        if (data.length < LoadingTraceRecorder.HEADER_SIZE || getInt() != LoadingTraceRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a loading trace");
+        }
+        final int version = mData[mPosition++];
+        if (version != LoadingTraceRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported trace version: " + version);
+        }
+        mBaseTime = ((long) getInt() << 32) | (getInt() & 0xFFFFFFFFL);
+        mDuration = getInt();
+        mMinSweepAngle = getFloat();
+        mMaxSweepAngle = getFloat();
+        mLoadingColor = getInt();
+        mErrorColor = getInt();
+        mSuccessColor = getInt();
+        mBorder = getFloat();
+    }
+
+    /**
+     * Reads all of {@code in}, without closing it.
+     */
+    public static LoadingTraceReader read(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return new LoadingTraceReader(out.toByteArray());
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false at the end of the trace
+     * @throws IllegalStateException if the trace is corrupt
+     */
+    public boolean next() {
+        if (mPosition == mData.length) {
+            mTag = 0;
+            return false;
+        }
+        mTag = mData[mPosition++];
+        mTime = mBaseTime + getInt();
+        switch (mTag) {
+            case TAG_START:
+            case TAG_STOP:
+            case TAG_PAUSE:
+            case TAG_RESUME:
+                break;
+            case TAG_STATE:
+                mPacked = mData[mPosition++];
+                break;
+            case TAG_FRAME:
+                mPacked = mData[mPosition++];
+                mFrameOffset = mPosition;
+                mPosition += 4 * 4;
+                break;
+            default:
+                throw new IllegalStateException("Unknown record " + mTag + " at " + (mPosition - 5));
+        }
+        if (mPosition > mData.length) {
+            throw new IllegalStateException("Truncated record at the end of the trace");
+        }
+        return true;
+    }
+
+    /**
+     * Back to before the first record.
+     */
+    public void rewind() {
+        mPosition = LoadingTraceRecorder.HEADER_SIZE;
+        mTag = 0;
+    }
+
+    /**
+     * One of the {@code TAG_*} constants, 0 before the first and after the last record.
+     */
+    public int getTag() {
+        return mTag;
+    }
+
+    /**
+     * Time of the record in ms, in the {@code AnimationUtils} time base of the recording;
+     * the frame time for frames.
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * The requested state of a {@link #TAG_STATE} record.
+     */
+    public LoadingDrawable.LoadingState getState() {
+        checkTag(TAG_STATE);
+        return STATES[mPacked & 0x3];
+    }
+
+    /**
+     * The {@code TRANSITION_*} mode of a {@link #TAG_STATE} record.
+     */
+    public int getMode() {
+        checkTag(TAG_STATE);
+        return mPacked >> 2;
+    }
+
+    /**
+     * Copies the frame of a {@link #TAG_FRAME} record into {@code out}.
+     */
+    public void readFrame(LoadingFrame out) {
+        checkTag(TAG_FRAME);
+        final int position = mPosition;
+        mPosition = mFrameOffset;
+        final float rotation = getFloat();
+        final float sweep = getFloat();
+        final int color = getInt();
+        final float glyphProgress = getFloat();
+        mPosition = position;
+        out.set(mPacked >> 2, mPacked & 0x3, rotation, sweep, color, glyphProgress);
+    }
+
+    private void checkTag(int tag) {
+        if (mTag != tag) {
+            throw new IllegalStateException("Record " + mTag + " is not " + tag);
+        }
+    }
+
+    private int getInt() {
+        final byte[] data = mData;
+        final int value = (data[mPosition] & 0xFF) << 24
+                | (data[mPosition + 1] & 0xFF) << 16
+                | (data[mPosition + 2] & 0xFF) << 8
+                | (data[mPosition + 3] & 0xFF);
+        mPosition += 4;
+        return value;
+    }
+
+    private float getFloat() {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    /**
+     * {@code AnimationUtils} time the recording began.
+     */
+    public long getBaseTime() {
+        return mBaseTime;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public float getMinSweepAngle() {
+        return mMinSweepAngle;
+    }
+
+    public float getMaxSweepAngle() {
+        return mMaxSweepAngle;
+    }
+
+    public int getLoadingColor() {
+        return mLoadingColor;
+    }
+
+    public int getErrorColor() {
+        return mErrorColor;
+    }
+
+    public int getSuccessColor() {
+        return mSuccessColor;
+    }
+
+    public float getBorder() {
+        return mBorder;
+    }
+}
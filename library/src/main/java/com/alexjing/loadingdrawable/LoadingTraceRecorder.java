@@ -0,0 +1,183 @@
+package com.alexjing.loadingdrawable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Records what a {@link LoadingDrawable} did as a compact binary trace, to reproduce a
+ * glitch seen on a device frame by frame, see {@link LoadingDrawable#setTraceRecorder}.
+ * <p>
+ * The trace starts with the configuration of the drawable and then holds one record per
+ * event: start, stop, pause, resume, each applied state request with its mode, and each
+ * frame with its frame time and the frame it evaluated to, state, rotation, sweep, color
+ * and glyph progress. Times are stored relative to the time recording began, a frame
+ * takes 22 bytes, a minute at 60 fps about 80 KB. {@link LoadingTraceReader} reads it
+ * back.
+ * <p>
+ * Records go into a buffer that grows by doubling up to a fixed limit, so recording
+ * does no I/O and no per-frame allocation; once the limit is reached later records are
+ * dropped and the trace is marked truncated. Determinate progress is not recorded.
+ * Must only be used from the main thread.
+ */
+public final class LoadingTraceRecorder {
+
+    static final int MAGIC = 0x4C445452;
+    static final int VERSION = 1;
+
+    static final int TAG_START = 1;
+    static final int TAG_STOP = 2;
+    static final int TAG_PAUSE = 3;
+    static final int TAG_RESUME = 4;
+    static final int TAG_STATE = 5;
+    static final int TAG_FRAME = 6;
+
+    /**
+     * Magic, version, base time and the seven configuration values.
+     */
+    static final int HEADER_SIZE = 4 + 1 + 8 + 7 * 4;
+    /**
+     * Largest record: tag, time, packed phase and state, four values.
+     */
+    private static final int MAX_RECORD_SIZE = 1 + 4 + 1 + 4 * 4;
+
+    public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final int mMaxBytes;
+    private byte[] mBuffer;
+    private int mSize;
+    private long mBaseTime = -1;
+    private boolean mTruncated;
+
+    public LoadingTraceRecorder() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes size the trace may grow to before records are dropped
+     */
+    public LoadingTraceRecorder(int maxBytes) {
+        if (maxBytes < HEADER_SIZE) {
+            throw new IllegalArgumentException("maxBytes must hold at least the header: " + maxBytes);
+        }
+        mMaxBytes = maxBytes;
+        mBuffer = new byte[Math.min(INITIAL_CAPACITY, maxBytes)];
+    }
+
+    /**
+     * Starts a new trace for a drawable configured like {@code model} with {@code border}.
+     * Called when the recorder is set on a drawable.
+     */
+    void begin(long time, LoadingFrameModel model, float border) {
+        mSize = 0;
+        mTruncated = false;
+        mBaseTime = time;
+        putInt(MAGIC);
+        putByte(VERSION);
+        putLong(time);
+        putInt((int) model.getDuration());
+        putFloat(model.getMinSweepAngle());
+        putFloat(model.getMaxSweepAngle());
+        putInt(model.getLoadingColor());
+        putInt(model.getErrorColor());
+        putInt(model.getSuccessColor());
+        putFloat(border);
+    }
+
+    void recordStart(long time) {
+        beginRecord(TAG_START, time);
+    }
+
+    void recordStop(long time) {
+        beginRecord(TAG_STOP, time);
+    }
+
+    void recordPause(long time) {
+        beginRecord(TAG_PAUSE, time);
+    }
+
+    void recordResume(long time) {
+        beginRecord(TAG_RESUME, time);
+    }
+
+    void recordState(long time, LoadingDrawable.LoadingState state, int mode) {
+        if (beginRecord(TAG_STATE, time)) {
+            putByte((mode << 2) | state.ordinal());
+        }
+    }
+
+    void recordFrame(long frameTime, LoadingFrame frame) {
+        if (beginRecord(TAG_FRAME, frameTime)) {
+            putByte((frame.getPhase() << 2) | frame.getState());
+            putFloat(frame.getRotation());
+            putFloat(frame.getSweep());
+            putInt(frame.getColor());
+            putFloat(frame.getGlyphProgress());
+        }
+    }
+
+    /**
+     * Writes the tag and time of a record if there is room for the largest record.
+     */
+    private boolean beginRecord(int tag, long time) {
+        if (mBaseTime < 0 || mTruncated) {
+            return false;
+        }
+        if (mSize + MAX_RECORD_SIZE > mBuffer.length) {
+            if (mSize + MAX_RECORD_SIZE > mMaxBytes) {
+                mTruncated = true;
+                return false;
+            }
+            mBuffer = Arrays.copyOf(mBuffer, Math.min(mMaxBytes, mBuffer.length * 2));
+        }
+        putByte(tag);
+        putInt((int) (time - mBaseTime));
+        return true;
+    }
+
+    private void putByte(int value) {
+        mBuffer[mSize++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        final byte[] buffer = mBuffer;
+        buffer[mSize] = (byte) (value >>> 24);
+        buffer[mSize + 1] = (byte) (value >>> 16);
+        buffer[mSize + 2] = (byte) (value >>> 8);
+        buffer[mSize + 3] = (byte) value;
+        mSize += 4;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putFloat(float value) {
+        putInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Size of the trace in bytes, 0 before the recorder was set on a drawable.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Records were dropped because the trace reached its size limit.
+     */
+    public boolean isTruncated() {
+        return mTruncated;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mSize);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(mBuffer, 0, mSize);
+    }
+}
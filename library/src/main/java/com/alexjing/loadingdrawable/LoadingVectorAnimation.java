@@ -0,0 +1,177 @@
+package com.alexjing.loadingdrawable;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Plays a {@link LoadingDrawable} through the animated vectors of {@link LoadingVectorSpec},
+ * which the render thread animates on its own, so the spinner keeps turning while the
+ * main thread is blocked.
+ * <p>
+ * The main thread is only involved twice: to swap in the ERROR or SUCCESS vector when the
+ * completion sweep starts, at the same time the frame model would start it, and to stop
+ * the host once the glyph is drawn.
+ */
+final class LoadingVectorAnimation implements Drawable.Callback, Runnable {
+
+    /**
+     * {@code Build.VERSION_CODES.N_MR1}: earlier releases animate vectors on the main
+     * thread, no better than the ticker.
+     */
+    static final int MIN_SDK = 25;
+
+    private final LoadingDrawable mHost;
+    private final Context mContext;
+    private final LoadingFrameModel mModel;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private Drawable mSpinner;
+    private Drawable mError;
+    private Drawable mSuccess;
+    private Drawable mCurrent;
+
+    private boolean mRunning;
+    private boolean mCompleting;
+    private long mStartTime;
+    private long mTransitionTime = -1;
+    private int mTargetState = LoadingFrameModel.STATE_LOADING;
+
+    LoadingVectorAnimation(LoadingDrawable host, Context context, LoadingFrameModel model) {
+        mHost = host;
+        mContext = context;
+        mModel = model;
+    }
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= MIN_SDK;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    void start() {
+        mRunning = true;
+        mCompleting = false;
+        mStartTime = SystemClock.uptimeMillis();
+        mTransitionTime = -1;
+        mTargetState = LoadingFrameModel.STATE_LOADING;
+        if (mSpinner == null) {
+            mSpinner = load(R.drawable.loading_spinner);
+        }
+        show(mSpinner);
+    }
+
+    void stop() {
+        mRunning = false;
+        mHandler.removeCallbacks(this);
+        if (mCurrent != null) {
+            ((Animatable) mCurrent).stop();
+        }
+    }
+
+    /**
+     * Same rules as the ticker: the completion sweep starts at the end of the growing
+     * sweep after the first request, and the state is locked from then on.
+     */
+    void setState(int state) {
+        if (!mRunning || mCompleting || state == mTargetState) {
+            return;
+        }
+        mTargetState = state;
+        mHandler.removeCallbacks(this);
+        if (state == LoadingFrameModel.STATE_LOADING) {
+            mTransitionTime = -1;
+            return;
+        }
+        if (mTransitionTime < 0) {
+            mTransitionTime = SystemClock.uptimeMillis() - mStartTime;
+        }
+        mHandler.postAtTime(this, mStartTime + mModel.getCompleteStartTime(mTransitionTime));
+    }
+
+    @Override
+    public void run() {
+        if (mCompleting) {
+            mHost.stop();
+            return;
+        }
+        mCompleting = true;
+        if (mTargetState == LoadingFrameModel.STATE_ERROR) {
+            if (mError == null) {
+                mError = load(R.drawable.loading_error);
+            }
+            show(mError);
+        } else {
+            if (mSuccess == null) {
+                mSuccess = load(R.drawable.loading_success);
+            }
+            show(mSuccess);
+        }
+        mHandler.postAtTime(this, SystemClock.uptimeMillis() + mModel.getDuration() + mModel.getGlyphDuration());
+    }
+
+    void draw(Canvas canvas) {
+        if (mCurrent != null) {
+            mCurrent.draw(canvas);
+        }
+    }
+
+    void setBounds(Rect bounds) {
+        if (mCurrent != null) {
+            mCurrent.setBounds(bounds);
+        }
+    }
+
+    void setVisible(boolean visible) {
+        if (mCurrent != null) {
+            mCurrent.setVisible(visible, false);
+        }
+    }
+
+    /**
+     * Vectors loaded from resources share their state, mutate so every host animates its own.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private Drawable load(int id) {
+        final Drawable drawable = mContext.getDrawable(id).mutate();
+        drawable.setCallback(this);
+        return drawable;
+    }
+
+    private void show(Drawable drawable) {
+        if (mCurrent != null && mCurrent != drawable) {
+            ((Animatable) mCurrent).stop();
+        }
+        mCurrent = drawable;
+        drawable.setBounds(mHost.getBounds());
+        drawable.setVisible(mHost.isVisible(), false);
+        ((Animatable) drawable).start();
+        mHost.invalidateSelf();
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        if (who == mCurrent) {
+            mHost.invalidateSelf();
+        }
+    }
+
+    @Override
+    public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        mHost.scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(Drawable who, Runnable what) {
+        mHost.unscheduleSelf(what);
+    }
+}
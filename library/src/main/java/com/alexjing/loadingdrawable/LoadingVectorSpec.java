@@ -0,0 +1,433 @@
+package com.alexjing.loadingdrawable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@link LoadingFrameModel} timeline expressed as {@code AnimatedVectorDrawable}
+ * resources, used by {@link LoadingVectorAnimation}.
+ * <p>
+ * Three animated vectors cover the whole animation: {@link #SPINNER} spins and sweeps
+ * for as long as the state is LOADING, {@link #ERROR} and {@link #SUCCESS} start at the
+ * completion sweep and run it and the glyph. Rotation, sweep and color use the same
+ * interpolators as the model, so the resources reproduce its frames; the glyphs are
+ * drawn by trimming their paths with the model's glyph progress, held at 1 through its
+ * overshoot.
+ * <p>
+ * The checked-in resources under {@code res/drawable-v21} and {@code res/animator-v21}
+ * are {@link #getResources()} of the default configuration, {@code LoadingVectorSpecTest}
+ * keeps them in sync. Lengths are in dp on a {@link #SIZE_DP} viewport, so unlike the
+ * ticker driven drawable the stroke scales with the bounds.
+ * <p>
+ * Has no Android dependencies so it can be checked on a plain JVM.
+ */
+final class LoadingVectorSpec {
+
+    static final float SIZE_DP = 48;
+
+    static final String SPINNER = "loading_spinner";
+    static final String ERROR = "loading_error";
+    static final String SUCCESS = "loading_success";
+
+    static final String GROUP_SPINNER = "spinner";
+    static final String PATH_ARC = "arc";
+    static final String PATH_HOOK = "hook";
+    static final String PATH_CROSS = "cross";
+    static final int CROSS_ARMS = 4;
+
+    static final String PROPERTY_ROTATION = "rotation";
+    static final String PROPERTY_TRIM_PATH_END = "trimPathEnd";
+    static final String PROPERTY_STROKE_COLOR = "strokeColor";
+
+    private static final String ANIMATOR_ROTATION = "loading_spinner_rotation";
+    private static final String ANIMATOR_SWEEP = "loading_spinner_sweep";
+    private static final String ANIMATOR_ERROR_ARC = "loading_error_arc";
+    private static final String ANIMATOR_SUCCESS_ARC = "loading_success_arc";
+    private static final String ANIMATOR_GLYPH = "loading_glyph";
+    private static final String INTERPOLATOR_GLYPH_TRIM = "loading_glyph_trim";
+
+    private static final String ACCELERATE_DECELERATE = "@android:interpolator/accelerate_decelerate";
+    /**
+     * The model's overshoot cut off at 1, as line segments up to where it reaches 1. hwui
+     * wraps a trim past the end of the path instead of clamping it, which would shrink
+     * the glyph to a stub for the rest of the overshoot.
+     */
+    private static final String GLYPH_TRIM = "@interpolator/" + INTERPOLATOR_GLYPH_TRIM;
+    private static final int GLYPH_TRIM_SEGMENTS = 64;
+
+    private static final int REPEAT_INFINITE = -1;
+
+    private final LoadingFrameModel mModel;
+    private final float mBorder;
+
+    private final Map<String, Animation[]> mAnimators = new LinkedHashMap<>();
+    private final Map<String, String[]> mTargets = new LinkedHashMap<>();
+
+    /**
+     * @param borderDp stroke width on the {@link #SIZE_DP} viewport
+     */
+    LoadingVectorSpec(LoadingFrameModel model, float borderDp) {
+        mModel = model;
+        mBorder = borderDp;
+
+        final long duration = model.getDuration();
+        final float maxTrim = model.getMaxSweepAngle() / 360f;
+        final float minTrim = model.getMinSweepAngle() / 360f;
+        mAnimators.put(ANIMATOR_ROTATION, new Animation[]{
+                new Animation(PROPERTY_ROTATION, 0, 360, 0, duration, REPEAT_INFINITE, false, ACCELERATE_DECELERATE)
+        });
+        mAnimators.put(ANIMATOR_SWEEP, new Animation[]{
+                new Animation(PROPERTY_TRIM_PATH_END, 0, maxTrim, 0, duration, 0, false, ACCELERATE_DECELERATE),
+                new Animation(PROPERTY_TRIM_PATH_END, maxTrim, minTrim, duration, duration, REPEAT_INFINITE, true,
+                        ACCELERATE_DECELERATE)
+        });
+        mAnimators.put(ANIMATOR_ERROR_ARC, completeAnimations(model.getErrorColor()));
+        mAnimators.put(ANIMATOR_SUCCESS_ARC, completeAnimations(model.getSuccessColor()));
+        mAnimators.put(ANIMATOR_GLYPH, new Animation[]{
+                new Animation(PROPERTY_TRIM_PATH_END, 0, 1, duration, model.getGlyphDuration(), 0, false, GLYPH_TRIM)
+        });
+
+        mTargets.put(SPINNER, new String[]{GROUP_SPINNER, ANIMATOR_ROTATION, PATH_ARC, ANIMATOR_SWEEP});
+        final String[] errorTargets = new String[4 + CROSS_ARMS * 2];
+        errorTargets[0] = GROUP_SPINNER;
+        errorTargets[1] = ANIMATOR_ROTATION;
+        errorTargets[2] = PATH_ARC;
+        errorTargets[3] = ANIMATOR_ERROR_ARC;
+        for (int i = 0; i < CROSS_ARMS; i++) {
+            errorTargets[4 + i * 2] = PATH_CROSS + i;
+            errorTargets[5 + i * 2] = ANIMATOR_GLYPH;
+        }
+        mTargets.put(ERROR, errorTargets);
+        mTargets.put(SUCCESS, new String[]{GROUP_SPINNER, ANIMATOR_ROTATION, PATH_ARC, ANIMATOR_SUCCESS_ARC,
+                PATH_HOOK, ANIMATOR_GLYPH});
+    }
+
+    private Animation[] completeAnimations(int stateColor) {
+        final long duration = mModel.getDuration();
+        return new Animation[]{
+                new Animation(PROPERTY_TRIM_PATH_END, mModel.getMaxSweepAngle() / 360f, 1, 0, duration, 0, false,
+                        ACCELERATE_DECELERATE),
+                new Animation(PROPERTY_STROKE_COLOR, mModel.getLoadingColor(), stateColor, 0, duration)
+        };
+    }
+
+    /**
+     * Value the animated vector {@code drawable} gives {@code property} of {@code target}
+     * at {@code time} ms after it was started, {@code initial} while no animator has
+     * started yet.
+     */
+    float sample(String drawable, String target, String property, long time, float initial) {
+        final Animation animation = findAnimation(drawable, target, property, time);
+        return animation != null ? animation.valueAt(time) : initial;
+    }
+
+    int sampleColor(String drawable, String target, long time, int initial) {
+        final Animation animation = findAnimation(drawable, target, PROPERTY_STROKE_COLOR, time);
+        return animation != null ? animation.colorAt(time) : initial;
+    }
+
+    /**
+     * The animator that owns the property at {@code time}: the one started last.
+     */
+    private Animation findAnimation(String drawable, String target, String property, long time) {
+        final String[] targets = mTargets.get(drawable);
+        Animation owner = null;
+        for (int i = 0; i < targets.length; i += 2) {
+            if (!targets[i].equals(target)) {
+                continue;
+            }
+            for (Animation animation : mAnimators.get(targets[i + 1])) {
+                if (animation.mProperty.equals(property) && time >= animation.mStartOffset
+                        && (owner == null || animation.mStartOffset >= owner.mStartOffset)) {
+                    owner = animation;
+                }
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Resource files by path relative to {@code res/}.
+     */
+    Map<String, String> getResources() {
+        final Map<String, String> files = new LinkedHashMap<>();
+        files.put("drawable-v21/" + SPINNER + ".xml", animatedVectorXml(SPINNER));
+        files.put("drawable-v21/" + SPINNER + "_vector.xml", vectorXml(mModel.getLoadingColor(), 0, null));
+        files.put("drawable-v21/" + ERROR + ".xml", animatedVectorXml(ERROR));
+        files.put("drawable-v21/" + ERROR + "_vector.xml", vectorXml(mModel.getErrorColor(),
+                mModel.getMaxSweepAngle() / 360f, crossPaths()));
+        files.put("drawable-v21/" + SUCCESS + ".xml", animatedVectorXml(SUCCESS));
+        files.put("drawable-v21/" + SUCCESS + "_vector.xml", vectorXml(mModel.getSuccessColor(),
+                mModel.getMaxSweepAngle() / 360f, hookPath()));
+        for (Map.Entry<String, Animation[]> animator : mAnimators.entrySet()) {
+            files.put("animator-v21/" + animator.getKey() + ".xml", animatorXml(animator.getValue()));
+        }
+        files.put("interpolator-v21/" + INTERPOLATOR_GLYPH_TRIM + ".xml", glyphTrimXml());
+        return files;
+    }
+
+    /**
+     * Glyph trim at {@code input}, the {@link #GLYPH_TRIM} interpolator. Never past 1.
+     */
+    static float glyphTrim(float input) {
+        if (input >= LoadingFrameModel.OVERSHOOT_END_INPUT) {
+            return 1f;
+        }
+        final float position = input / LoadingFrameModel.OVERSHOOT_END_INPUT * GLYPH_TRIM_SEGMENTS;
+        final int index = (int) position;
+        final float start = glyphTrimPoint(index);
+        return start + (position - index) * (glyphTrimPoint(index + 1) - start);
+    }
+
+    private static float glyphTrimInput(int index) {
+        return index * LoadingFrameModel.OVERSHOOT_END_INPUT / GLYPH_TRIM_SEGMENTS;
+    }
+
+    private static float glyphTrimPoint(int index) {
+        return index == GLYPH_TRIM_SEGMENTS ? 1f : LoadingFrameModel.overshoot(glyphTrimInput(index));
+    }
+
+    private static String glyphTrimXml() {
+        final StringBuilder path = new StringBuilder("M0,0");
+        for (int i = 1; i <= GLYPH_TRIM_SEGMENTS; i++) {
+            path.append(" L").append(point(glyphTrimInput(i), glyphTrimPoint(i)));
+        }
+        path.append(" L1,1");
+        return header().append("<pathInterpolator xmlns:android=\"http://schemas.android.com/apk/res/android\"\n")
+                .append("    android:pathData=\"").append(path).append("\" />\n").toString();
+    }
+
+    private float getCenter() {
+        return SIZE_DP / 2f;
+    }
+
+    /**
+     * Half the width of the arc's bounds, which are inset by half the stroke.
+     */
+    private float getHalfWidth() {
+        return (SIZE_DP - mBorder) / 2f;
+    }
+
+    private List<String[]> crossPaths() {
+        final float c = getCenter();
+        final float offset = getHalfWidth() * 5f / 12;
+        final List<String[]> paths = new ArrayList<>();
+        for (int i = 0; i < CROSS_ARMS; i++) {
+            final int xSign = i < 2 ? 1 : -1;
+            final int ySign = i > 0 && i < 3 ? -1 : 1;
+            paths.add(new String[]{PATH_CROSS + i,
+                    "M" + point(c, c) + " L" + point(c + xSign * offset, c + ySign * offset)});
+        }
+        return paths;
+    }
+
+    private List<String[]> hookPath() {
+        final float c = getCenter();
+        final float half = getHalfWidth();
+        final List<String[]> paths = new ArrayList<>();
+        paths.add(new String[]{PATH_HOOK,
+                "M" + point(c - .8f * half, c - .39f * half)
+                        + " L" + point(c - .12f * half, c + .375f * half)
+                        + " L" + point(c + .48f * half, c - .29f * half)});
+        return paths;
+    }
+
+    private String arcPathData() {
+        final float c = getCenter();
+        final float r = getHalfWidth();
+        final String radii = " A" + point(r, r) + " 0 1 1 ";
+        // two half circles clockwise from 3 o'clock, where drawArc starts
+        return "M" + point(c + r, c) + radii + point(c - r, c) + radii + point(c + r, c);
+    }
+
+    private String vectorXml(int glyphColor, float arcTrim, List<String[]> glyphPaths) {
+        final StringBuilder xml = header();
+        xml.append("<vector xmlns:android=\"http://schemas.android.com/apk/res/android\"\n")
+                .append("    android:width=\"").append(format(SIZE_DP)).append("dp\"\n")
+                .append("    android:height=\"").append(format(SIZE_DP)).append("dp\"\n")
+                .append("    android:viewportWidth=\"").append(format(SIZE_DP)).append("\"\n")
+                .append("    android:viewportHeight=\"").append(format(SIZE_DP)).append("\">\n")
+                .append("    <group\n")
+                .append("        android:name=\"").append(GROUP_SPINNER).append("\"\n")
+                .append("        android:pivotX=\"").append(format(getCenter())).append("\"\n")
+                .append("        android:pivotY=\"").append(format(getCenter())).append("\">\n");
+        appendPath(xml, "        ", PATH_ARC, arcPathData(), mModel.getLoadingColor(), arcTrim);
+        xml.append("    </group>\n");
+        if (glyphPaths != null) {
+            for (String[] path : glyphPaths) {
+                appendPath(xml, "    ", path[0], path[1], glyphColor, 0);
+            }
+        }
+        return xml.append("</vector>\n").toString();
+    }
+
+    private void appendPath(StringBuilder xml, String indent, String name, String pathData, int color, float trim) {
+        xml.append(indent).append("<path\n")
+                .append(indent).append("    android:name=\"").append(name).append("\"\n")
+                .append(indent).append("    android:pathData=\"").append(pathData).append("\"\n")
+                .append(indent).append("    android:strokeColor=\"").append(color(color)).append("\"\n")
+                .append(indent).append("    android:strokeWidth=\"").append(format(mBorder)).append("\"\n")
+                .append(indent).append("    android:strokeLineCap=\"round\"\n")
+                .append(indent).append("    android:strokeLineJoin=\"round\"\n")
+                .append(indent).append("    android:trimPathEnd=\"").append(format(trim)).append("\" />\n");
+    }
+
+    private String animatedVectorXml(String drawable) {
+        final StringBuilder xml = header();
+        xml.append("<animated-vector xmlns:android=\"http://schemas.android.com/apk/res/android\"\n")
+                .append("    android:drawable=\"@drawable/").append(drawable).append("_vector\">\n");
+        final String[] targets = mTargets.get(drawable);
+        for (int i = 0; i < targets.length; i += 2) {
+            xml.append("    <target\n")
+                    .append("        android:name=\"").append(targets[i]).append("\"\n")
+                    .append("        android:animation=\"@animator/").append(targets[i + 1]).append("\" />\n");
+        }
+        return xml.append("</animated-vector>\n").toString();
+    }
+
+    private static String animatorXml(Animation[] animations) {
+        final StringBuilder xml = header();
+        if (animations.length == 1) {
+            animations[0].appendXml(xml, "", true);
+            return xml.toString();
+        }
+        xml.append("<set xmlns:android=\"http://schemas.android.com/apk/res/android\">\n");
+        for (Animation animation : animations) {
+            animation.appendXml(xml, "    ", false);
+        }
+        return xml.append("</set>\n").toString();
+    }
+
+    private static StringBuilder header() {
+        return new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                .append("<!-- Generated by LoadingVectorSpec, do not edit. -->\n");
+    }
+
+    private static String point(float x, float y) {
+        return format(x) + "," + format(y);
+    }
+
+    static String format(float value) {
+        final String text = String.format(Locale.US, "%.5f", value);
+        int end = text.length();
+        while (text.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (text.charAt(end - 1) == '.') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static String color(int argb) {
+        return String.format(Locale.US, "#%08X", argb);
+    }
+
+    /**
+     * One {@code objectAnimator}, evaluated the way the framework plays it.
+     */
+    static final class Animation {
+        final String mProperty;
+        final float mFrom;
+        final float mTo;
+        final int mFromColor;
+        final int mToColor;
+        final boolean mColor;
+        final long mStartOffset;
+        final long mDuration;
+        final int mRepeatCount;
+        final boolean mReverse;
+        final String mInterpolator;
+
+        Animation(String property, float from, float to, long startOffset, long duration, int repeatCount,
+                  boolean reverse, String interpolator) {
+            mProperty = property;
+            mFrom = from;
+            mTo = to;
+            mFromColor = 0;
+            mToColor = 0;
+            mColor = false;
+            mStartOffset = startOffset;
+            mDuration = duration;
+            mRepeatCount = repeatCount;
+            mReverse = reverse;
+            mInterpolator = interpolator;
+        }
+
+        Animation(String property, int fromColor, int toColor, long startOffset, long duration) {
+            mProperty = property;
+            mFrom = 0;
+            mTo = 0;
+            mFromColor = fromColor;
+            mToColor = toColor;
+            mColor = true;
+            mStartOffset = startOffset;
+            mDuration = duration;
+            mRepeatCount = 0;
+            mReverse = false;
+            mInterpolator = ACCELERATE_DECELERATE;
+        }
+
+        float valueAt(long time) {
+            return mFrom + interpolatedFraction(time) * (mTo - mFrom);
+        }
+
+        int colorAt(long time) {
+            return LoadingFrameModel.blendArgb(interpolatedFraction(time), mFromColor, mToColor);
+        }
+
+        private float interpolatedFraction(long time) {
+            final long local = time - mStartOffset;
+            final long iteration;
+            float fraction;
+            if (mRepeatCount != REPEAT_INFINITE && local >= mDuration * (mRepeatCount + 1)) {
+                // ended, holds the value its last iteration ended at
+                iteration = mRepeatCount;
+                fraction = 1f;
+            } else {
+                iteration = local / mDuration;
+                fraction = (local % mDuration) / (float) mDuration;
+            }
+            if (mReverse && iteration % 2 == 1) {
+                fraction = 1f - fraction;
+            }
+            return GLYPH_TRIM.equals(mInterpolator)
+                    ? glyphTrim(fraction) : LoadingFrameModel.accelerateDecelerate(fraction);
+        }
+
+        void appendXml(StringBuilder xml, String indent, boolean root) {
+            xml.append(indent).append("<objectAnimator");
+            if (root) {
+                xml.append(" xmlns:android=\"http://schemas.android.com/apk/res/android\"");
+            }
+            xml.append('\n');
+            final String attr = indent + "    android:";
+            xml.append(attr).append("propertyName=\"").append(mProperty).append("\"\n");
+            if (mColor) {
+                xml.append(attr).append("valueFrom=\"").append(color(mFromColor)).append("\"\n")
+                        .append(attr).append("valueTo=\"").append(color(mToColor)).append("\"\n")
+                        .append(attr).append("valueType=\"colorType\"\n");
+            } else {
+                xml.append(attr).append("valueFrom=\"").append(format(mFrom)).append("\"\n")
+                        .append(attr).append("valueTo=\"").append(format(mTo)).append("\"\n")
+                        .append(attr).append("valueType=\"floatType\"\n");
+            }
+            if (mStartOffset > 0) {
+                xml.append(attr).append("startOffset=\"").append(mStartOffset).append("\"\n");
+            }
+            xml.append(attr).append("duration=\"").append(mDuration).append("\"\n");
+            if (mRepeatCount != 0) {
+                xml.append(attr).append("repeatCount=\"")
+                        .append(mRepeatCount == REPEAT_INFINITE ? "infinite" : String.valueOf(mRepeatCount))
+                        .append("\"\n");
+            }
+            if (mReverse) {
+                xml.append(attr).append("repeatMode=\"reverse\"\n");
+            }
+            xml.append(attr).append("interpolator=\"").append(mInterpolator).append("\" />\n");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameRatePolicyTest {
+
+    @Test
+    public void cappedRateShowsExactlyFpsFramesPerSecond() {
+        for (int fps : new int[]{24, 30, 45, 60}) {
+            final long interval = FrameRatePolicy.capped(fps).getFrameInterval(null, 0);
+            int frames = 0;
+            long last = -1;
+            for (long elapsed = 0; elapsed < 10000; elapsed++) {
+                final long snapped = FrameRatePolicy.snap(elapsed, interval);
+                if (snapped != last) {
+                    frames++;
+                    last = snapped;
+                }
+            }
+            assertEquals(fps + " fps", 10 * fps, frames);
+        }
+    }
+
+    @Test
+    public void gridStaysOnWholeSeconds() {
+        final long interval = FrameRatePolicy.capped(24).getFrameInterval(null, 0);
+        // frames start at 41.7, 83.3, ... ms
+        assertEquals(0, FrameRatePolicy.snap(41, interval));
+        assertEquals(42, FrameRatePolicy.snap(42, interval));
+        assertEquals(42, FrameRatePolicy.snap(83, interval));
+        assertEquals(84, FrameRatePolicy.snap(84, interval));
+        assertEquals(1000, FrameRatePolicy.snap(1000, interval));
+        assertEquals(60000, FrameRatePolicy.snap(60040, interval));
+    }
+}
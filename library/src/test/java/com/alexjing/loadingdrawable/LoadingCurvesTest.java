@@ -0,0 +1,75 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The lookup tables must stay within tolerance of the formulas they replace.
+ */
+public class LoadingCurvesTest {
+
+    private static final int SAMPLES = 100000;
+    private static final float CURVE_TOLERANCE = 1e-4f;
+
+    private static final int LOADING = 0xFF5677FC;
+    private static final int ERROR = 0xFFE51C23;
+    private static final int SUCCESS = 0xFF259B24;
+
+    @Test
+    public void accelerateDecelerateMatchesFormula() {
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float input = i / (float) SAMPLES;
+            assertEquals("at " + input, LoadingFrameModel.accelerateDecelerate(input),
+                    LoadingCurves.accelerateDecelerate(input), CURVE_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void overshootMatchesFormula() {
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float input = i / (float) SAMPLES;
+            assertEquals("at " + input, LoadingFrameModel.overshoot(input), LoadingCurves.overshoot(input),
+                    CURVE_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void sineMatchesMath() {
+        for (int i = -SAMPLES; i <= SAMPLES; i++) {
+            final float degrees = i * 720f / SAMPLES;
+            final double radians = Math.toRadians(degrees);
+            assertEquals("at " + degrees, Math.sin(radians), LoadingCurves.sin(degrees), CURVE_TOLERANCE);
+            assertEquals("at " + degrees, Math.cos(radians), LoadingCurves.cos(degrees), CURVE_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void curvesClampOutsideTheUnitInterval() {
+        assertEquals(LoadingFrameModel.accelerateDecelerate(0f), LoadingCurves.accelerateDecelerate(-1f), 0f);
+        assertEquals(LoadingFrameModel.overshoot(1f), LoadingCurves.overshoot(2f), 0f);
+        assertEquals(LoadingFrameModel.accelerateDecelerate(0f), LoadingCurves.accelerateDecelerate(Float.NaN), 0f);
+    }
+
+    @Test
+    public void colorRampMatchesBlend() {
+        checkRamp(LOADING, ERROR);
+        checkRamp(LOADING, SUCCESS);
+        checkRamp(0x00000000, 0xFFFFFFFF);
+    }
+
+    private static void checkRamp(int start, int end) {
+        final int[] ramp = LoadingCurves.colorRamp(start, end);
+        assertEquals(start, LoadingCurves.color(ramp, 0f));
+        assertEquals(end, LoadingCurves.color(ramp, 1f));
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float fraction = i / (float) SAMPLES;
+            final int expected = LoadingFrameModel.blendArgb(fraction, start, end);
+            final int actual = LoadingCurves.color(ramp, fraction);
+            for (int shift = 0; shift < 32; shift += 8) {
+                assertEquals(Integer.toHexString(expected) + " vs " + Integer.toHexString(actual) + " at " + fraction,
+                        (expected >>> shift) & 0xff, (actual >>> shift) & 0xff, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadingFrameModelTest {
+
+    private static final long DURATION = 800;
+    private static final int LOADING = 0xFF5677FC;
+    private static final int ERROR = 0xFFE51C23;
+    private static final int SUCCESS = 0xFF259B24;
+
+    private final LoadingFrameModel mModel = new LoadingFrameModel(DURATION, 10, 180, LOADING, ERROR, SUCCESS);
+    private final LoadingFrame mFrame = new LoadingFrame();
+
+    @Test
+    public void firstSweepGrowsFromZeroToMax() {
+        evaluateLoading(0);
+        assertEquals(LoadingFrameModel.PHASE_APPEARING, mFrame.getPhase());
+        assertEquals(0f, mFrame.getSweep(), 0.001f);
+
+        evaluateLoading(DURATION / 2);
+        assertEquals(90f, mFrame.getSweep(), 0.001f);
+        assertEquals(180f, mFrame.getRotation(), 0.001f);
+    }
+
+    @Test
+    public void sweepAlternatesBetweenMaxAndMin() {
+        evaluateLoading(DURATION);
+        assertEquals(LoadingFrameModel.PHASE_DISAPPEARING, mFrame.getPhase());
+        assertEquals(180f, mFrame.getSweep(), 0.001f);
+
+        evaluateLoading(2 * DURATION);
+        assertEquals(LoadingFrameModel.PHASE_APPEARING, mFrame.getPhase());
+        assertEquals(10f, mFrame.getSweep(), 0.001f);
+
+        evaluateLoading(3 * DURATION - 1);
+        assertTrue(mFrame.getSweep() > 179f);
+        assertEquals(LOADING, mFrame.getColor());
+    }
+
+    @Test
+    public void completionWaitsForEndOfGrowingSweep() {
+        // requested while shrinking, completes after the following growth
+        assertEquals(3 * DURATION, mModel.getCompleteStartTime(DURATION + 10));
+        assertEquals(DURATION, mModel.getCompleteStartTime(10));
+        assertEquals(3 * DURATION, mModel.getCompleteStartTime(3 * DURATION));
+
+        mModel.evaluate(3 * DURATION - 1, LoadingFrameModel.STATE_ERROR, DURATION + 10, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_APPEARING, mFrame.getPhase());
+        assertEquals(LOADING, mFrame.getColor());
+
+        mModel.evaluate(3 * DURATION, LoadingFrameModel.STATE_ERROR, DURATION + 10, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_COMPLETE, mFrame.getPhase());
+        assertEquals(180f, mFrame.getSweep(), 0.001f);
+    }
+
+    @Test
+    public void completionClosesCircleAndBlendsColor() {
+        mModel.evaluate(DURATION + DURATION / 2, LoadingFrameModel.STATE_SUCCESS, 0, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_COMPLETE, mFrame.getPhase());
+        assertEquals(270f, mFrame.getSweep(), 0.001f);
+        assertEquals(LoadingFrameModel.blendArgb(0.5f, LOADING, SUCCESS), mFrame.getColor());
+        assertEquals(0f, mFrame.getGlyphProgress(), 0f);
+    }
+
+    @Test
+    public void glyphOvershootsThenFinishes() {
+        final long glyphStart = 2 * DURATION;
+        mModel.evaluate(glyphStart, LoadingFrameModel.STATE_SUCCESS, 0, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_GLYPH, mFrame.getPhase());
+        assertTrue(mFrame.isGlyphVisible());
+        assertEquals(360f, mFrame.getSweep(), 0f);
+        assertEquals(SUCCESS, mFrame.getColor());
+
+        mModel.evaluate(glyphStart + DURATION / 2 - 100, LoadingFrameModel.STATE_SUCCESS, 0, mFrame);
+        assertTrue(mFrame.getGlyphProgress() > 1f);
+
+        mModel.evaluate(mModel.getFinishTime(0), LoadingFrameModel.STATE_SUCCESS, 0, mFrame);
+        assertTrue(mFrame.isFinished());
+        assertEquals(1f, mFrame.getGlyphProgress(), 0f);
+    }
+
+    @Test
+    public void farFutureTimestampIsEvaluatedDirectly() {
+        final long transition = 1000L * 60 * 60 * 24;
+        final long completeStart = mModel.getCompleteStartTime(transition);
+        assertTrue(completeStart >= transition);
+        assertEquals(1, (completeStart / DURATION) % 2);
+
+        mModel.evaluate(completeStart + 1, LoadingFrameModel.STATE_ERROR, transition, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_COMPLETE, mFrame.getPhase());
+
+        mModel.evaluate(Long.MAX_VALUE / 2, LoadingFrameModel.STATE_ERROR, transition, mFrame);
+        assertTrue(mFrame.isFinished());
+        assertEquals(ERROR, mFrame.getColor());
+    }
+
+    @Test
+    public void curvesMatchFrameworkFormulas() {
+        assertEquals(0f, LoadingFrameModel.accelerateDecelerate(0f), 0.0001f);
+        assertEquals(0.5f, LoadingFrameModel.accelerateDecelerate(0.5f), 0.0001f);
+        assertEquals(1f, LoadingFrameModel.accelerateDecelerate(1f), 0.0001f);
+        assertEquals(0f, LoadingFrameModel.overshoot(0f), 0.0001f);
+        assertEquals(1f, LoadingFrameModel.overshoot(1f), 0.0001f);
+        assertEquals(LOADING, LoadingFrameModel.blendArgb(0f, LOADING, ERROR));
+        assertEquals(ERROR, LoadingFrameModel.blendArgb(1f, LOADING, ERROR));
+    }
+
+    private void evaluateLoading(long time) {
+        mModel.evaluate(time, LoadingFrameModel.STATE_LOADING, LoadingFrameModel.NO_TRANSITION, mFrame);
+    }
+
+    @Test
+    public void progressEasesTowardTarget() {
+        float sweep = 0f;
+        float previous = -1f;
+        for (int frame = 0; frame < 60; frame++) {
+            sweep = mModel.stepProgress(sweep, 180f, 16);
+            assertTrue(sweep >= previous && sweep <= 180f);
+            previous = sweep;
+        }
+        assertEquals(180f, sweep, 0f);
+        assertEquals(90f, mModel.stepProgress(90f, 90f, 16), 0f);
+        assertEquals(10f, mModel.stepProgress(10f, 200f, 0), 0f);
+    }
+
+    @Test
+    public void progressClosesFromItsSweep() {
+        mModel.evaluateProgress(100, 72f, LoadingFrameModel.STATE_LOADING, LoadingFrameModel.NO_TRANSITION, mFrame);
+        assertEquals(LoadingFrameModel.PROGRESS_ROTATION, mFrame.getRotation(), 0f);
+        assertEquals(72f, mFrame.getSweep(), 0f);
+        assertEquals(LOADING, mFrame.getColor());
+
+        final long completeStart = 1000;
+        mModel.evaluateProgress(completeStart, 72f, LoadingFrameModel.STATE_SUCCESS, completeStart, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_COMPLETE, mFrame.getPhase());
+        assertEquals(72f, mFrame.getSweep(), 0.001f);
+
+        mModel.evaluateProgress(completeStart + DURATION / 2, 72f, LoadingFrameModel.STATE_SUCCESS, completeStart, mFrame);
+        assertEquals(216f, mFrame.getSweep(), 0.001f);
+        assertEquals(LoadingFrameModel.PROGRESS_ROTATION, mFrame.getRotation(), 0f);
+
+        mModel.evaluateProgress(completeStart + DURATION + mModel.getGlyphDuration(), 72f,
+                LoadingFrameModel.STATE_SUCCESS, completeStart, mFrame);
+        assertTrue(mFrame.isFinished());
+        assertEquals(SUCCESS, mFrame.getColor());
+    }
+
+    @Test
+    public void immediateCompletionClosesFromCurrentSweep() {
+        final long completeStart = DURATION + 200;
+        evaluateLoading(completeStart);
+        final float sweep = mFrame.getSweep();
+        final float rotation = mFrame.getRotation();
+
+        mModel.evaluateCompletion(completeStart, LoadingFrameModel.STATE_ERROR, completeStart, sweep, mFrame);
+        assertEquals(LoadingFrameModel.PHASE_COMPLETE, mFrame.getPhase());
+        assertEquals(sweep, mFrame.getSweep(), 0.001f);
+        assertEquals(rotation, mFrame.getRotation(), 0.001f);
+
+        // a frame quantized to before the request does not run the sweep backwards
+        mModel.evaluateCompletion(completeStart - 16, LoadingFrameModel.STATE_ERROR, completeStart, sweep, mFrame);
+        assertEquals(sweep, mFrame.getSweep(), 0.001f);
+
+        mModel.evaluateCompletion(completeStart + DURATION + mModel.getGlyphDuration(), LoadingFrameModel.STATE_ERROR,
+                completeStart, sweep, mFrame);
+        assertTrue(mFrame.isFinished());
+        assertEquals(ERROR, mFrame.getColor());
+    }
+}
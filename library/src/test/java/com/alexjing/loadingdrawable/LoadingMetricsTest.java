@@ -0,0 +1,60 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoadingMetricsTest {
+
+    @Test
+    public void histogramBucketsByPowerOfTwo() {
+        final LoadingMetrics.Histogram histogram = new LoadingMetrics().getDrawTime();
+        histogram.record(1);
+        histogram.record(1000);
+        histogram.record(1023);
+        histogram.record(1024);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(2, histogram.getBucketCount(9));
+        assertEquals(1, histogram.getBucketCount(10));
+        assertEquals(1024, histogram.getMaxNanos());
+        assertEquals(1023, histogram.getPercentileNanos(75));
+        assertEquals(1024, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void phaseTimeIsChargedToThePreviousPhase() {
+        final LoadingMetrics metrics = new LoadingMetrics();
+        metrics.recordUpdate(10, LoadingFrameModel.PHASE_APPEARING, 1000);
+        metrics.recordUpdate(10, LoadingFrameModel.PHASE_APPEARING, 1016);
+        metrics.recordUpdate(10, LoadingFrameModel.PHASE_COMPLETE, 1032);
+        metrics.markIdle();
+        metrics.recordUpdate(10, LoadingFrameModel.PHASE_GLYPH, 5000);
+        metrics.recordUpdate(10, LoadingFrameModel.PHASE_GLYPH, 5016);
+
+        assertEquals(16, metrics.getLoadingTime());
+        assertEquals(32, metrics.getCompletionTime());
+        assertEquals(5, metrics.getUpdateTime().getCount());
+    }
+
+    @Test
+    public void addMergesAndResetClears() {
+        final LoadingMetrics a = new LoadingMetrics();
+        final LoadingMetrics b = new LoadingMetrics();
+        a.recordDraw(100);
+        a.recordInvalidation();
+        b.recordDraw(300);
+        b.recordInvalidation();
+        b.recordInvalidation();
+
+        a.add(b);
+        assertEquals(2, a.getFramesDrawn());
+        assertEquals(3, a.getInvalidations());
+        assertEquals(200, a.getDrawTime().getMeanNanos());
+
+        a.reset();
+        assertEquals(0, a.getFramesDrawn());
+        assertEquals(0, a.getDrawTime().getCount());
+    }
+}
@@ -0,0 +1,69 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LoadingPhaseTest {
+
+    private static LoadingFrameModel model(float maxSweepAngle) {
+        return new LoadingFrameModel(800, 10, maxSweepAngle, 0xFF5677FC, 0xFFE51C23, 0xFF259B24);
+    }
+
+    @Test
+    public void equalConfigurationsShareAPhase() {
+        assertEquals(model(180), model(180));
+        assertEquals(model(180).hashCode(), model(180).hashCode());
+        assertSame(LoadingPhase.obtain(model(180)), LoadingPhase.obtain(model(180)));
+        assertNotSame(LoadingPhase.obtain(model(180)), LoadingPhase.obtain(model(270)));
+    }
+
+    @Test
+    public void phasesInUseAreNeverEvicted() {
+        final LoadingPhase phase = LoadingPhase.obtain(model(200));
+        phase.getEpoch(5000);
+        // far more idle configurations than the cache keeps
+        for (int i = 0; i < 100; i++) {
+            LoadingPhase.obtain(model(300 + i)).release();
+        }
+        final LoadingPhase joined = LoadingPhase.obtain(model(200));
+        assertSame(phase, joined);
+        assertEquals(5000, joined.getEpoch(9000));
+        joined.release();
+        phase.release();
+
+        // without members it only stays while the cache has room
+        for (int i = 0; i < 100; i++) {
+            LoadingPhase.obtain(model(300 + i)).release();
+        }
+        final LoadingPhase fresh = LoadingPhase.obtain(model(200));
+        assertNotSame(phase, fresh);
+        fresh.release();
+    }
+
+    @Test
+    public void epochIsTheFirstFrame() {
+        final LoadingPhase phase = LoadingPhase.obtain(model(90));
+        final long epoch = phase.getEpoch(5000);
+        assertEquals(epoch, phase.getEpoch(9000));
+    }
+
+    @Test
+    public void evaluatesOncePerFrameTime() {
+        final LoadingFrameModel model = model(120);
+        final LoadingPhase phase = LoadingPhase.obtain(model);
+        final int before = phase.getEvaluationCount();
+        for (int i = 0; i < 50; i++) {
+            phase.evaluate(1016);
+        }
+        phase.evaluate(1032);
+        assertEquals(before + 2, phase.getEvaluationCount());
+
+        final LoadingFrame expected = new LoadingFrame();
+        model.evaluate(1032, LoadingFrameModel.STATE_LOADING, LoadingFrameModel.NO_TRANSITION, expected);
+        assertTrue(expected.sameAs(phase.evaluate(1032)));
+    }
+}
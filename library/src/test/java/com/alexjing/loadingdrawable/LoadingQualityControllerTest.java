@@ -0,0 +1,121 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoadingQualityControllerTest {
+
+    private static final long VSYNC = 16;
+    private static final long JANK = 50;
+
+    private long mTime = 1000;
+
+    private void frames(LoadingQualityController controller, int count, long interval) {
+        for (int i = 0; i < count; i++) {
+            mTime += interval;
+            controller.onFrame(mTime);
+        }
+    }
+
+    @Test
+    public void stepsDownOneTierPerWindowOfMissedFrames() {
+        final LoadingQualityController controller = new LoadingQualityController();
+        controller.onFrame(mTime);
+        frames(controller, LoadingQualityController.WINDOW_FRAMES - 1, JANK);
+        assertEquals(LoadingQualityController.TIER_FULL, controller.getTier());
+        frames(controller, 1, JANK);
+        assertEquals(LoadingQualityController.TIER_REDUCED_RATE, controller.getTier());
+        assertEquals(LoadingQualityController.REASON_MISSED_FRAMES, controller.getLastReason());
+
+        frames(controller, 10 * LoadingQualityController.WINDOW_FRAMES, JANK);
+        assertEquals(LoadingQualityController.TIER_CACHED, controller.getTier());
+        assertEquals(4, controller.getTransitionCount());
+    }
+
+    @Test
+    public void neverStepsBelowMaxTier() {
+        final LoadingQualityController controller =
+                new LoadingQualityController(60, LoadingQualityController.TIER_BUTT_CAPS);
+        controller.onFrame(mTime);
+        frames(controller, 10 * LoadingQualityController.WINDOW_FRAMES, JANK);
+        assertEquals(LoadingQualityController.TIER_BUTT_CAPS, controller.getTier());
+    }
+
+    @Test
+    public void stepsUpOnlyAfterALongHealthyRun() {
+        final LoadingQualityController controller = new LoadingQualityController();
+        controller.onFrame(mTime);
+        frames(controller, 2 * LoadingQualityController.WINDOW_FRAMES, JANK);
+        assertEquals(LoadingQualityController.TIER_BUTT_CAPS, controller.getTier());
+
+        frames(controller, LoadingQualityController.STEP_UP_HEALTHY_FRAMES - 1, VSYNC);
+        assertEquals(LoadingQualityController.TIER_BUTT_CAPS, controller.getTier());
+        frames(controller, 1, VSYNC);
+        assertEquals(LoadingQualityController.TIER_REDUCED_RATE, controller.getTier());
+        assertEquals(LoadingQualityController.REASON_RECOVERED, controller.getLastReason());
+        frames(controller, LoadingQualityController.STEP_UP_HEALTHY_FRAMES, VSYNC);
+        assertEquals(LoadingQualityController.TIER_FULL, controller.getTier());
+    }
+
+    @Test
+    public void borderlineJankDoesNotOscillate() {
+        final LoadingQualityController controller = new LoadingQualityController();
+        final List<Integer> reasons = new ArrayList<>();
+        controller.setListener(new LoadingQualityController.Listener() {
+            @Override
+            public void onTierChanged(LoadingQualityController c, int previousTier, int tier, int reason) {
+                reasons.add(reason);
+            }
+        });
+        controller.onFrame(mTime);
+        // four missed frames per window stay under the threshold, and no run is healthy long enough to step up
+        for (int i = 0; i < 1000; i++) {
+            frames(controller, 7, VSYNC);
+            frames(controller, 1, JANK);
+        }
+        assertEquals(0, reasons.size());
+
+        // one in four steps down once per window and never back up
+        for (int i = 0; i < 200; i++) {
+            frames(controller, 3, VSYNC);
+            frames(controller, 1, JANK);
+        }
+        assertEquals(LoadingQualityController.TIER_CACHED, controller.getTier());
+        for (int reason : reasons) {
+            assertEquals(LoadingQualityController.REASON_MISSED_FRAMES, reason);
+        }
+    }
+
+    @Test
+    public void sharedFrameTimesAndIdleGapsAreIgnored() {
+        final LoadingQualityController controller = new LoadingQualityController();
+        controller.onFrame(mTime);
+        for (int i = 0; i < 10; i++) {
+            mTime += VSYNC;
+            // three drawables sharing the controller report the same frame
+            controller.onFrame(mTime);
+            controller.onFrame(mTime);
+            controller.onFrame(mTime);
+        }
+        assertEquals(10, controller.getWindowFrames());
+
+        frames(controller, 1, 5000);
+        assertEquals(10, controller.getWindowFrames());
+        assertEquals(0, controller.getMissedFrames());
+    }
+
+    @Test
+    public void resetRestoresFullQuality() {
+        final LoadingQualityController controller = new LoadingQualityController();
+        controller.onFrame(mTime);
+        frames(controller, LoadingQualityController.WINDOW_FRAMES, JANK);
+        controller.reset();
+        assertEquals(LoadingQualityController.TIER_FULL, controller.getTier());
+        assertEquals(LoadingQualityController.REASON_RESET, controller.getLastReason());
+        assertEquals(0, controller.getWindowFrames());
+    }
+}
@@ -0,0 +1,149 @@
+package com.alexjing.loadingdrawable;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays the generated vector animations against {@link LoadingFrameModel} and checks the
+ * checked-in resources are what {@link LoadingVectorSpec} generates. Run with
+ * {@code -DupdateVectorResources=true} to rewrite them after changing the spec.
+ */
+public class LoadingVectorSpecTest {
+
+    // LoadingDrawable's defaults
+    private static final long DURATION = 800;
+    private static final int LOADING = 0xFF5677FC;
+    private static final int ERROR = 0xFFE51C23;
+    private static final int SUCCESS = 0xFF259B24;
+    private static final float BORDER_DP = 4;
+
+    private static final long STEP = 5;
+    private static final float ANGLE_TOLERANCE = 0.01f;
+
+    private static final File RES_DIR = new File("src/main/res");
+
+    private final LoadingFrameModel mModel = new LoadingFrameModel(DURATION, 10, 180, LOADING, ERROR, SUCCESS);
+    private final LoadingVectorSpec mSpec = new LoadingVectorSpec(mModel, BORDER_DP);
+    private final LoadingFrame mFrame = new LoadingFrame();
+
+    @Test
+    public void spinnerMatchesModel() {
+        for (long time = 0; time < 6 * DURATION; time += STEP) {
+            mModel.evaluate(time, LoadingFrameModel.STATE_LOADING, LoadingFrameModel.NO_TRANSITION, mFrame);
+            assertEquals("rotation at " + time, mFrame.getRotation(),
+                    mSpec.sample(LoadingVectorSpec.SPINNER, LoadingVectorSpec.GROUP_SPINNER,
+                            LoadingVectorSpec.PROPERTY_ROTATION, time, 0f), ANGLE_TOLERANCE);
+            assertEquals("sweep at " + time, mFrame.getSweep(), sweep(LoadingVectorSpec.SPINNER, time, 0f),
+                    ANGLE_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void errorMatchesModel() {
+        checkCompletion(LoadingVectorSpec.ERROR, LoadingFrameModel.STATE_ERROR,
+                LoadingVectorSpec.PATH_CROSS + 0);
+    }
+
+    @Test
+    public void successMatchesModel() {
+        checkCompletion(LoadingVectorSpec.SUCCESS, LoadingFrameModel.STATE_SUCCESS, LoadingVectorSpec.PATH_HOOK);
+    }
+
+    /**
+     * The terminal vector is started when the completion sweep starts and replaces the
+     * spinner from then on.
+     */
+    private void checkCompletion(String drawable, int state, String glyphPath) {
+        final long transition = DURATION + 300;
+        final long completeStart = mModel.getCompleteStartTime(transition);
+        for (long local = 0; local <= DURATION + mModel.getGlyphDuration() + 100; local += STEP) {
+            mModel.evaluate(completeStart + local, state, transition, mFrame);
+            final float sweep = sweep(drawable, local, mModel.getMaxSweepAngle() / 360f);
+            assertEquals("sweep at " + local, mFrame.getSweep(), sweep, ANGLE_TOLERANCE);
+            if (sweep < 360f) {
+                // a closed circle looks the same at any rotation
+                assertEquals("rotation at " + local, mFrame.getRotation(),
+                        mSpec.sample(drawable, LoadingVectorSpec.GROUP_SPINNER, LoadingVectorSpec.PROPERTY_ROTATION,
+                                local, 0f), ANGLE_TOLERANCE);
+            }
+            assertColor(mFrame.getColor(), mSpec.sampleColor(drawable, LoadingVectorSpec.PATH_ARC, local, LOADING));
+
+            final float glyph = mSpec.sample(drawable, glyphPath, LoadingVectorSpec.PROPERTY_TRIM_PATH_END, local, 0f);
+            // hwui wraps a trim past 1, the vectors hold the whole glyph through the overshoot
+            assertTrue("glyph trim " + glyph + " at " + local, glyph <= 1f);
+            final float expected = mFrame.isGlyphVisible() ? Math.min(1f, mFrame.getGlyphProgress()) : 0f;
+            assertEquals("glyph at " + local, expected, glyph, 0.0001f);
+        }
+    }
+
+    private float sweep(String drawable, long time, float initialTrim) {
+        return 360f * mSpec.sample(drawable, LoadingVectorSpec.PATH_ARC, LoadingVectorSpec.PROPERTY_TRIM_PATH_END,
+                time, initialTrim);
+    }
+
+    private static void assertColor(int expected, int actual) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            assertEquals(Integer.toHexString(expected) + " vs " + Integer.toHexString(actual),
+                    (expected >>> shift) & 0xff, (actual >>> shift) & 0xff, 1);
+        }
+    }
+
+    @Test
+    public void formatDropsTrailingZeros() {
+        assertEquals("24", LoadingVectorSpec.format(24f));
+        assertEquals("0.5", LoadingVectorSpec.format(0.5f));
+        assertEquals("0.02778", LoadingVectorSpec.format(10f / 360f));
+    }
+
+    @Test
+    public void checkedInResourcesMatchSpec() throws IOException {
+        final boolean update = Boolean.getBoolean("updateVectorResources");
+        for (Map.Entry<String, String> resource : mSpec.getResources().entrySet()) {
+            final File file = new File(RES_DIR, resource.getKey());
+            if (update) {
+                write(file, resource.getValue());
+                continue;
+            }
+            assertTrue(file + " is missing", file.exists());
+            assertEquals(file + " is out of date", resource.getValue(), read(file));
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                final int count = in.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            return new String(bytes, 0, read, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.alexjing.loadingdrawable;
+
+import java.util.Locale;
+
+/**
+ * Per-frame costs of one {@link StressScenario}, passed from the child JVM as one line.
+ */
+final class StressResult {
+
+    final int mCount;
+    final int mFrames;
+    final double mMeanMicros;
+    final double mMedianMicros;
+    final double mP95Micros;
+    final double mMaxMicros;
+    final double mBytesPerFrame;
+    final double mInvalidationsPerFrame;
+    final double mDrawOpsPerFrame;
+    final double mAnimating;
+    final int mMaxAnimating;
+    final double mFrameCallbacks;
+    final int mMaxFrameCallbacks;
+    final int mCompletions;
+
+    StressResult(int count, int frames, double meanMicros, double medianMicros, double p95Micros,
+                 double maxMicros, double bytesPerFrame, double invalidationsPerFrame,
+                 double drawOpsPerFrame, double animating, int maxAnimating, double frameCallbacks,
+                 int maxFrameCallbacks, int completions) {
+        mCount = count;
+        mFrames = frames;
+        mMeanMicros = meanMicros;
+        mMedianMicros = medianMicros;
+        mP95Micros = p95Micros;
+        mMaxMicros = maxMicros;
+        mBytesPerFrame = bytesPerFrame;
+        mInvalidationsPerFrame = invalidationsPerFrame;
+        mDrawOpsPerFrame = drawOpsPerFrame;
+        mAnimating = animating;
+        mMaxAnimating = maxAnimating;
+        mFrameCallbacks = frameCallbacks;
+        mMaxFrameCallbacks = maxFrameCallbacks;
+        mCompletions = completions;
+    }
+
+    String toLine() {
+        return String.format(Locale.US, "%d %d %f %f %f %f %f %f %f %f %d %f %d %d", mCount, mFrames,
+                mMeanMicros, mMedianMicros, mP95Micros, mMaxMicros, mBytesPerFrame,
+                mInvalidationsPerFrame, mDrawOpsPerFrame, mAnimating, mMaxAnimating,
+                mFrameCallbacks, mMaxFrameCallbacks, mCompletions);
+    }
+
+    static StressResult parse(String line) {
+        final String[] values = line.split(" ");
+        return new StressResult(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+                Double.parseDouble(values[2]), Double.parseDouble(values[3]),
+                Double.parseDouble(values[4]), Double.parseDouble(values[5]),
+                Double.parseDouble(values[6]), Double.parseDouble(values[7]),
+                Double.parseDouble(values[8]), Double.parseDouble(values[9]),
+                Integer.parseInt(values[10]), Double.parseDouble(values[11]),
+                Integer.parseInt(values[12]), Integer.parseInt(values[13]));
+    }
+}
@@ -0,0 +1,138 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a {@link StressScenario} for each spinner count and prints what one frame costs as
+ * the count grows: thread CPU time per frame (mean, median, 95th percentile, max and the
+ * share of the frame interval the 95th percentile takes), bytes allocated, invalidations,
+ * canvas draw calls, the spinners animating and the choreographer frame callbacks serving
+ * them. The counts where the frame share gets uncomfortable are the density limit for a
+ * screen.
+ * <p>
+ * {@code --counts <n,n,...>} sets the counts, 10, 100 and 1000 by default,
+ * {@code --seconds <s>} the measured time and {@code --warmup <s>} the unmeasured time
+ * before it, {@code --fps <n>} the frame rate and {@code --seed <n>} the random timeline,
+ * which is the same for every run with the same seed.
+ * <p>
+ * Every count runs in its own JVM so the JIT profile of one does not skew the next.
+ */
+public final class StressRunner {
+
+    private static final String ARG_CHILD = "--child";
+    private static final String RESULT_PREFIX = "RESULT ";
+
+    private static final long BASE_TIME = 1000;
+
+    private int[] mCounts = {10, 100, 1000};
+    private int mSeconds = 20;
+    private int mWarmupSeconds = 10;
+    private int mFps = 60;
+    private long mSeed = 1;
+
+    public static void main(String[] args) throws IOException {
+        final StressRunner runner = new StressRunner();
+        final List<String> passed = new ArrayList<>();
+        int child = -1;
+        for (int i = 0; i < args.length; i++) {
+            if ("--counts".equals(args[i])) {
+                final String[] counts = args[++i].split(",");
+                runner.mCounts = new int[counts.length];
+                for (int j = 0; j < counts.length; j++) {
+                    runner.mCounts[j] = Integer.parseInt(counts[j].trim());
+                }
+                continue;
+            } else if ("--seconds".equals(args[i])) {
+                runner.mSeconds = Integer.parseInt(args[i + 1]);
+            } else if ("--warmup".equals(args[i])) {
+                runner.mWarmupSeconds = Integer.parseInt(args[i + 1]);
+            } else if ("--fps".equals(args[i])) {
+                runner.mFps = Integer.parseInt(args[i + 1]);
+            } else if ("--seed".equals(args[i])) {
+                runner.mSeed = Long.parseLong(args[i + 1]);
+            } else if (ARG_CHILD.equals(args[i])) {
+                child = Integer.parseInt(args[++i]);
+                continue;
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+            passed.add(args[i]);
+            passed.add(args[++i]);
+        }
+        if (runner.mSeconds <= 0 || runner.mWarmupSeconds < 0 || runner.mFps <= 0) {
+            throw new IllegalArgumentException("--seconds and --fps must be positive, --warmup not negative");
+        }
+
+        if (child >= 0) {
+            final StressResult result = runner.measure(child);
+            System.out.println(RESULT_PREFIX + result.toLine());
+            return;
+        }
+
+        final double frameMicros = 1000000.0 / runner.mFps;
+        System.out.println(String.format(Locale.US, "%d s at %d fps after %d s of warmup, seed %d",
+                runner.mSeconds, runner.mFps, runner.mWarmupSeconds, runner.mSeed));
+        System.out.println(String.format(Locale.US, "%8s %9s %9s %9s %9s %7s %11s %9s %9s %13s %11s %6s",
+                "spinners", "mean us", "p50 us", "p95 us", "max us", "frame%", "bytes/frm",
+                "inval/frm", "draws/frm", "animating", "callbacks", "done"));
+        for (int count : runner.mCounts) {
+            final StressResult result = fork(count, passed);
+            System.out.println(String.format(Locale.US,
+                    "%8d %9.1f %9.1f %9.1f %9.1f %6.1f%% %11.1f %9.1f %9.1f %6.1f/%-6d %4.1f/%-6d %6d",
+                    result.mCount, result.mMeanMicros, result.mMedianMicros, result.mP95Micros,
+                    result.mMaxMicros, result.mP95Micros * 100 / frameMicros, result.mBytesPerFrame,
+                    result.mInvalidationsPerFrame, result.mDrawOpsPerFrame, result.mAnimating,
+                    result.mMaxAnimating, result.mFrameCallbacks, result.mMaxFrameCallbacks,
+                    result.mCompletions));
+        }
+    }
+
+    StressResult measure(int count) {
+        final StressScenario scenario = new StressScenario(new Context(3f), count, mSeed);
+        return scenario.run(BASE_TIME, mFps, mWarmupSeconds * mFps, mSeconds * mFps);
+    }
+
+    private static StressResult fork(int count, List<String> passed) throws IOException {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StressRunner.class.getName());
+        command.add(ARG_CHILD);
+        command.add(String.valueOf(count));
+        command.addAll(passed);
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        StressResult result = null;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = StressResult.parse(line.substring(RESULT_PREFIX.length()));
+                } else {
+                    System.out.println(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (result == null) {
+            throw new IllegalStateException("Stress run of " + count + " spinners produced no result");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,217 @@
+package com.alexjing.loadingdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A screen of {@code count} spinners on the main thread, each looping through the life of
+ * a list row: it starts at a random time, its load finishes with SUCCESS or ERROR after a
+ * random delay, and once the completion has played it starts again after a random idle
+ * time. Frames are driven on the fake clock and every spinner invalidated by a frame is
+ * drawn right after it, as its host view would.
+ * <p>
+ * The cost of each frame, the state requests due in it, the tick and the draws, is
+ * measured in thread CPU time and allocated bytes, so the numbers do not depend on how
+ * busy the machine is. A spinner lays out its glyph on its first completion, which the
+ * warmup should cover, {@link #START_SPREAD} plus the longest load.
+ */
+final class StressScenario {
+
+    static final int SIZE = 48;
+
+    private static final long START_SPREAD = 2000;
+    private static final long MIN_LOAD = 300;
+    private static final long LOAD_SPREAD = 3700;
+    private static final long IDLE_SPREAD = 1000;
+    /**
+     * One request in this many finishes the completion right away instead of animating it.
+     */
+    private static final int FINISH_NOW_ONE_IN = 5;
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int mCount;
+    private final Random mRandom;
+    private final LoadingDrawable[] mDrawables;
+    private final HostView[] mViews;
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * Time of each spinner's next start or state request, {@link #NONE} while its
+     * completion plays.
+     */
+    private final long[] mStartAt;
+    private final long[] mRequestAt;
+    private final LoadingDrawable.LoadingState[] mRequestState;
+    private final int[] mRequestMode;
+
+    private int mCompletions;
+
+    StressScenario(Context context, int count, long seed) {
+        mCount = count;
+        mRandom = new Random(seed);
+        mDrawables = new LoadingDrawable[count];
+        mViews = new HostView[count];
+        mStartAt = new long[count];
+        mRequestAt = new long[count];
+        mRequestState = new LoadingDrawable.LoadingState[count];
+        mRequestMode = new int[count];
+        for (int i = 0; i < count; i++) {
+            final LoadingDrawable drawable = new LoadingDrawable(context);
+            final HostView view = new HostView();
+            drawable.setBounds(0, 0, SIZE, SIZE);
+            drawable.setCallback(view);
+            mDrawables[i] = drawable;
+            mViews[i] = view;
+        }
+    }
+
+    /**
+     * Plays {@code warmupFrames} unmeasured, then {@code frames} measured ones, starting
+     * at {@code base} on the clock.
+     */
+    StressResult run(long base, int fps, int warmupFrames, int frames) {
+        for (int i = 0; i < mCount; i++) {
+            mStartAt[i] = base + (long) (mRandom.nextDouble() * START_SPREAD);
+            mRequestAt[i] = NONE;
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long[] cpuNanos = new long[frames];
+        long allocated = 0;
+        long invalidations = 0;
+        long drawOps = 0;
+        long animating = 0;
+        int maxAnimating = 0;
+        long frameCallbacks = 0;
+        int maxFrameCallbacks = 0;
+        int completionsBefore = 0;
+
+        for (int frame = 0; frame < warmupFrames + frames; frame++) {
+            final long time = base + frame * 1000L / fps;
+            final boolean measured = frame >= warmupFrames;
+            if (frame == warmupFrames) {
+                completionsBefore = mCompletions;
+            }
+            final int invalidationsBefore = countInvalidations();
+            mCanvas.resetOpCounts();
+            final int callbacks = Choreographer.getInstance().getPendingCallbackCount();
+
+            final long bytesBefore = mThreadBean.getThreadAllocatedBytes(threadId);
+            final long cpuBefore = mThreadBean.getCurrentThreadCpuTime();
+            step(time);
+            final long cpu = mThreadBean.getCurrentThreadCpuTime() - cpuBefore;
+            final long bytes = mThreadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            if (measured) {
+                cpuNanos[frame - warmupFrames] = cpu;
+                allocated += bytes;
+                invalidations += countInvalidations() - invalidationsBefore;
+                drawOps += mCanvas.getDrawOpCount();
+                final int active = LoadingDrawable.getActiveInstanceCount();
+                animating += active;
+                maxAnimating = Math.max(maxAnimating, active);
+                frameCallbacks += callbacks;
+                maxFrameCallbacks = Math.max(maxFrameCallbacks, callbacks);
+            }
+        }
+
+        for (LoadingDrawable drawable : mDrawables) {
+            drawable.stop();
+        }
+
+        Arrays.sort(cpuNanos);
+        long totalCpu = 0;
+        for (long nanos : cpuNanos) {
+            totalCpu += nanos;
+        }
+        return new StressResult(mCount, frames, totalCpu / (double) frames / 1000,
+                percentile(cpuNanos, 0.50) / 1000, percentile(cpuNanos, 0.95) / 1000,
+                cpuNanos[frames - 1] / 1000.0, allocated / (double) frames,
+                invalidations / (double) frames, drawOps / (double) frames,
+                animating / (double) frames, maxAnimating,
+                frameCallbacks / (double) frames, maxFrameCallbacks,
+                mCompletions - completionsBefore);
+    }
+
+    /**
+     * One frame: the requests due, the tick, and the draws it asked for.
+     */
+    private void step(long time) {
+        SystemClock.setUptimeMillis(time);
+        for (int i = 0; i < mCount; i++) {
+            final LoadingDrawable drawable = mDrawables[i];
+            if (mRequestAt[i] == NONE && mStartAt[i] == NONE && !drawable.isRunning()) {
+                // the completion played out, the row loads again after a while
+                mCompletions++;
+                mStartAt[i] = time + (long) (mRandom.nextDouble() * IDLE_SPREAD);
+            }
+            if (mStartAt[i] <= time) {
+                drawable.start();
+                mStartAt[i] = NONE;
+                mRequestAt[i] = time + MIN_LOAD + (long) (mRandom.nextDouble() * LOAD_SPREAD);
+                mRequestState[i] = mRandom.nextBoolean()
+                        ? LoadingDrawable.LoadingState.SUCCESS : LoadingDrawable.LoadingState.ERROR;
+                mRequestMode[i] = mRandom.nextInt(FINISH_NOW_ONE_IN) == 0
+                        ? LoadingDrawable.TRANSITION_FINISH_NOW : LoadingDrawable.TRANSITION_ANIMATE;
+            } else if (mRequestAt[i] <= time) {
+                drawable.setLoadingState(mRequestState[i], mRequestMode[i]);
+                mRequestAt[i] = NONE;
+            }
+        }
+
+        Choreographer.getInstance().doFrame(time);
+
+        for (int i = 0; i < mCount; i++) {
+            final HostView view = mViews[i];
+            if (view.mDirty) {
+                view.mDirty = false;
+                mDrawables[i].draw(mCanvas);
+            }
+        }
+    }
+
+    private int countInvalidations() {
+        int count = 0;
+        for (HostView view : mViews) {
+            count += view.mInvalidations;
+        }
+        return count;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+
+    /**
+     * Stands in for the view hosting one spinner, redrawn on the frame that invalidated it.
+     */
+    private static final class HostView implements Drawable.Callback {
+        boolean mDirty;
+        int mInvalidations;
+
+        @Override
+        public void invalidateDrawable(Drawable who) {
+            mDirty = true;
+            mInvalidations++;
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}